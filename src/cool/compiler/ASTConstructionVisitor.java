@@ -9,6 +9,12 @@ import java.util.ArrayList;
  * Visitor applied on the *parse tree*, which creates the associated Abstract Syntax Tree.
  */
 public class ASTConstructionVisitor extends CoolParserBaseVisitor<ASTNode> {
+    // The compilation this visitor runs in, which knows the files of the classes
+    final CompilationContext context;
+
+    public ASTConstructionVisitor(CompilationContext context) {
+        this.context = context;
+    }
 
     @Override
     public ASTNode visitProgram(CoolParser.ProgramContext ctx) {
@@ -36,7 +42,8 @@ public class ASTConstructionVisitor extends CoolParserBaseVisitor<ASTNode> {
                 ctx.start,
                 new Type(ctx, ctx.this_),
                 ctx.parent != null ? new Type(ctx, ctx.parent) : null,
-                definitions
+                definitions,
+                context.options.fileNames.indexOf(context.fileNames.get(ctx))
         );
     }
 
@@ -43,11 +43,15 @@ class Class extends ASTNode {
     Type parent;
     ArrayList<Definition> definitions;
 
-    Class(ParserRuleContext ctx, Token token, Type name, Type parent, ArrayList<Definition> definitions) {
+    // Position of the class's source file among the input files
+    int fileId;
+
+    Class(ParserRuleContext ctx, Token token, Type name, Type parent, ArrayList<Definition> definitions, int fileId) {
         super(ctx, token);
         this.name = name;
         this.parent = parent;
         this.definitions = definitions;
+        this.fileId = fileId;
     }
 
     public <T> T accept(ASTVisitor<T> visitor) {
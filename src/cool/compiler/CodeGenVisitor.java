@@ -1,6 +1,9 @@
 package cool.compiler;
 
-import cool.parser.CoolParser;
+import cool.ir.IrMethod;
+import cool.ir.MipsEmitter;
+import cool.ir.Optimizer;
+import cool.profiler.Profile;
 import cool.structures.*;
 import org.stringtemplate.v4.ST;
 import org.stringtemplate.v4.STGroupFile;
@@ -9,10 +12,18 @@ import java.io.File;
 import java.util.*;
 
 public class CodeGenVisitor implements ASTVisitor<ST> {
-    static STGroupFile templates = new STGroupFile("cool/compiler/cgen.stg");
+    static final STGroupFile TEMPLATES = new STGroupFile("cool/compiler/cgen.stg");
+
+    // Override the templates that depend on the object layout
+    static final STGroupFile COMPACT_TEMPLATES = new STGroupFile("cool/compiler/cgen-compact.stg");
+
+    // The compilation this generator runs in, with its options and symbols
+    final CompilationContext context;
+    final CompilerOptions options;
+    final SymbolTable symbols;
+
+    final STGroupFile templates;
 
-    ST strConstsSection;
-    ST intConstsSection;
     ST classNameTabSection;
     ST classObjTabSection;
     ST classProtObjSection;
@@ -22,72 +33,347 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
 
     ST attrInitSeq;
 
-    Map<String, Integer> apparitionCnt = new HashMap<>();
-    int currStrConstIdx = -1;
+    // Labels generated so far, by kind, and the number of the first one
+    int[] labelCnt = new int[Label.Kind.values().length];
+    final int[] labelBase = new int[Label.Kind.values().length];
+    String labelPrefix = "";
 
-    HashSet<Integer> ints = new HashSet<>();
-    HashMap<String, Integer> strs = new HashMap<>();
+    // Int and String constants, emitted once the code has been generated
+    final ConstantPool constants;
 
     HashSet<TypeSymbol> nameTabEntries = new HashSet<>();
 
-    String currEndCaseLabel;
+    // Set on the generators of single classes, whose name and object table
+    // entries are added in source order when they are merged
+    boolean deferClassTables = false;
+
+    Label currEndCaseLabel;
+    String currCaseSite;
+
+    // Source file of the class being generated, and its name constant,
+    // null until first used
+    int currFileId;
+    StringConstant currFileName;
+
+    // Runtime routines replaced by routines emitted with the program
+    Map<String, String> runtimeRoutines;
+
+    // Set when method bodies and initializers go through the IR backend
+    IrLoweringVisitor irLowering;
+    MipsEmitter irEmitter;
+    Optimizer irOptimizer;
+
+    // With profiling, Main.main is a stub that runs the program's main
+    // under this label, then prints the profile
+    static final String WRAPPED_MAIN_LABEL = "_main_body";
+
+    // Profile counters, in the order they are printed, with their names,
+    // and the tables counting the receivers of every dispatch by class
+    record ProfileCounter(Label label, String name) {}
+
+    final List<ProfileCounter> profileCounters = new ArrayList<>();
+    final List<ProfileCounter> receiverTables = new ArrayList<>();
+
+    // The inline caches of the dispatches, emitted with the data
+    final List<Label> inlineCaches = new ArrayList<>();
+
+    // Counters of an earlier run, null unless given with -profile-use
+    final Profile profile;
+
+    // Code moved out of line, emitted after the method or initializer being
+    // generated, and the methods that never ran, emitted after all the others
+    List<ST> coldCode;
+    List<ST> initColdCode;
+    ST coldTextSection;
 
-    public String genLabel(String label) {
-        int cnt = apparitionCnt.getOrDefault(label, 0);
-        apparitionCnt.put(label, cnt + 1);
+    // With -elide-void-checks, the dispatches of the class whose receiver is
+    // never void, and the abort stubs shared by the dispatches of the method
+    // or initializer being generated, by line
+    Set<ExplicitDispatch> nonVoidReceivers = Set.of();
+    Map<Integer, Label> voidAborts;
+    Map<Integer, Label> initVoidAborts;
 
-        return label + "_" + cnt;
+    public Label genLabel(Label.Kind kind) {
+        return new Label(labelPrefix, labelBase, kind, labelCnt[kind.ordinal()]++);
+    }
+
+    public CodeGenVisitor(CompilationContext context) {
+        this(context, new ConstantPool());
+    }
+
+    // The pool may be shared with the generators of other compilation units
+    public CodeGenVisitor(CompilationContext context, ConstantPool constants) {
+        this.context = context;
+        this.options = context.options;
+        this.symbols = context.symbolTable;
+        this.profile = context.profile;
+        this.constants = constants;
+
+        templates = options.compactHeaders ? COMPACT_TEMPLATES : TEMPLATES;
+        runtimeRoutines = options.runtimeRoutines();
+        irLowering = options.ir ? new IrLoweringVisitor(this) : null;
+        irEmitter = new MipsEmitter(options.intCacheLow, options.intCacheHigh, runtimeRoutines);
+        irOptimizer = options.optimize ? new Optimizer(this::addIfMissingInt) : null;
     }
 
     public void addIfMissingInt(int n) {
-        if (ints.contains(n)) {
-            return;
+        constants.addInt(n);
+    }
+
+    public StringConstant addIfMissingStr(String str) {
+        return constants.ref(constants.addString(str));
+    }
+
+    // Name constant of the current class's file, added at its first use
+    public StringConstant getFileName() {
+        if (currFileName == null) {
+            currFileName = addIfMissingStr(new File(options.fileNames.get(currFileId)).getName());
         }
 
-        ints.add(n);
-        intConstsSection.add("e", templates.getInstanceOf("intConst").add("n", n));
+        return currFileName;
     }
 
-    public int addIfMissingStr(String str) {
-        if (strs.containsKey(str)) {
-            return strs.get(str);
+    // Label of the constant holding a folded String or Int value
+    public Object addIfMissingConst(Object value) {
+        if (value instanceof String str) {
+            return addIfMissingStr(str);
         }
 
-        // Increment the string idx
-        ++currStrConstIdx;
+        addIfMissingInt((Integer) value);
+        return "int_const" + value;
+    }
 
-        // Get the string length
-        int len = str.length();
+    // The label a runtime routine is called through, which options can
+    // replace with a routine emitted in the program
+    private String routine(String label) {
+        return runtimeRoutines.getOrDefault(label, label);
+    }
 
-        // Size = 4 <3 header + 1 int> + (len + 1) / 4 <string len + terminator, divided by a word length of 4>
-        // Optimization: len + 1 + 3, a hack for getting the ceil() of the division above
-        int size = 4 + (len + 4) / 4;
+    private boolean isWrappedMain(String className, String methodName) {
+        return options.profile && className.equals("Main") && methodName.equals("main");
+    }
 
-        // Add the len as a constant integer
-        addIfMissingInt(len);
+    // Code counting one execution of the site, null when not profiling
+    private ST countProfile(String name) {
+        if (!options.profile) {
+            return null;
+        }
 
-        strs.put(str, currStrConstIdx);
+        addIfMissingStr(name);
+        var label = genLabel(Label.Kind.PROFILE_COUNTER);
+        profileCounters.add(new ProfileCounter(label, name));
 
-        var strConstST = templates.getInstanceOf("strConst")
-                .add("idx", currStrConstIdx)
-                .add("size", size)
-                .add("intIdx", len)
-                .add("str", str);
-        strConstsSection.add("e", strConstST);
+        return templates.getInstanceOf("profileCount").add("label", label);
+    }
+
+    // Code counting the receivers of a dispatch by class, null when not
+    // profiling
+    private ST countReceivers(String name) {
+        if (!options.profile) {
+            return null;
+        }
+
+        addIfMissingStr(name);
+        var label = genLabel(Label.Kind.PROFILE_RECEIVERS);
+        receiverTables.add(new ProfileCounter(label, name));
 
-        return currStrConstIdx;
+        return templates.getInstanceOf("profileReceiver").add("label", label);
+    }
+
+    // Where the current class's code comes from, for the counter names
+    private String site(ASTNode node) {
+        return new File(options.fileNames.get(currFileId)).getName() + ":" + node.token.getLine()
+                + ":" + (node.token.getCharPositionInLine() + 1);
+    }
+
+    // A direct call to the method of the class that nearly all the receivers
+    // of the dispatch had in the profile, checking the receiver's tag first;
+    // null when the dispatch is not hot or has no such class
+    private ST devirtualize(String methodName, String site, TypeSymbol baseType, int methodOffset) {
+        if (profile == null) {
+            return null;
+        }
+
+        long total = 0;
+        Map.Entry<String, Long> top = null;
+        for (var receiver : profile.receivers(methodName, site).entrySet()) {
+            total += receiver.getValue();
+            if (top == null || receiver.getValue() > top.getValue()) {
+                top = receiver;
+            }
+        }
+        if (total < CompilerOptions.DEVIRTUALIZE_MIN_CALLS
+                || top.getValue() < CompilerOptions.DEVIRTUALIZE_MIN_SHARE * total) {
+            return null;
+        }
+
+        // The program may have changed since it was profiled
+        if (!(symbols.globals.lookup(top.getKey()) instanceof TypeSymbol cls)
+                || cls.getTag() < baseType.getTag() || cls.getTag() > baseType.getMaxTag()) {
+            return null;
+        }
+
+        var owner = (TypeSymbol) cls.lookupMethod(methodName).getParent();
+        var missLabel = genLabel(Label.Kind.DEVIRTUALIZED_MISS);
+        var endLabel = genLabel(Label.Kind.DEVIRTUALIZED_END);
+        coldCode.add(templates.getInstanceOf("coldBlock")
+                .add("label", missLabel)
+                .add("e", templates.getInstanceOf("virtualCall").add("methodOffset", methodOffset))
+                .add("endLabel", endLabel));
+
+        return templates.getInstanceOf("devirtualized")
+                .add("tag", cls.getTag())
+                .add("target", routine(owner.getName() + "." + methodName))
+                .add("missLabel", missLabel)
+                .add("endLabel", endLabel);
+    }
+
+    // A call through a new inline cache, which keeps the tag of the last
+    // receiver and the method it called; the other receivers refill it out
+    // of line, counted with -profile
+    private ST inlineCacheCall(String methodName, String site, int methodOffset) {
+        var cache = genLabel(Label.Kind.INLINE_CACHE);
+        var missLabel = genLabel(Label.Kind.INLINE_CACHE_MISS);
+        var callLabel = genLabel(Label.Kind.INLINE_CACHE_CALL);
+        inlineCaches.add(cache);
+        coldCode.add(templates.getInstanceOf("inlineCacheMiss")
+                .add("countMiss", countProfile("icmiss " + methodName + " " + site))
+                .add("methodOffset", methodOffset)
+                .add("missLabel", missLabel)
+                .add("callLabel", callLabel));
+
+        return templates.getInstanceOf("inlineCacheCall")
+                .add("cache", cache)
+                .add("missLabel", missLabel)
+                .add("callLabel", callLabel);
+    }
+
+    // How a dynamic dispatch calls the method once the receiver is known
+    // not to be void, null for the dispatch table
+    private ST dynamicCall(String methodName, String site, TypeSymbol baseType, int methodOffset) {
+        var direct = devirtualize(methodName, site, baseType, methodOffset);
+        if (direct == null && options.inlineCaches) {
+            direct = inlineCacheCall(methodName, site, methodOffset);
+        }
+
+        return direct;
+    }
+
+    // Adds the void check of a dispatch whose receiver may be void: a jump
+    // to the abort stub of its line, or the whole abort inline
+    private void checkVoid(ST dispatchST, int lineNumber) {
+        if (!options.elideVoidChecks) {
+            dispatchST.add("label", genLabel(Label.Kind.DISPATCH));
+            return;
+        }
+
+        var abortLabel = voidAborts.get(lineNumber);
+        if (abortLabel == null) {
+            abortLabel = genLabel(Label.Kind.VOID_ABORT);
+            voidAborts.put(lineNumber, abortLabel);
+        }
+
+        dispatchST.add("abortLabel", abortLabel);
+    }
+
+    // The cold code of a method or initializer, followed by its abort stubs
+    private List<ST> withVoidAborts(List<ST> cold, Map<Integer, Label> aborts) {
+        if (aborts != null) {
+            var fileName = getFileName();
+            aborts.forEach((lineNumber, label) -> cold.add(templates.getInstanceOf("voidAbort")
+                    .add("label", label)
+                    .add("fileName", fileName)
+                    .add("lineNumber", lineNumber)
+                    .add("dispatchAbort", routine("_dispatch_abort"))));
+        }
+
+        return cold;
+    }
+
+    // Wraps the assembly emitted from the IR of a method or initializer
+    private ST emitIr(IrMethod irMethod) {
+        if (irOptimizer != null) {
+            irOptimizer.optimize(irMethod);
+        }
+        if (options.dumpIr) {
+            context.err.println(irMethod);
+        }
+
+        var label = !irMethod.isInit() && isWrappedMain(irMethod.getClassName(), irMethod.getMethodName())
+                ? WRAPPED_MAIN_LABEL : irMethod.getLabel();
+        // Emitted when rendered, once the String constants are numbered
+        return templates.getInstanceOf("sequence").add("e", new Object() {
+            @Override
+            public String toString() {
+                return irEmitter.emit(irMethod, label);
+            }
+        });
     }
 
     @Override
     public ST visit(Program program) {
-        strConstsSection = templates.getInstanceOf("sequence");
-        intConstsSection = templates.getInstanceOf("sequence");
+        beginProgram();
+
+        if (irLowering != null) {
+            program.accept(irLowering);
+        }
+
+        // The IR dumps would interleave
+        if (options.threads > 1 && !options.dumpIr) {
+            ParallelCodeGen.generate(this, program);
+        } else {
+            for (ASTNode cls : program.classes)
+                textMainSection.add("e", cls.accept(this));
+        }
+
+        // Reset max tags
+        symbols.resetMaxTags();
+
+        return endProgram();
+    }
+
+    // The classes defined in one source file, as a module for Linker. Its
+    // labels start with the module name so that modules can be linked together
+    public String visitModule(Program program, int fileId, String moduleName) {
+        beginProgram();
+        labelPrefix = moduleName + "_";
+        constants.labelPrefix = labelPrefix;
+
+        if (irLowering != null) {
+            program.accept(irLowering);
+        }
+
+        List<TypeSymbol> classes = new ArrayList<>();
+        for (var cls : program.classes) {
+            if (cls.fileId == fileId) {
+                classes.add(cls.name.getTypeSymbol());
+                textMainSection.add("e", cls.accept(this));
+            }
+        }
+
+        var dataST = templates.getInstanceOf("sequence")
+                .add("e", classProtObjSection)
+                .add("e", classDispTabSection);
+        if (!inlineCaches.isEmpty()) {
+            dataST.add("e", templates.getInstanceOf("inlineCaches").add("labels", inlineCaches));
+        }
+        var textST = templates.getInstanceOf("sequence")
+                .add("e", classInitSection)
+                .add("e", textMainSection);
+
+        return Linker.formatModule(options, Linker.hierarchySignature(program), labelPrefix, classes, constants,
+                dataST.render(), textST.render());
+    }
+
+    // Sections of the program and the constants every program defines
+    void beginProgram() {
         classNameTabSection = templates.getInstanceOf("sequence");
         classObjTabSection = templates.getInstanceOf("sequence");
         classProtObjSection = templates.getInstanceOf("sequence");
         classDispTabSection = templates.getInstanceOf("sequence");
         classInitSection = templates.getInstanceOf("sequence");
         textMainSection = templates.getInstanceOf("sequence");
+        coldTextSection = templates.getInstanceOf("sequence");
 
         // Add integers 0-6
         for (int i = 0; i <= 6; ++i) {
@@ -96,32 +382,93 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
 
         // Add the predefined class strings
         addIfMissingStr("");
-        addIfMissingStr("Object");
-        addIfMissingStr("IO");
-        addIfMissingStr("Int");
-        addIfMissingStr("String");
-        addIfMissingStr("Bool");
+        var objectName = addIfMissingStr("Object");
+        var ioName = addIfMissingStr("IO");
+        var intName = addIfMissingStr("Int");
+        var stringName = addIfMissingStr("String");
+        var boolName = addIfMissingStr("Bool");
 
         // Add them to the name table
-        classNameTabSection.add("e", templates.getInstanceOf("nameTab").add("strIdx", 1));
-        classNameTabSection.add("e", templates.getInstanceOf("nameTab").add("strIdx", 2));
-        classNameTabSection.add("e", templates.getInstanceOf("nameTab").add("strIdx", 3));
-        classNameTabSection.add("e", templates.getInstanceOf("nameTab").add("strIdx", 4));
-        classNameTabSection.add("e", templates.getInstanceOf("nameTab").add("strIdx", 5));
-        nameTabEntries.add(SymbolTable.OBJECT);
-        nameTabEntries.add(SymbolTable.IO);
-        nameTabEntries.add(SymbolTable.INT);
-        nameTabEntries.add(SymbolTable.STRING);
-        nameTabEntries.add(SymbolTable.BOOL);
-
-        for (ASTNode cls : program.classes)
-            textMainSection.add("e", cls.accept(this));
+        classNameTabSection.add("e", templates.getInstanceOf("nameTab").add("name", objectName));
+        classNameTabSection.add("e", templates.getInstanceOf("nameTab").add("name", ioName));
+        classNameTabSection.add("e", templates.getInstanceOf("nameTab").add("name", intName));
+        classNameTabSection.add("e", templates.getInstanceOf("nameTab").add("name", stringName));
+        classNameTabSection.add("e", templates.getInstanceOf("nameTab").add("name", boolName));
+        nameTabEntries.add(symbols.OBJECT);
+        nameTabEntries.add(symbols.IO);
+        nameTabEntries.add(symbols.INT);
+        nameTabEntries.add(symbols.STRING);
+        nameTabEntries.add(symbols.BOOL);
+    }
 
-        // Reset max tags
-        SymbolTable.resetMaxTags();
+    // The whole program, from the sections and the runtime support selected
+    // by the options
+    ST endProgram() {
+        var strConstsSection = constants.emitStrings(templates, options.headerWords());
+        var intConstsSection = constants.emitInts(templates);
+
+        // Add the preallocated Int boxes, which the runtime also uses, so
+        // the table is emitted even when it is empty
+        var cacheEntriesST = templates.getInstanceOf("sequence");
+        for (int n = options.intCacheLow; n <= options.intCacheHigh; ++n) {
+            cacheEntriesST.add("e", templates.getInstanceOf("intCacheEntry").add("n", n));
+        }
+        intConstsSection.add("e", templates.getInstanceOf("intCache")
+                .add("low", options.intCacheEnabled() ? options.intCacheLow : 0)
+                .add("size", options.intCacheEnabled() ? options.intCacheHigh - options.intCacheLow + 1 : 0)
+                .add("entries", cacheEntriesST));
+
+        if (profile != null) {
+            textMainSection.add("e", coldTextSection);
+        }
 
         var programST = templates.getInstanceOf("program");
         programST.add("strConsts", strConstsSection);
+
+        programST.add("objectAbort", routine("Object.abort"));
+        programST.add("ioInString", routine("IO.in_string"));
+        programST.add("ioInInt", routine("IO.in_int"));
+
+        if (options.ropes) {
+            programST.add("ropes", true);
+            classDispTabSection.add("e", templates.getInstanceOf("ropeData")
+                    .add("objectAbort", routine("Object.abort")));
+        }
+        if (options.bufferedIo) {
+            programST.add("bufferedIo", true);
+        }
+        if (options.profile) {
+            var profileDataST = templates.getInstanceOf("profileData")
+                    .add("fileName", options.profileFile().replace("\\", "\\\\").replace("\"", "\\\""));
+            for (var counter : profileCounters) {
+                profileDataST.add("labels", counter.label())
+                        .add("names", addIfMissingStr(counter.name()));
+            }
+            for (var table : receiverTables) {
+                profileDataST.add("receiverLabels", table.label())
+                        .add("receiverNames", addIfMissingStr(table.name()));
+            }
+            profileDataST.add("tagCount", nameTabEntries.size())
+                    .add("tableSize", 4 * nameTabEntries.size());
+
+            classDispTabSection.add("e", profileDataST);
+            textMainSection.add("e", templates.getInstanceOf("mainStub")
+                    .add("mainLabel", WRAPPED_MAIN_LABEL));
+            textMainSection.add("e", templates.getInstanceOf("profileRuntime"));
+        }
+        if (options.inlineCaches) {
+            if (!inlineCaches.isEmpty()) {
+                classDispTabSection.add("e", templates.getInstanceOf("inlineCaches").add("labels", inlineCaches));
+            }
+            textMainSection.add("e", templates.getInstanceOf("inlineCacheRuntime"));
+        }
+        if (options.bulkInput) {
+            classDispTabSection.add("e", templates.getInstanceOf("inputData")
+                    .add("bufferSize", CompilerOptions.INPUT_BUFFER_SIZE)
+                    .add("bufferWords", 5 + CompilerOptions.INPUT_BUFFER_SIZE / 4));
+            textMainSection.add("e", templates.getInstanceOf("inputRuntime")
+                    .add("bufferSize", CompilerOptions.INPUT_BUFFER_SIZE));
+        }
         programST.add("intConsts", intConstsSection);
         programST.add("classNameTab", classNameTabSection);
         programST.add("classObjTab", classObjTabSection);
@@ -137,10 +484,15 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
     public ST visit(Class class_) {
         // Init
         TypeSymbol symbol = class_.name.getTypeSymbol();
+        currFileId = class_.fileId;
+        currFileName = null;
+        if (options.elideVoidChecks) {
+            nonVoidReceivers = NonVoidAnalysis.receivers(symbols, class_);
+        }
 
         //// Chapter 1: Create the prototype
         // Find the inheritance chain
-        List<TypeSymbol> inheritanceChain = Utils.getInheritanceChainForType(symbol);
+        List<TypeSymbol> inheritanceChain = Utils.getInheritanceChainForType(symbols, symbol);
 
         // Find the attributes
         int attributeCnt = 0;
@@ -152,13 +504,13 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
                 // Create attribute data
                 ST protoAttributeST;
                 TypeSymbol type = attribute.getType();
-                if (type == SymbolTable.STRING) {
+                if (type == symbols.STRING) {
                     protoAttributeST = templates.getInstanceOf("protoAttribute")
-                            .add("label", "str_const0");
-                } else if (type == SymbolTable.INT) {
+                            .add("label", addIfMissingStr(""));
+                } else if (type == symbols.INT) {
                     protoAttributeST = templates.getInstanceOf("protoAttribute")
                             .add("label", "int_const0");
-                } else if (type == SymbolTable.BOOL) {
+                } else if (type == symbols.BOOL) {
                     protoAttributeST = templates.getInstanceOf("protoAttribute")
                             .add("label", "bool_const0");
                 } else {
@@ -174,7 +526,7 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
         var protObjST = templates.getInstanceOf("protObj")
                 .add("className", symbol.getName())
                 .add("tag", symbol.getTag())
-                .add("size", 3 + attributeCnt)
+                .add("size", options.headerWords() + attributeCnt)
                 .add("attributes", attributesST);
 
         classProtObjSection.add("e", protObjST);
@@ -198,6 +550,12 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
             String className = method.getValue();
 
             // Add the entry
+            var label = className + "." + methodName;
+            if (runtimeRoutines.containsKey(label)) {
+                dispEntriesST.add("e", templates.getInstanceOf("dispTabLabel").add("label", runtimeRoutines.get(label)));
+                continue;
+            }
+
             var dispTabEntryST = templates.getInstanceOf("dispTabEntry")
                     .add("className", className)
                     .add("methodName", methodName);
@@ -212,46 +570,75 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
         classDispTabSection.add("e", dispTabST);
 
         //// Chapter 3: Add the object and name to the tables
-        for (TypeSymbol cls : inheritanceChain) {
-            if (nameTabEntries.contains(cls)) {
-                continue;
-            }
-
-            nameTabEntries.add(cls);
-
-            var nameTabST = templates.getInstanceOf("nameTab")
-                    .add("strIdx", addIfMissingStr(symbol.getName()));
-
-            classNameTabSection.add("e", nameTabST);
+        if (!deferClassTables) {
+            addToClassTables(symbol, inheritanceChain);
         }
 
-        var objTabST = templates.getInstanceOf("objTab")
-                .add("className", symbol.getName());
-
-        classObjTabSection.add("e", objTabST);
-
         //// Chapter 4: Visit the definitions and form the main text
         attrInitSeq = templates.getInstanceOf("sequence");
+        initColdCode = new ArrayList<>();
+        initVoidAborts = options.elideVoidChecks ? new LinkedHashMap<>() : null;
         var definitionsST = templates.getInstanceOf("sequence");
         for (var def : class_.definitions) {
             definitionsST.add("e", def.accept(this));
         }
 
+        // __start and the profiling stub call Main's own label
+        var mainOwner = methods.get("main");
+        if (symbol.getName().equals("Main") && mainOwner != null && !mainOwner.equals("Main")) {
+            definitionsST.add("e", templates.getInstanceOf("inheritedMain")
+                    .add("label", isWrappedMain("Main", "main") ? WRAPPED_MAIN_LABEL : "Main.main")
+                    .add("target", mainOwner + ".main"));
+        }
+
         //// Chapter 5: Create the init sequence
+        if (irLowering != null) {
+            classInitSection.add("e", emitIr(irLowering.lowerInit(class_)));
+            return definitionsST;
+        }
+
         // Form the string template
         var classInitST = templates.getInstanceOf("classInit")
                 .add("className", symbol.getName())
                 .add("parentName", ((TypeSymbol)symbol.getParent()).getName())
-                .add("attributeInits", attrInitSeq);
+                .add("attributeInits", attrInitSeq)
+                .add("cold", withVoidAborts(initColdCode, initVoidAborts));
 
         classInitSection.add("e", classInitST);
 
         return definitionsST;
     }
 
+    void addToClassTables(TypeSymbol symbol, List<TypeSymbol> inheritanceChain) {
+        for (TypeSymbol cls : inheritanceChain) {
+            if (nameTabEntries.contains(cls)) {
+                continue;
+            }
+
+            nameTabEntries.add(cls);
+
+            var nameTabST = templates.getInstanceOf("nameTab")
+                    .add("name", addIfMissingStr(symbol.getName()));
+
+            classNameTabSection.add("e", nameTabST);
+        }
+
+        var objTabST = templates.getInstanceOf("objTab")
+                .add("className", symbol.getName());
+
+        classObjTabSection.add("e", objTabST);
+    }
+
     @Override
     public ST visit(Attribute attribute) {
+        // Lowered together with the class initializer
+        if (irLowering != null) {
+            return null;
+        }
+
         if (attribute.init != null) {
+            coldCode = initColdCode;
+            voidAborts = initVoidAborts;
             var attributeInitSeq = templates.getInstanceOf("attributeInit")
                     .add("e", attribute.init.accept(this))
                     .add("offset", attribute.name.getSymbol().getOffset());
@@ -264,12 +651,31 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
 
     @Override
     public ST visit(Method method) {
-        return templates.getInstanceOf("methodDef")
-                .add("className", ((TypeSymbol)method.name.getScope().getParent()).getName())
-                .add("methodName", method.name.getSymbol().getName())
+        if (irLowering != null) {
+            return emitIr(irLowering.lowerMethod(method));
+        }
+
+        var className = ((TypeSymbol)method.name.getScope().getParent()).getName();
+        var methodName = method.name.getSymbol().getName();
+        coldCode = new ArrayList<>();
+        voidAborts = options.elideVoidChecks ? new LinkedHashMap<>() : null;
+        var methodST = templates.getInstanceOf("methodDef")
+                .add("className", className)
+                .add("methodName", methodName)
+                .add("label", isWrappedMain(className, methodName) ? WRAPPED_MAIN_LABEL : null)
+                .add("profile", countProfile("method " + className + "." + methodName))
                 .add("e", method.body.accept(this))
                 .add("paramSize", method.params == null ? 0 : 4 * method.params.size())
-                .add("localsSize", 4 * ((FunctionSymbol) method.name.getSymbol()).getLocalsCnt());
+                .add("localsSize", 4 * ((FunctionSymbol) method.name.getSymbol()).getLocalsCnt())
+                .add("cold", withVoidAborts(coldCode, voidAborts));
+
+        // Keep the methods that never ran out of the way of the others
+        if (profile != null && profile.count("method", className + "." + methodName) == 0) {
+            coldTextSection.add("e", methodST);
+            return null;
+        }
+
+        return methodST;
     }
 
     @Override
@@ -285,11 +691,11 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
             localDefST.add("e", localAttribute.init.accept(this));
         } else {
             TypeSymbol type = localAttribute.name.getSymbol().getType();
-            if (type == SymbolTable.STRING) {
-                localDefST.add("e", "    la      $a0 str_const0");
-            } else if (type == SymbolTable.INT) {
+            if (type == symbols.STRING) {
+                localDefST.add("e", templates.getInstanceOf("loadAddress").add("label", addIfMissingStr("")));
+            } else if (type == symbols.INT) {
                 localDefST.add("e", "    la      $a0 int_const0");
-            } else if (type == SymbolTable.BOOL) {
+            } else if (type == symbols.BOOL) {
                 localDefST.add("e", "    la      $a0 bool_const0");
             } else {
                 localDefST.add("e", "    li      $a0 0");
@@ -299,53 +705,51 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
         return localDefST;
     }
 
+    // Boxes the Int result left in $t1, reusing a preallocated box when the value is cached
+    private ST boxIntResult() {
+        return templates.getInstanceOf("cachedInt")
+                .add("negLow", -options.intCacheLow)
+                .add("cacheSize", options.intCacheHigh - options.intCacheLow + 1)
+                .add("missLabel", genLabel(Label.Kind.INT_CACHE_MISS))
+                .add("endLabel", genLabel(Label.Kind.INT_CACHE_END));
+    }
+
     @Override
     public ST visit(BinaryOperation binaryOperation) {
-        // Arithmetic operations
-        var binaryOpST = templates.getInstanceOf("arithmetic")
-                .add("left", binaryOperation.left.accept(this))
-                .add("right", binaryOperation.right.accept(this));
-        if (binaryOperation.token.getText().equalsIgnoreCase("+")) {
-            return binaryOpST.add("op", "add");
-        }
-
-        if (binaryOperation.token.getText().equalsIgnoreCase("-")) {
-            return binaryOpST.add("op", "sub");
-        }
-
-        if (binaryOperation.token.getText().equalsIgnoreCase("*")) {
-            return binaryOpST.add("op", "mul");
-        }
-
-        if (binaryOperation.token.getText().equalsIgnoreCase("/")) {
-            return binaryOpST.add("op", "div");
-        }
+        String op = binaryOperation.token.getText();
 
         // Boolean operations
-        if (binaryOperation.token.getText().equalsIgnoreCase("=")) {
+        if (op.equals("=")) {
             return templates.getInstanceOf("equal")
                     .add("left", binaryOperation.left.accept(this))
                     .add("right", binaryOperation.right.accept(this))
-                    .add("equalLabel", genLabel("equal"));
+                    .add("equalLabel", genLabel(Label.Kind.EQUAL));
         }
 
-        if (binaryOperation.token.getText().equalsIgnoreCase("<")) {
+        if (op.equals("<") || op.equals("<=")) {
             return templates.getInstanceOf("cmp")
                     .add("left", binaryOperation.left.accept(this))
                     .add("right", binaryOperation.right.accept(this))
-                    .add("op", "blt")
-                    .add("compareLabel", genLabel("compare"));
+                    .add("op", op.equals("<") ? "blt" : "ble")
+                    .add("compareLabel", genLabel(Label.Kind.COMPARE));
         }
 
-        if (binaryOperation.token.getText().equalsIgnoreCase("<=")) {
-            return templates.getInstanceOf("cmp")
-                    .add("left", binaryOperation.left.accept(this))
-                    .add("right", binaryOperation.right.accept(this))
-                    .add("op", "ble")
-                    .add("compareLabel", genLabel("compare"));
+        // Arithmetic operations
+        boolean intCache = options.intCacheEnabled();
+        var binaryOpST = templates.getInstanceOf(intCache ? "arithmeticCached" : "arithmetic")
+                .add("left", binaryOperation.left.accept(this))
+                .add("right", binaryOperation.right.accept(this));
+        if (intCache) {
+            binaryOpST.add("box", boxIntResult());
         }
 
-        return null;
+        return switch (op) {
+            case "+" -> binaryOpST.add("op", "add");
+            case "-" -> binaryOpST.add("op", "sub");
+            case "*" -> binaryOpST.add("op", "mul");
+            case "/" -> binaryOpST.add("op", "div");
+            default -> null;
+        };
     }
 
     @Override
@@ -353,17 +757,23 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
         if (unaryOperation.token.getText().equalsIgnoreCase("isvoid")) {
             return templates.getInstanceOf("isvoid")
                     .add("e", unaryOperation.operand.accept(this))
-                    .add("isvoidLabel", genLabel("isvoid"))
-                    .add("endIsvoidLabel", genLabel("endIsvoid"));
+                    .add("isvoidLabel", genLabel(Label.Kind.ISVOID))
+                    .add("endIsvoidLabel", genLabel(Label.Kind.END_ISVOID));
         }
 
         if (unaryOperation.token.getText().equalsIgnoreCase("not")) {
             return templates.getInstanceOf("not")
                     .add("e", unaryOperation.operand.accept(this))
-                    .add("notLabel", genLabel("not"));
+                    .add("notLabel", genLabel(Label.Kind.NOT));
         }
 
         if (unaryOperation.token.getText().equalsIgnoreCase("~")) {
+            if (options.intCacheEnabled()) {
+                return templates.getInstanceOf("negCached")
+                        .add("e", unaryOperation.operand.accept(this))
+                        .add("box", boxIntResult());
+            }
+
             return templates.getInstanceOf("neg")
                     .add("e", unaryOperation.operand.accept(this));
         }
@@ -396,6 +806,8 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
 
     @Override
     public ST visit(New new_) {
+        var countST = countProfile("new " + new_.type.token.getText() + " " + site(new_));
+
         var newST = new ST("");
         if (new_.type.token.getText().equalsIgnoreCase("SELF_TYPE")) {
             newST = templates.getInstanceOf("newSelfType");
@@ -404,16 +816,28 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
                     .add("className", new_.type.token.getText());
         }
 
+        if (countST != null) {
+            return templates.getInstanceOf("sequence").add("e", countST).add("e", newST);
+        }
+
         return newST;
     }
 
     @Override
     public ST visit(ExplicitDispatch explicitDispatch) {
+        if (options.foldStrings) {
+            var folded = StringFolding.fold(explicitDispatch);
+            if (folded != null) {
+                return templates.getInstanceOf("loadAddress").add("label", addIfMissingConst(folded));
+            }
+        }
+
+        var methodName = explicitDispatch.method.token.getText();
+        var site = site(explicitDispatch);
+        var countST = countProfile("dispatch " + methodName + " " + site);
+
         // Add the file name
-        var ctx = explicitDispatch.ctx;
-        while (! (ctx.getParent() instanceof CoolParser.ProgramContext))
-            ctx = ctx.getParent();
-        int fileNameIdx = addIfMissingStr(new File(Compiler.fileNames.get(ctx)).getName());
+        var fileName = getFileName();
 
         // Add the parameters
         var paramsST = templates.getInstanceOf("sequence");
@@ -437,7 +861,7 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
             baseType = explicitDispatch.staticType.getTypeSymbol();
         } else {
             baseType = explicitDispatch.obj.getType();
-            if (baseType == SymbolTable.SELF_TYPE) {
+            if (baseType == symbols.SELF_TYPE) {
                 baseType = Utils.findBaseClass(explicitDispatch.method.getScope());
             }
         }
@@ -446,25 +870,37 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
         assert baseType != null;
         FunctionSymbol methodToCall = baseType.lookupMethod(explicitDispatch.method.token.getText());
 
-        return templates.getInstanceOf("dispatch")
+        var dispatchST = templates.getInstanceOf("dispatch")
                 .add("params", paramsST)
                 .add("storeObject", explicitDispatch.obj.accept(this))
-                .add("label", genLabel("dispatch"))
                 .add("methodOffset", methodToCall.getOffset())
-                .add("fileNameIdx", fileNameIdx)
+                .add("fileName", fileName)
                 .add("lineNumber", explicitDispatch.token.getLine())
+                .add("dispatchAbort", routine("_dispatch_abort"))
                 .add("dispTableRef", explicitDispatch.staticType == null
-                        ? "    lw      $t1 8($a0)"
+                        ? templates.getInstanceOf("loadDispTab")
                         : ("    la      $t1 " + explicitDispatch.staticType.token.getText() + "_dispTab"));
+        if (nonVoidReceivers.contains(explicitDispatch)) {
+            dispatchST.add("nonVoid", true);
+        } else {
+            checkVoid(dispatchST, explicitDispatch.token.getLine());
+        }
+        if (explicitDispatch.staticType == null) {
+            dispatchST.add("countReceiver", countReceivers("receiver " + methodName + " " + site))
+                    .add("direct", dynamicCall(methodName, site, baseType, methodToCall.getOffset()));
+        }
+
+        return countST != null ? templates.getInstanceOf("sequence").add("e", countST).add("e", dispatchST) : dispatchST;
     }
 
     @Override
     public ST visit(ImplicitDispatch implicitDispatch) {
+        var methodName = implicitDispatch.method.token.getText();
+        var site = site(implicitDispatch);
+        var countST = countProfile("dispatch " + methodName + " " + site);
+
         // Add the file name
-        var ctx = implicitDispatch.ctx;
-        while (! (ctx.getParent() instanceof CoolParser.ProgramContext))
-            ctx = ctx.getParent();
-        int fileNameIdx = addIfMissingStr(new File(Compiler.fileNames.get(ctx)).getName());
+        var fileName = getFileName();
 
         // Add the parameters
         var paramsST = templates.getInstanceOf("sequence");
@@ -489,24 +925,77 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
         assert baseType != null;
         FunctionSymbol methodToCall = baseType.lookupMethod(implicitDispatch.method.token.getText());
 
-        return templates.getInstanceOf("dispatch")
+        var dispatchST = templates.getInstanceOf("dispatch")
                 .add("params", paramsST)
                 .add("storeObject", "    move    $a0 $s0")
-                .add("label", genLabel("dispatch"))
                 .add("methodOffset", methodToCall.getOffset())
-                .add("fileNameIdx", fileNameIdx)
+                .add("fileName", fileName)
                 .add("lineNumber", implicitDispatch.token.getLine())
-                .add("dispTableRef", "    lw      $t1 8($a0)");
+                .add("dispatchAbort", routine("_dispatch_abort"))
+                .add("dispTableRef", templates.getInstanceOf("loadDispTab"))
+                .add("countReceiver", countReceivers("receiver " + methodName + " " + site))
+                .add("direct", dynamicCall(methodName, site, baseType, methodToCall.getOffset()));
+        // self is never void
+        if (options.elideVoidChecks) {
+            dispatchST.add("nonVoid", true);
+        } else {
+            checkVoid(dispatchST, implicitDispatch.token.getLine());
+        }
+
+        return countST != null ? templates.getInstanceOf("sequence").add("e", countST).add("e", dispatchST) : dispatchST;
     }
 
     @Override
     public ST visit(If if_) {
+        var site = site(if_);
+        var condST = if_.cond.accept(this);
+        var thenST = withCount(countProfile("then " + site), if_.then.accept(this));
+        var elseST = withCount(countProfile("else " + site), if_.else_.accept(this));
+
+        // A branch rarely taken in the profile is moved out of line, so that
+        // the other one runs without jumps
+        if (profile != null) {
+            long thenCnt = profile.count("then", site), elseCnt = profile.count("else", site);
+            long total = thenCnt + elseCnt;
+            if (thenCnt >= 0 && elseCnt >= 0 && total > 0) {
+                if (elseCnt <= CompilerOptions.COLD_BRANCH_MAX_SHARE * total) {
+                    var elseLabel = genLabel(Label.Kind.ELSE);
+                    var endIfLabel = genLabel(Label.Kind.END_IF);
+                    coldCode.add(templates.getInstanceOf("coldBlock")
+                            .add("label", elseLabel).add("e", elseST).add("endLabel", endIfLabel));
+
+                    return templates.getInstanceOf("ifColdElse")
+                            .add("cond", condST)
+                            .add("thenBranch", thenST)
+                            .add("elseLabel", elseLabel)
+                            .add("endIfLabel", endIfLabel);
+                }
+                if (thenCnt <= CompilerOptions.COLD_BRANCH_MAX_SHARE * total) {
+                    var thenLabel = genLabel(Label.Kind.THEN);
+                    var endIfLabel = genLabel(Label.Kind.END_IF);
+                    coldCode.add(templates.getInstanceOf("coldBlock")
+                            .add("label", thenLabel).add("e", thenST).add("endLabel", endIfLabel));
+
+                    return templates.getInstanceOf("ifColdThen")
+                            .add("cond", condST)
+                            .add("elseBranch", elseST)
+                            .add("thenLabel", thenLabel)
+                            .add("endIfLabel", endIfLabel);
+                }
+            }
+        }
+
         return templates.getInstanceOf("if_")
-                .add("cond", if_.cond.accept(this))
-                .add("thenBranch", if_.then.accept(this))
-                .add("elseBranch", if_.else_.accept(this))
-                .add("elseLabel", genLabel("else"))
-                .add("endIfLabel", genLabel("endIf"));
+                .add("cond", condST)
+                .add("thenBranch", thenST)
+                .add("elseBranch", elseST)
+                .add("elseLabel", genLabel(Label.Kind.ELSE))
+                .add("endIfLabel", genLabel(Label.Kind.END_IF));
+    }
+
+    // The code preceded by the counter, if any
+    private ST withCount(ST countST, ST e) {
+        return countST == null ? e : templates.getInstanceOf("sequence").add("e", countST).add("e", e);
     }
 
     @Override
@@ -514,8 +1003,8 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
         return templates.getInstanceOf("while")
                 .add("cond", while_.cond.accept(this))
                 .add("e", while_.body.accept(this))
-                .add("loopStartLabel", genLabel("loopStart"))
-                .add("whileEndLabel", genLabel("whileEnd"));
+                .add("loopStartLabel", genLabel(Label.Kind.LOOP_START))
+                .add("whileEndLabel", genLabel(Label.Kind.WHILE_END));
     }
 
     @Override
@@ -533,45 +1022,82 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
     @Override
     public ST visit(Case case_) {
         // Add the file name
-        var ctx = case_.ctx;
-        while (! (ctx.getParent() instanceof CoolParser.ProgramContext))
-            ctx = ctx.getParent();
-        int fileNameIdx = addIfMissingStr(new File(Compiler.fileNames.get(ctx)).getName());
+        var fileName = getFileName();
 
         // Set local endCase label
-        String localEndCaseLabel = genLabel("endCase");
+        Label localEndCaseLabel = genLabel(Label.Kind.END_CASE);
 
         // Form the case template
         var caseST = templates.getInstanceOf("case")
                 .add("e", case_.expr.accept(this))
                 .add("caseVarOffset", case_.branches.get(0).name.getSymbol().getOffset())
-                .add("caseLabel", genLabel("case"))
+                .add("caseLabel", genLabel(Label.Kind.CASE))
                 .add("endCaseLabel", localEndCaseLabel)
-                .add("fileNameIdx", fileNameIdx)
-                .add("lineNumber", case_.token.getLine());
+                .add("fileName", fileName)
+                .add("lineNumber", case_.token.getLine())
+                .add("caseAbort", routine("_case_abort"))
+                .add("caseAbort2", routine("_case_abort2"));
 
         // Sort the branches by the class tag
         List<CaseBranch> branches = new ArrayList<>(case_.branches);
         branches = branches.stream().sorted((br1, br2) -> Integer.compare(br2.name.getSymbol().getType().getTag(), br1.name.getSymbol().getType().getTag())).toList();
 
+        var site = site(case_);
+        if (profile != null) {
+            branches = orderByProfile(branches, site);
+        }
+
         // Iterate through the branches
         var branchesST = templates.getInstanceOf("sequence");
         for (var branch : branches) {
             currEndCaseLabel = localEndCaseLabel;
+            currCaseSite = site;
             branchesST.add("e", branch.accept(this));
         }
 
         return caseST.add("branches", branchesST);
     }
 
+    // The branches sorted by tag, reordered so that the ones taken most
+    // often in the profile are tested first; a branch is still tested after
+    // those of its subclasses, which would otherwise never be taken. Branches
+    // the profile has no counter for count as never taken and keep their
+    // order by tag.
+    private List<CaseBranch> orderByProfile(List<CaseBranch> branches, String site) {
+        List<CaseBranch> remaining = new ArrayList<>(branches);
+        List<CaseBranch> ordered = new ArrayList<>();
+        while (!remaining.isEmpty()) {
+            CaseBranch best = null;
+            long bestCnt = Long.MIN_VALUE;
+            for (var branch : remaining) {
+                var type = branch.name.getSymbol().getType();
+                boolean hasSubclass = remaining.stream().anyMatch(other -> other != branch
+                        && other.name.getSymbol().getType().getTag() > type.getTag()
+                        && other.name.getSymbol().getType().getTag() <= type.getMaxTag());
+                long cnt = Math.max(profile.count("branch", type.getName() + " " + site), 0);
+                if (!hasSubclass && cnt > bestCnt) {
+                    best = branch;
+                    bestCnt = cnt;
+                }
+            }
+
+            remaining.remove(best);
+            ordered.add(best);
+        }
+
+        return ordered;
+    }
+
     @Override
     public ST visit(CaseBranch caseBranch) {
+        var type = caseBranch.name.getSymbol().getType();
+        var countST = countProfile("branch " + type.getName() + " " + currCaseSite);
         return templates.getInstanceOf("caseBranch")
                 .add("endCaseLabel", currEndCaseLabel)
-                .add("tag", caseBranch.name.getSymbol().getType().getTag())
-                .add("maxTag", caseBranch.name.getSymbol().getType().getMaxTag())
-                .add("e", caseBranch.body.accept(this))
-                .add("caseBranchLabel", genLabel("caseBranch"));
+                .add("tag", type.getTag())
+                .add("maxTag", type.getMaxTag())
+                .add("e", withCount(countST, caseBranch.body.accept(this)))
+                .add("caseBranchLabel", genLabel(Label.Kind.CASE_BRANCH));
     }
 
     @Override
@@ -603,11 +1129,9 @@ public class CodeGenVisitor implements ASTVisitor<ST> {
         String value = string.token.getText();
 
         // Add it to the data section (strConst)
-        int idx = addIfMissingStr(value);
+        var constant = addIfMissingStr(value);
 
-        return templates.getInstanceOf("literal")
-                .add("type", "str")
-                .add("value", idx);
+        return templates.getInstanceOf("loadAddress").add("label", constant);
     }
 
     @Override
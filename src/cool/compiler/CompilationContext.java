@@ -0,0 +1,37 @@
+package cool.compiler;
+
+import cool.profiler.Profile;
+import cool.structures.SymbolTable;
+import org.antlr.v4.runtime.tree.ParseTreeProperty;
+
+import java.io.PrintStream;
+
+/**
+ * The state of one compilation: its options, the files the classes come
+ * from, the symbol table and the streams the program and the errors are
+ * written to. Every pass of the compiler is given the context of the
+ * compilation it works for, so several compilations can run in the same
+ * JVM, and the worker threads of one need nothing set up to share it.
+ */
+public class CompilationContext {
+    public final CompilerOptions options;
+
+    // Annotates class nodes with the names of files where they are defined.
+    public final ParseTreeProperty<String> fileNames = new ParseTreeProperty<>();
+
+    // Holds the basic classes, defined anew for every compilation
+    public final SymbolTable symbolTable;
+
+    // Counters of an earlier run of the program, read from -profile-use
+    public Profile profile = null;
+
+    public final PrintStream out;
+    public final PrintStream err;
+
+    public CompilationContext(CompilerOptions options, PrintStream out, PrintStream err) {
+        this.options = options;
+        this.out = out;
+        this.err = err;
+        symbolTable = new SymbolTable(fileNames, err);
+    }
+}
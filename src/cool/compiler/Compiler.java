@@ -5,18 +5,63 @@ import org.antlr.v4.runtime.tree.*;
 
 import cool.lexer.*;
 import cool.parser.*;
-import cool.structures.SymbolTable;
+import cool.peephole.PeepholeOptimizer;
+import cool.profiler.Profile;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
 
 
 public class Compiler {
-    // Annotates class nodes with the names of files where they are defined.
-    public static ParseTreeProperty<String> fileNames = new ParseTreeProperty<>();
-
     public static void main(String[] args) throws IOException {
-        if (args.length == 0) {
-            System.err.println("No file(s) given");
+        CompilerOptions options;
+        try {
+            options = CompilerOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+
+        var context = new CompilationContext(options, System.out, System.err);
+        compile(context);
+    }
+
+    // Compiles the files given in the context's options, writing the program
+    // and the errors to the context's streams
+    public static void compile(CompilationContext context) throws IOException {
+        var options = context.options;
+        if (options.fileNames.isEmpty()) {
+            context.err.println("No file(s) given");
+            return;
+        }
+
+        if (options.profileUse != null) {
+            try {
+                context.profile = Profile.read(Path.of(options.profileUse));
+            } catch (IOException e) {
+                context.err.println("Cannot read the profile " + options.profileUse);
+                return;
+            } catch (IllegalArgumentException e) {
+                context.err.println(options.profileUse + ": " + e.getMessage());
+                return;
+            }
+        }
+
+        // The inputs are modules written by an earlier -modules= run
+        if (options.link) {
+            String output;
+            try {
+                output = Linker.link(context, options.fileNames);
+            } catch (IllegalArgumentException e) {
+                context.err.println(e.getMessage());
+                context.err.println("Linking halted");
+                return;
+            }
+
+            context.out.println(optimizeOutput(context, output));
             return;
         }
         
@@ -30,7 +75,7 @@ public class Compiler {
         
         // Parse each input file and build one big parse tree out of
         // individual parse trees.
-        for (var fileName : args) {
+        for (var fileName : options.fileNames) {
             var input = CharStreams.fromFileName(fileName);
             
             // Lexer
@@ -53,8 +98,8 @@ public class Compiler {
                 var text = token.getText();
                 var name = CoolLexer.VOCABULARY.getSymbolicName(token.getType());
                 
-                System.out.println(text + " : " + name);
-                //System.out.println(token);
+                context.out.println(text + " : " + name);
+                //context.out.println(token);
             });
             */
             
@@ -84,7 +129,7 @@ public class Compiler {
                     else
                         newMsg += "Syntax error: " + msg;
                     
-                    System.err.println(newMsg);
+                    context.err.println(newMsg);
                     errors = true;
                 }
             };
@@ -108,7 +153,7 @@ public class Compiler {
                 // The only ParserRuleContext children of the program node
                 // are class nodes.
                 if (child instanceof ParserRuleContext)
-                    fileNames.put(child, fileName);
+                    context.fileNames.put(child, fileName);
             }
             
             // Record any lexical or syntax errors.
@@ -117,40 +162,85 @@ public class Compiler {
 
         // Stop before semantic analysis phase, in case errors occurred.
         if (lexicalSyntaxErrors) {
-            System.err.println("Compilation halted");
+            context.err.println("Compilation halted");
             return;
         }
 
         // Construct the AST
-        ASTConstructionVisitor astConstructionVisitor = new ASTConstructionVisitor();
+        ASTConstructionVisitor astConstructionVisitor = new ASTConstructionVisitor(context);
         ASTNode ast = astConstructionVisitor.visit(globalTree);
 
         // Print the AST
         // ASTPrintVisitor astPrintVisitor = new ASTPrintVisitor();
         // ast.accept(astPrintVisitor);
         
-        // Populate global scope.
-        SymbolTable.defineBasicClasses();
-
         // Make three passes through the AST: class definition, definition and resolution
-        var definitionPassVisitor = new DefinitionPassVisitor();
+        var definitionPassVisitor = new DefinitionPassVisitor(context.symbolTable);
         ast.accept(definitionPassVisitor);
 
-        var resolutionPassVisitor = new ResolutionPassVisitor();
+        var resolutionPassVisitor = new ResolutionPassVisitor(context);
         ast.accept(resolutionPassVisitor);
         
-        if (SymbolTable.hasSemanticErrors()) {
-            System.err.println("Compilation halted");
+        if (context.symbolTable.hasSemanticErrors()) {
+            context.err.println("Compilation halted");
             return;
         }
 
         // Calculate the offsets for code generation
-        var offsetCalculatorVisitor = new OffsetCalculatorVisitor();
+        var offsetCalculatorVisitor = new OffsetCalculatorVisitor(context);
         ast.accept(offsetCalculatorVisitor);
 
+        // Write a module per source file, leaving the files that did not
+        // change untouched
+        if (options.moduleDir != null) {
+            Files.createDirectories(Path.of(options.moduleDir));
+            Set<String> moduleNames = new HashSet<>();
+            for (int fileId = 0; fileId < options.fileNames.size(); ++fileId) {
+                // Files with the same name in different directories
+                var moduleName = moduleName(options.fileNames.get(fileId));
+                if (!moduleNames.add(moduleName)) {
+                    moduleName += "_" + fileId;
+                }
+                var module = new CodeGenVisitor(context).visitModule((Program) ast, fileId, moduleName);
+
+                var modulePath = Path.of(options.moduleDir, moduleName + ".s");
+                if (!Files.exists(modulePath) || !Files.readString(modulePath).equals(module)) {
+                    Files.writeString(modulePath, module);
+                }
+            }
+            return;
+        }
+
         // Generate the code
-        var codeGenVisitor = new CodeGenVisitor();
+        var codeGenVisitor = new CodeGenVisitor(context);
         var t = ast.accept(codeGenVisitor);
-        System.out.println(t.render());
+
+        context.out.println(optimizeOutput(context, t.render()));
+    }
+
+    // Clean up the template output
+    private static String optimizeOutput(CompilationContext context, String output) {
+        var options = context.options;
+        if (options.peephole) {
+            var peepholeOptimizer = new PeepholeOptimizer();
+            output = peepholeOptimizer.optimize(output);
+
+            if (options.peepholeStats) {
+                for (var entry : peepholeOptimizer.getHits().entrySet())
+                    context.err.println("peephole " + entry.getKey() + ": " + entry.getValue());
+            }
+        }
+
+        return output;
+    }
+
+    // The source file name without its extension, made into a valid label
+    private static String moduleName(String fileName) {
+        var name = new File(fileName).getName();
+        if (name.endsWith(".cl")) {
+            name = name.substring(0, name.length() - ".cl".length());
+        }
+
+        return "_" + name.replaceAll("[^A-Za-z0-9_]", "_");
     }
 }
@@ -0,0 +1,258 @@
+package cool.compiler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Command line options of the compiler. Arguments starting with '-' are
+ * options, everything else is a source file.
+ */
+public class CompilerOptions {
+    // Range of the preallocated boxed Int table, disabled when intCacheLow > intCacheHigh
+    int intCacheLow = 0;
+    int intCacheHigh = -1;
+
+    // Largest table -int-cache=<low>..<high> may ask for, in entries
+    static final int INT_CACHE_MAX_SIZE = 65536;
+
+    // Run the peephole optimizer on the emitted assembly, optionally
+    // reporting how often each rule fired
+    boolean peephole = false;
+    boolean peepholeStats = false;
+
+    // Generate method bodies through the three-address IR instead of the
+    // templates, optionally printing the IR to stderr
+    boolean ir = false;
+    boolean dumpIr = false;
+
+    // Optimize the IR in SSA form before emitting it
+    boolean optimize = false;
+
+    // Evaluate length, concat and substr on string literals at compile time
+    boolean foldStrings = false;
+
+    // Have the runtime represent concatenated strings as ropes, flattened
+    // when their characters are needed
+    boolean ropes = false;
+
+    // Have the runtime collect the output of out_string and out_int in a
+    // buffer, written on newlines, when full, before input and when the
+    // program stops
+    boolean bufferedIo = false;
+
+    // Read standard input in large blocks and serve in_string and in_int
+    // from memory
+    boolean bulkInput = false;
+
+    static final int INPUT_BUFFER_SIZE = 65536;
+
+    // Count method entries, dispatches and allocations per site, writing
+    // the counters to profileFile() when the program stops
+    boolean profile = false;
+
+    // Counters written by a program compiled with -profile, used to lay out
+    // branches and cases and to devirtualize dispatches
+    String profileUse = null;
+
+    // Dispatches that ran at least this many times, nearly always on
+    // receivers of one class, call that class's method directly after
+    // checking the receiver's tag
+    static final long DEVIRTUALIZE_MIN_CALLS = 16;
+    static final double DEVIRTUALIZE_MIN_SHARE = 0.9;
+
+    // A branch of an if taken at most this share of the times is moved out
+    // of line, after the code of the method
+    static final double COLD_BRANCH_MAX_SHARE = 0.1;
+
+    // Give every dynamic dispatch a cache of the class of its last receiver
+    // and the method it called, checked before the dispatch table
+    boolean inlineCaches = false;
+
+    // Leave out the void check of the dispatches whose receiver is known not
+    // to be void, and share the abort call of the others within a method
+    boolean elideVoidChecks = false;
+
+    // Keep the tag and size of objects in one word, with the tag in the low
+    // half, and find their dispatch table through class_objTab. Int and Bool
+    // objects take 8 bytes instead of 16. The runtime finds out which
+    // layout the program uses from _compact_headers
+    boolean compactHeaders = false;
+
+    // Write one module per source file into this directory instead of a
+    // program to stdout
+    String moduleDir = null;
+
+    // Link the modules given as files into a program
+    boolean link = false;
+
+    // Threads used to check and generate the classes; 1 keeps everything
+    // on the main thread
+    int threads = 1;
+
+    List<String> fileNames = new ArrayList<>();
+
+    public static CompilerOptions parse(String[] args) {
+        var options = new CompilerOptions();
+
+        for (var arg : args) {
+            if (!arg.startsWith("-")) {
+                options.fileNames.add(arg);
+                continue;
+            }
+
+            if (arg.equals("-int-cache")) {
+                options.intCacheLow = -128;
+                options.intCacheHigh = 1023;
+            } else if (arg.startsWith("-int-cache=")) {
+                // Format: -int-cache=<low>..<high>
+                var bounds = arg.substring("-int-cache=".length()).split("\\.\\.");
+                try {
+                    options.intCacheLow = Integer.parseInt(bounds[0]);
+                    options.intCacheHigh = Integer.parseInt(bounds[1]);
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    throw new IllegalArgumentException("Invalid Int cache range " + arg);
+                }
+                if (options.intCacheLow > options.intCacheHigh) {
+                    throw new IllegalArgumentException("Empty Int cache range " + arg);
+                }
+                if ((long) options.intCacheHigh - options.intCacheLow + 1 > INT_CACHE_MAX_SIZE) {
+                    throw new IllegalArgumentException(
+                            "Int cache range " + arg + " has more than " + INT_CACHE_MAX_SIZE + " entries");
+                }
+            } else if (arg.equals("-peephole")) {
+                options.peephole = true;
+            } else if (arg.equals("-peephole-stats")) {
+                options.peephole = true;
+                options.peepholeStats = true;
+            } else if (arg.equals("-ropes")) {
+                options.ropes = true;
+            } else if (arg.equals("-buffered-io")) {
+                options.bufferedIo = true;
+            } else if (arg.equals("-profile")) {
+                options.profile = true;
+            } else if (arg.startsWith("-profile-use=")) {
+                options.profileUse = arg.substring("-profile-use=".length());
+            } else if (arg.equals("-inline-caches")) {
+                options.inlineCaches = true;
+            } else if (arg.equals("-elide-void-checks")) {
+                options.elideVoidChecks = true;
+            } else if (arg.equals("-compact-headers")) {
+                options.compactHeaders = true;
+            } else if (arg.equals("-bulk-input")) {
+                options.bulkInput = true;
+            } else if (arg.startsWith("-modules=")) {
+                options.moduleDir = arg.substring("-modules=".length());
+            } else if (arg.equals("-link")) {
+                options.link = true;
+            } else if (arg.equals("-j")) {
+                options.threads = Runtime.getRuntime().availableProcessors();
+            } else if (arg.startsWith("-j")) {
+                // Format: -j<threads>
+                try {
+                    options.threads = Integer.parseInt(arg.substring("-j".length()));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid thread count " + arg);
+                }
+                if (options.threads < 1) {
+                    throw new IllegalArgumentException("Invalid thread count " + arg);
+                }
+            } else if (arg.equals("-ir")) {
+                options.ir = true;
+            } else if (arg.equals("-fold-strings")) {
+                options.foldStrings = true;
+            } else if (arg.equals("-O")) {
+                options.ir = true;
+                options.optimize = true;
+                options.foldStrings = true;
+            } else if (arg.equals("-dump-ir")) {
+                options.ir = true;
+                options.dumpIr = true;
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        // The counters are emitted by the templates, in one table per program
+        if (options.profile && options.ir) {
+            throw new IllegalArgumentException("-profile cannot be used with -ir or -O");
+        }
+        if (options.profile && (options.moduleDir != null || options.link)) {
+            throw new IllegalArgumentException("-profile cannot be used with separate compilation");
+        }
+        if (options.inlineCaches && options.ir) {
+            throw new IllegalArgumentException("-inline-caches cannot be used with -ir or -O");
+        }
+        if (options.elideVoidChecks && options.ir) {
+            throw new IllegalArgumentException("-elide-void-checks cannot be used with -ir or -O");
+        }
+        // The IR backend and the emitted runtime routines assume the usual layout
+        if (options.compactHeaders && options.ir) {
+            throw new IllegalArgumentException("-compact-headers cannot be used with -ir or -O");
+        }
+        if (options.compactHeaders && (options.ropes || options.bulkInput || options.profile)) {
+            throw new IllegalArgumentException("-compact-headers cannot be used with -ropes, -bulk-input or -profile");
+        }
+        if (options.profileUse != null && options.ir) {
+            throw new IllegalArgumentException("-profile-use cannot be used with -ir or -O");
+        }
+        if (options.profileUse != null && (options.moduleDir != null || options.link)) {
+            throw new IllegalArgumentException("-profile-use cannot be used with separate compilation");
+        }
+
+        return options;
+    }
+
+    // Words before the first attribute of an object
+    public int headerWords() {
+        return compactHeaders ? 1 : 3;
+    }
+
+    public boolean intCacheEnabled() {
+        return intCacheLow <= intCacheHigh;
+    }
+
+    // The options that generated code depends on; modules can only be linked
+    // with the options they were compiled with
+    public String linkSignature() {
+        var sb = new StringBuilder();
+        new TreeMap<>(runtimeRoutines()).forEach((label, routine) -> sb.append(label).append('=').append(routine).append(' '));
+        sb.append("int-cache=").append(intCacheLow).append("..").append(intCacheHigh);
+        if (inlineCaches) {
+            sb.append(" inline-caches");
+        }
+        if (compactHeaders) {
+            sb.append(" compact-headers");
+        }
+
+        return sb.toString();
+    }
+
+    // The file a program compiled with -profile writes its counters to,
+    // named after its first source file
+    public String profileFile() {
+        var fileName = fileNames.get(0);
+        return (fileName.endsWith(".cl") ? fileName.substring(0, fileName.length() - 3) : fileName) + ".profile";
+    }
+
+    // Runtime routines that calls and dispatch tables should use in their
+    // place, by label
+    public Map<String, String> runtimeRoutines() {
+        Map<String, String> routines = new HashMap<>();
+        if (bulkInput) {
+            routines.put("IO.in_string", "_io_read_string");
+            routines.put("IO.in_int", "_io_read_int");
+        }
+        if (profile) {
+            // The profile is written before aborting
+            routines.put("Object.abort", "_prof_abort");
+            routines.put("_dispatch_abort", "_prof_dispatch_abort");
+            routines.put("_case_abort", "_prof_case_abort");
+            routines.put("_case_abort2", "_prof_case_abort2");
+        }
+
+        return routines;
+    }
+}
@@ -0,0 +1,161 @@
+package cool.compiler;
+
+import org.stringtemplate.v4.ST;
+import org.stringtemplate.v4.STGroup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Int and String constants of a program. Constants are numbered as they
+ * are added, but only turned into data by emitInts and emitStrings, once all
+ * the code referencing them has been generated. A pool can be shared by the
+ * code generators of several compilation units linked into one program.
+ */
+public class ConstantPool {
+    // Int constants in the order they were added
+    private int[] ints = new int[64];
+    private int intCnt = 0;
+
+    // Open addressing hash table of positions in ints, plus one; 0 marks an
+    // empty slot. Kept at most half full.
+    private int[] intSlots = new int[128];
+
+    // String constants, indexed by their str_const number
+    private final List<String> strs = new ArrayList<>();
+    private final Map<String, Integer> strIndices = new HashMap<>();
+
+    // Prefix of the labels of the strings of a module, which are named after
+    // the module until it is linked
+    String labelPrefix = "";
+
+    // Number of each string in the program's pool, set when the pool of a
+    // class generated separately is merged; null while the pool numbers its
+    // strings itself
+    int[] programIndices;
+
+    // Labels of modules defined together with a string, by its index
+    private final Map<Integer, List<String>> aliases = new HashMap<>();
+
+    private static int hash(int n) {
+        // Spread consecutive values over the table
+        int h = n * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // The hash the runtime keeps in String objects, computed over the
+    // characters as 31 * h + c. 0 marks a hash not computed yet, so the
+    // lowest bit of a computed one is always set
+    static int stringHash(String str) {
+        int h = 0;
+        for (int i = 0; i < str.length(); ++i) {
+            h = 31 * h + (str.charAt(i) & 0xff);
+        }
+
+        return h | 1;
+    }
+
+    // Returns false if the constant was already in the pool
+    public boolean addInt(int n) {
+        int mask = intSlots.length - 1;
+        int slot = hash(n) & mask;
+        for (; intSlots[slot] != 0; slot = (slot + 1) & mask) {
+            if (ints[intSlots[slot] - 1] == n) {
+                return false;
+            }
+        }
+
+        if (intCnt == ints.length) {
+            ints = Arrays.copyOf(ints, 2 * ints.length);
+        }
+        ints[intCnt++] = n;
+        intSlots[slot] = intCnt;
+
+        if (2 * intCnt > intSlots.length) {
+            rehash(2 * intSlots.length);
+        }
+
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        intSlots = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < intCnt; ++i) {
+            int slot = hash(ints[i]) & mask;
+            while (intSlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            intSlots[slot] = i + 1;
+        }
+    }
+
+    // Index of the str_const holding the string; its length is added as an
+    // Int constant
+    public int addString(String str) {
+        var idx = strIndices.get(str);
+        if (idx != null) {
+            return idx;
+        }
+
+        addInt(str.length());
+        strs.add(str);
+        strIndices.put(str, strs.size() - 1);
+
+        return strs.size() - 1;
+    }
+
+    public StringConstant ref(int idx) {
+        return new StringConstant(this, idx);
+    }
+
+    String label(int idx) {
+        return labelPrefix + "str_const" + (programIndices == null ? idx : programIndices[idx]);
+    }
+
+    // Names the string with a label of a module as well
+    public void addAlias(int idx, String label) {
+        aliases.computeIfAbsent(idx, i -> new ArrayList<>()).add(label);
+    }
+
+    public int[] getInts() {
+        return Arrays.copyOf(ints, intCnt);
+    }
+
+    public List<String> getStrings() {
+        return strs;
+    }
+
+    public ST emitInts(STGroup templates) {
+        var intConstsST = templates.getInstanceOf("sequence");
+        for (int i = 0; i < intCnt; ++i) {
+            intConstsST.add("e", templates.getInstanceOf("intConst").add("n", ints[i]));
+        }
+
+        return intConstsST;
+    }
+
+    public ST emitStrings(STGroup templates, int headerWords) {
+        var strConstsST = templates.getInstanceOf("sequence");
+        for (int idx = 0; idx < strs.size(); ++idx) {
+            var str = strs.get(idx);
+
+            // Size = header + 2 <int, hash> + (len + 1) / 4 <string len + terminator, divided by a word length of 4>
+            // Optimization: len + 1 + 3, a hack for getting the ceil() of the division above
+            int size = headerWords + 2 + (str.length() + 4) / 4;
+
+            strConstsST.add("e", templates.getInstanceOf("strConst")
+                    .add("idx", idx)
+                    .add("aliases", aliases.get(idx))
+                    .add("size", size)
+                    .add("intIdx", str.length())
+                    .add("hash", stringHash(str))
+                    .add("str", str));
+        }
+
+        return strConstsST;
+    }
+}
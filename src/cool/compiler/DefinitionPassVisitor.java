@@ -8,12 +8,20 @@ import java.util.Map;
 import java.util.Objects;
 
 public class DefinitionPassVisitor implements ASTVisitor<Void> {
-    Scope currentScope = SymbolTable.globals;
+    // Symbols of the compilation this visitor runs in
+    final SymbolTable symbols;
+
+    Scope currentScope;
     Map<String, ArrayList<TypeSymbol>> unresolvedParents = new HashMap<>();
 
+    public DefinitionPassVisitor(SymbolTable symbols) {
+        this.symbols = symbols;
+        currentScope = symbols.globals;
+    }
+
     @Override
     public Void visit(Program program) {
-        currentScope = SymbolTable.globals;
+        currentScope = symbols.globals;
 
         for (var cls : program.classes) {
             cls.accept(this);
@@ -27,7 +35,7 @@ public class DefinitionPassVisitor implements ASTVisitor<Void> {
         var name = class_.name;
         var parentName = class_.parent;
 
-        var typeSymbol = new TypeSymbol(name.token.getText(), SymbolTable.OBJECT);
+        var typeSymbol = new TypeSymbol(name.token.getText(), symbols.OBJECT);
 
         // Algorithm:
         //
@@ -44,18 +52,18 @@ public class DefinitionPassVisitor implements ASTVisitor<Void> {
         // Error handling
         // Check if the name is illegal
         if (Objects.equals(name.token.getText(), SymbolTable.SELF_TYPE_STR)) {
-            SymbolTable.error(name.ctx, name.token, "Class has illegal name SELF_TYPE");
+            symbols.error(name.ctx, name.token, "Class has illegal name SELF_TYPE");
             return null;
         }
 
         // Check if the class has already been defined
-        if (SymbolTable.globals.lookup(name.token.getText()) != null) {
-            SymbolTable.error(name.ctx, name.token, "Class " + name.token.getText() + " is redefined");
+        if (symbols.globals.lookup(name.token.getText()) != null) {
+            symbols.error(name.ctx, name.token, "Class " + name.token.getText() + " is redefined");
             return null;
         }
 
         // Add the class to the global namespace
-        SymbolTable.globals.add(typeSymbol);
+        symbols.globals.add(typeSymbol);
 
         // Check if any classes inherit the current one
         if (unresolvedParents.containsKey(name.token.getText())) {
@@ -71,14 +79,14 @@ public class DefinitionPassVisitor implements ASTVisitor<Void> {
             // Check if the parent is an illegal type
             switch (parentName.token.getText()) {
                 case SymbolTable.STRING_STR , SymbolTable.INT_STR, SymbolTable.BOOL_STR, SymbolTable.SELF_TYPE_STR -> {
-                    SymbolTable.error(parentName.ctx, parentName.token, "Class " + name.token.getText() + " has illegal parent " + parentName.token.getText());
+                    symbols.error(parentName.ctx, parentName.token, "Class " + name.token.getText() + " has illegal parent " + parentName.token.getText());
                     return null;
                 }
             }
 
             // If the parent class has been defined, use it as parent
-            if (SymbolTable.globals.lookup(parentName.token.getText()) != null) {
-                typeSymbol.setParent((TypeSymbol) SymbolTable.globals.lookup(parentName.token.getText()));
+            if (symbols.globals.lookup(parentName.token.getText()) != null) {
+                typeSymbol.setParent((TypeSymbol) symbols.globals.lookup(parentName.token.getText()));
             } else {
                 if (!unresolvedParents.containsKey(parentName.token.getText())) {
                     unresolvedParents.put(parentName.token.getText(), new ArrayList<>());
@@ -113,12 +121,12 @@ public class DefinitionPassVisitor implements ASTVisitor<Void> {
 
         // Error handling
         if (Objects.equals(name.token.getText(), "self")) {
-            SymbolTable.error(name.ctx, name.token, "Class " + baseClass.getName() + " has attribute with illegal name self");
+            symbols.error(name.ctx, name.token, "Class " + baseClass.getName() + " has attribute with illegal name self");
             return null;
         }
 
         if (!currentScope.add(idSymbol)) {
-            SymbolTable.error(name.ctx, name.token, "Class " + baseClass.getName() + " redefines attribute " + name.token.getText());
+            symbols.error(name.ctx, name.token, "Class " + baseClass.getName() + " redefines attribute " + name.token.getText());
             return null;
         }
 
@@ -142,7 +150,7 @@ public class DefinitionPassVisitor implements ASTVisitor<Void> {
 
         // Error handling
         if (!currentScope.add(functionSymbol)) {
-            SymbolTable.error(name.ctx, name.token, "Class " + baseClass.getName() + " redefines method " + name.token.getText());
+            symbols.error(name.ctx, name.token, "Class " + baseClass.getName() + " redefines method " + name.token.getText());
             return null;
         }
 
@@ -179,19 +187,19 @@ public class DefinitionPassVisitor implements ASTVisitor<Void> {
         // Error handling
         // Check if the formal is called 'self'
         if (name.token.getText().equals("self")) {
-            SymbolTable.error(name.ctx, name.token, "Method " + baseMethod.getName() + " of class " + baseClass.getName() + " has formal parameter with illegal name self");
+            symbols.error(name.ctx, name.token, "Method " + baseMethod.getName() + " of class " + baseClass.getName() + " has formal parameter with illegal name self");
             return null;
         }
 
         // Check if the formal is redefined
         if (!currentScope.add(idSymbol)) {
-            SymbolTable.error(name.ctx, name.token, "Method " + baseMethod.getName() + " of class " + baseClass.getName() + " redefines formal parameter " + name.token.getText());
+            symbols.error(name.ctx, name.token, "Method " + baseMethod.getName() + " of class " + baseClass.getName() + " redefines formal parameter " + name.token.getText());
             return null;
         }
 
         // Check if the type is SELF_TYPE
         if (type.token.getText().equals(SymbolTable.SELF_TYPE_STR)) {
-            SymbolTable.error(type.ctx, type.token, "Method " + baseMethod.getName() + " of class " + baseClass.getName() + " has formal parameter " + name.token.getText() + " with illegal type SELF_TYPE");
+            symbols.error(type.ctx, type.token, "Method " + baseMethod.getName() + " of class " + baseClass.getName() + " has formal parameter " + name.token.getText() + " with illegal type SELF_TYPE");
             return null;
         }
 
@@ -210,7 +218,7 @@ public class DefinitionPassVisitor implements ASTVisitor<Void> {
         // Error handling
         // Check if the local attribute is called 'self'
         if (name.token.getText().equals("self")) {
-            SymbolTable.error(name.ctx, name.token, "Let variable has illegal name self");
+            symbols.error(name.ctx, name.token, "Let variable has illegal name self");
             return null;
         }
 
@@ -333,13 +341,13 @@ public class DefinitionPassVisitor implements ASTVisitor<Void> {
         // Error handling
         // Check if the case attribute is called 'self'
         if (name.token.getText().equals("self")) {
-            SymbolTable.error(name.ctx, name.token, "Case variable has illegal name self");
+            symbols.error(name.ctx, name.token, "Case variable has illegal name self");
             return null;
         }
 
         // Check if the type is SELF_TYPE
         if (type.token.getText().equals(SymbolTable.SELF_TYPE_STR)) {
-            SymbolTable.error(type.ctx, type.token, "Case variable " + name.token.getText() + " has illegal type SELF_TYPE");
+            symbols.error(type.ctx, type.token, "Case variable " + name.token.getText() + " has illegal type SELF_TYPE");
             return null;
         }
 
@@ -0,0 +1,494 @@
+package cool.compiler;
+
+import cool.ir.*;
+import cool.structures.*;
+
+import java.util.*;
+
+/**
+ * Lowers method bodies and attribute initializers to the three-address IR.
+ * Runs after OffsetCalculatorVisitor; constants are pooled through the
+ * CodeGenVisitor that owns the data section.
+ *
+ * Expressions are evaluated in the same order as the template backend, so
+ * that both backends can be compared on the same programs.
+ */
+public class IrLoweringVisitor implements ASTVisitor<Value> {
+    // Symbols of the compilation this visitor runs in
+    final SymbolTable symbols;
+
+    final CodeGenVisitor codeGen;
+
+    IrMethod method;
+    BasicBlock current;
+
+    // Temps holding locals, formals and case variables
+    Map<IdSymbol, Temp> variables = new HashMap<>();
+
+    List<TypeSymbol> classes = new ArrayList<>();
+
+    public IrLoweringVisitor(CodeGenVisitor codeGen) {
+        this.codeGen = codeGen;
+        this.symbols = codeGen.symbols;
+    }
+
+    public IrMethod lowerMethod(Method method_) {
+        var className = ((TypeSymbol) method_.name.getScope().getParent()).getName();
+        int paramCount = method_.params == null ? 0 : method_.params.size();
+
+        method = new IrMethod(className, method_.name.getSymbol().getName(), paramCount);
+        current = method.getEntry();
+        variables.clear();
+
+        for (int i = 0; i < paramCount; ++i) {
+            var formal = method_.params.get(i);
+            var temp = method.newTemp(IrType.REF, formal.name.token.getText());
+            emit(new Instr.LoadParam(temp, i, formal.type.token.getText()));
+            variables.put(formal.name.getSymbol(), temp);
+        }
+
+        emit(new Instr.Return(method_.body.accept(this)));
+        method.computePredecessors();
+
+        return method;
+    }
+
+    public IrMethod lowerInit(Class class_) {
+        TypeSymbol symbol = class_.name.getTypeSymbol();
+
+        method = new IrMethod(symbol.getName(), null, 0);
+        current = method.getEntry();
+        variables.clear();
+
+        var parentName = ((TypeSymbol) symbol.getParent()).getName();
+        emit(new Instr.Call(null, Instr.Call.Kind.DIRECT, parentName + "_init", null, 0,
+                method.getSelf(), List.of()));
+
+        for (var def : class_.definitions) {
+            def.accept(this);
+        }
+
+        emit(new Instr.Return(method.getSelf()));
+        method.computePredecessors();
+
+        return method;
+    }
+
+    private void emit(Instr instr) {
+        current.add(instr);
+    }
+
+    private Temp temp(IrType type) {
+        return method.newTemp(type, null);
+    }
+
+    // Loads the value word of an Int or Bool object
+    private Value unbox(Value obj) {
+        var word = temp(IrType.WORD);
+        emit(new Instr.LoadField(word, obj, 12, true));
+        return word;
+    }
+
+    private Value boxInt(Value word) {
+        var obj = temp(IrType.REF);
+        emit(new Instr.BoxInt(obj, word));
+        return obj;
+    }
+
+    private Value boxBool(Value word) {
+        var obj = temp(IrType.REF);
+        emit(new Instr.BoxBool(obj, word));
+        return obj;
+    }
+
+    private Value binOp(Instr.BinOp.Op op, Value left, Value right) {
+        var result = temp(IrType.WORD);
+        emit(new Instr.BinOp(result, op, left, right));
+        return result;
+    }
+
+    private void jump(BasicBlock target) {
+        emit(new Instr.Jump(target));
+    }
+
+    private Value defaultValue(TypeSymbol type) {
+        if (type == symbols.STRING) {
+            return new Address("str_const0");
+        } else if (type == symbols.INT) {
+            return new Address("int_const0");
+        } else if (type == symbols.BOOL) {
+            return new Address("bool_const0");
+        }
+
+        return Const.VOID;
+    }
+
+    // Records the classes of the program, needed to find the calls that
+    // can only reach one method
+    @Override
+    public Value visit(Program program) {
+        for (var class_ : program.classes) {
+            classes.add(class_.name.getTypeSymbol());
+        }
+
+        return null;
+    }
+
+    @Override
+    public Value visit(Class class_) {
+        return null;
+    }
+
+    @Override
+    public Value visit(Attribute attribute) {
+        if (attribute.init != null) {
+            var value = attribute.init.accept(this);
+            emit(new Instr.StoreField(method.getSelf(), attribute.name.getSymbol().getOffset(), value));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Value visit(Method method) {
+        return null;
+    }
+
+    @Override
+    public Value visit(Formal formal) {
+        return null;
+    }
+
+    @Override
+    public Value visit(LocalAttribute localAttribute) {
+        var symbol = localAttribute.name.getSymbol();
+        var value = localAttribute.init != null
+                ? localAttribute.init.accept(this)
+                : defaultValue(symbol.getType());
+
+        var temp = method.newTemp(IrType.REF, localAttribute.name.token.getText());
+        emit(new Instr.Move(temp, value));
+        variables.put(symbol, temp);
+
+        return temp;
+    }
+
+    @Override
+    public Value visit(BinaryOperation binaryOperation) {
+        var left = binaryOperation.left.accept(this);
+        var right = binaryOperation.right.accept(this);
+
+        switch (binaryOperation.token.getText()) {
+            case "+":
+                return boxInt(binOp(Instr.BinOp.Op.ADD, unbox(left), unbox(right)));
+            case "-":
+                return boxInt(binOp(Instr.BinOp.Op.SUB, unbox(left), unbox(right)));
+            case "*":
+                return boxInt(binOp(Instr.BinOp.Op.MUL, unbox(left), unbox(right)));
+            case "/":
+                return boxInt(binOp(Instr.BinOp.Op.DIV, unbox(left), unbox(right)));
+            case "<":
+                return boxBool(binOp(Instr.BinOp.Op.LT, unbox(left), unbox(right)));
+            case "<=":
+                return boxBool(binOp(Instr.BinOp.Op.LE, unbox(left), unbox(right)));
+            case "=": {
+                // Ints and Bools are never void, their values can be compared directly
+                var leftType = binaryOperation.left.getType();
+                if (leftType == binaryOperation.right.getType()
+                        && (leftType == symbols.INT || leftType == symbols.BOOL)) {
+                    return boxBool(binOp(Instr.BinOp.Op.EQ, unbox(left), unbox(right)));
+                }
+
+                var result = temp(IrType.REF);
+                emit(new Instr.EqualityTest(result, left, right));
+                return result;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public Value visit(UnaryOperation unaryOperation) {
+        var operand = unaryOperation.operand.accept(this);
+
+        if (unaryOperation.token.getText().equalsIgnoreCase("isvoid")) {
+            return boxBool(binOp(Instr.BinOp.Op.EQ, operand, Const.VOID));
+        }
+
+        if (unaryOperation.token.getText().equalsIgnoreCase("not")) {
+            return boxBool(binOp(Instr.BinOp.Op.EQ, unbox(operand), Const.ZERO));
+        }
+
+        if (unaryOperation.token.getText().equalsIgnoreCase("~")) {
+            var result = temp(IrType.WORD);
+            emit(new Instr.Neg(result, unbox(operand)));
+            return boxInt(result);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Value visit(Assignment assignment) {
+        var value = assignment.value.accept(this);
+        var symbol = assignment.name.getSymbol();
+
+        var variable = variables.get(symbol);
+        if (variable != null) {
+            emit(new Instr.Move(variable, value));
+        } else {
+            emit(new Instr.StoreField(method.getSelf(), symbol.getOffset(), value));
+        }
+
+        return value;
+    }
+
+    @Override
+    public Value visit(New new_) {
+        var result = temp(IrType.REF);
+        if (new_.type.token.getText().equals("SELF_TYPE")) {
+            emit(new Instr.New(result, method.getSelf()));
+        } else {
+            emit(new Instr.New(result, new_.type.token.getText()));
+        }
+
+        return result;
+    }
+
+    // Arguments are evaluated last to first, like the pushes of the template backend
+    private List<Value> lowerArgs(ArrayList<Expression> params) {
+        if (params == null) {
+            return List.of();
+        }
+
+        Value[] args = new Value[params.size()];
+        for (int i = params.size() - 1; i >= 0; --i) {
+            args[i] = params.get(i).accept(this);
+        }
+
+        return Arrays.asList(args);
+    }
+
+    private Value call(Dispatch dispatch, Value receiver, List<Value> args, Instr.Call.Kind kind, TypeSymbol baseType) {
+        emit(new Instr.NullCheck(Instr.NullCheck.Kind.DISPATCH, receiver,
+                codeGen.getFileName(), dispatch.token.getLine()));
+
+        FunctionSymbol methodToCall = baseType.lookupMethod(dispatch.method.token.getText());
+        var result = temp(IrType.REF);
+
+        // Static dispatch, and dynamic dispatch to a method that no subclass
+        // overrides, always reach the same method; call it directly
+        if (kind == Instr.Call.Kind.STATIC || !isOverridden(baseType, methodToCall.getName())) {
+            var owner = Utils.findBaseClass(methodToCall.getParent());
+            emit(new Instr.Call(result, Instr.Call.Kind.DIRECT, owner.getName() + "." + methodToCall.getName(),
+                    null, methodToCall.getOffset(), receiver, args));
+            return result;
+        }
+
+        emit(new Instr.Call(result, kind, baseType.getName(), methodToCall.getName(),
+                methodToCall.getOffset(), receiver, args));
+
+        return result;
+    }
+
+    private boolean isOverridden(TypeSymbol type, String methodName) {
+        for (var class_ : classes) {
+            if (Utils.getDistanceFromParent(class_, type) > 0
+                    && class_.getMethods().containsKey(methodName)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public Value visit(ExplicitDispatch explicitDispatch) {
+        if (codeGen.options.foldStrings) {
+            var folded = StringFolding.fold(explicitDispatch);
+            if (folded != null) {
+                return new Address(codeGen.addIfMissingConst(folded));
+            }
+        }
+
+        var args = lowerArgs(explicitDispatch.params);
+        var receiver = explicitDispatch.obj.accept(this);
+
+        // Decide what method to call
+        if (explicitDispatch.staticType != null) {
+            return call(explicitDispatch, receiver, args, Instr.Call.Kind.STATIC,
+                    explicitDispatch.staticType.getTypeSymbol());
+        }
+
+        TypeSymbol baseType = explicitDispatch.obj.getType();
+        if (baseType == symbols.SELF_TYPE) {
+            baseType = Utils.findBaseClass(explicitDispatch.method.getScope());
+        }
+
+        return call(explicitDispatch, receiver, args, Instr.Call.Kind.DYNAMIC, baseType);
+    }
+
+    @Override
+    public Value visit(ImplicitDispatch implicitDispatch) {
+        var args = lowerArgs(implicitDispatch.params);
+
+        return call(implicitDispatch, method.getSelf(), args, Instr.Call.Kind.DYNAMIC,
+                Utils.findBaseClass(implicitDispatch.method.getScope()));
+    }
+
+    @Override
+    public Value visit(If if_) {
+        var cond = unbox(if_.cond.accept(this));
+        var thenBlock = method.newBlock();
+        var elseBlock = method.newBlock();
+        var endBlock = method.newBlock();
+        var result = temp(IrType.REF);
+
+        emit(new Instr.Branch(cond, thenBlock, elseBlock));
+
+        current = thenBlock;
+        emit(new Instr.Move(result, if_.then.accept(this)));
+        jump(endBlock);
+
+        current = elseBlock;
+        emit(new Instr.Move(result, if_.else_.accept(this)));
+        jump(endBlock);
+
+        current = endBlock;
+        return result;
+    }
+
+    @Override
+    public Value visit(While while_) {
+        // Rotated loop: the condition is tested once before entering the loop
+        // and then at the bottom of the body, so that every iteration takes
+        // a single branch. The preheader holds code hoisted out of the loop.
+        var preheaderBlock = method.newBlock();
+        var bodyBlock = method.newBlock();
+        var endBlock = method.newBlock();
+
+        emit(new Instr.Branch(unbox(while_.cond.accept(this)), preheaderBlock, endBlock));
+
+        current = preheaderBlock;
+        jump(bodyBlock);
+
+        current = bodyBlock;
+        while_.body.accept(this);
+        emit(new Instr.Branch(unbox(while_.cond.accept(this)), bodyBlock, endBlock));
+
+        current = endBlock;
+        return Const.VOID;
+    }
+
+    @Override
+    public Value visit(Let let) {
+        for (var localDef : let.defs) {
+            localDef.accept(this);
+        }
+
+        return let.body.accept(this);
+    }
+
+    @Override
+    public Value visit(Case case_) {
+        var obj = case_.expr.accept(this);
+        emit(new Instr.NullCheck(Instr.NullCheck.Kind.CASE, obj,
+                codeGen.getFileName(), case_.token.getLine()));
+
+        var tag = temp(IrType.WORD);
+        emit(new Instr.LoadField(tag, obj, 0, true));
+
+        var result = temp(IrType.REF);
+        var endBlock = method.newBlock();
+
+        // Most specific classes have the highest tags, so test them first
+        List<CaseBranch> branches = new ArrayList<>(case_.branches);
+        branches.sort((br1, br2) -> Integer.compare(br2.name.getSymbol().getType().getTag(),
+                br1.name.getSymbol().getType().getTag()));
+
+        for (var branch : branches) {
+            var type = branch.name.getSymbol().getType();
+            var upperCheckBlock = method.newBlock();
+            var bodyBlock = method.newBlock();
+            var nextBlock = method.newBlock();
+
+            // tag < branch tag || branch max tag < tag => next branch
+            emit(new Instr.Branch(binOp(Instr.BinOp.Op.LT, tag, Const.word(type.getTag())), nextBlock, upperCheckBlock));
+            current = upperCheckBlock;
+            emit(new Instr.Branch(binOp(Instr.BinOp.Op.LT, Const.word(type.getMaxTag()), tag), nextBlock, bodyBlock));
+
+            current = bodyBlock;
+            var variable = method.newTemp(IrType.REF, branch.name.token.getText());
+            emit(new Instr.Move(variable, obj));
+            variables.put(branch.name.getSymbol(), variable);
+            emit(new Instr.Move(result, branch.body.accept(this)));
+            jump(endBlock);
+
+            current = nextBlock;
+        }
+
+        emit(new Instr.CaseAbort(obj));
+
+        current = endBlock;
+        return result;
+    }
+
+    @Override
+    public Value visit(CaseBranch caseBranch) {
+        return null;
+    }
+
+    @Override
+    public Value visit(Block block) {
+        Value value = null;
+        for (var e : block.expressions) {
+            value = e.accept(this);
+        }
+
+        return value;
+    }
+
+    @Override
+    public Value visit(Int int_) {
+        int value = Integer.parseInt(int_.token.getText());
+        codeGen.addIfMissingInt(value);
+
+        return new Address("int_const" + value);
+    }
+
+    @Override
+    public Value visit(String_ string) {
+        return new Address(codeGen.addIfMissingStr(string.token.getText()));
+    }
+
+    @Override
+    public Value visit(Bool bool) {
+        return new Address(bool.token.getText().equalsIgnoreCase("true") ? "bool_const1" : "bool_const0");
+    }
+
+    @Override
+    public Value visit(Type type) {
+        return null;
+    }
+
+    @Override
+    public Value visit(Variable variable) {
+        if (variable.token.getText().equals("self")) {
+            return method.getSelf();
+        }
+
+        var symbol = (IdSymbol) variable.getScope().lookup(variable.token.getText());
+
+        // Snapshot the variable, later subexpressions may assign it
+        var result = temp(IrType.REF);
+        var temp = variables.get(symbol);
+        if (temp != null) {
+            emit(new Instr.Move(result, temp));
+        } else {
+            emit(new Instr.LoadField(result, method.getSelf(), symbol.getOffset()));
+        }
+
+        return result;
+    }
+}
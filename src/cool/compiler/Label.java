@@ -0,0 +1,60 @@
+package cool.compiler;
+
+/**
+ * A label generated by the code generator. Only its kind and number, and
+ * the prefix of the module being generated, are kept; the name is formatted
+ * when the template holding it is rendered. The number is relative to the
+ * generator's first label of the kind, fixed once the classes generated
+ * separately are merged.
+ */
+public final class Label {
+    public enum Kind {
+        INT_CACHE_MISS("intCacheMiss"),
+        INT_CACHE_END("intCacheEnd"),
+        EQUAL("equal"),
+        COMPARE("compare"),
+        ISVOID("isvoid"),
+        END_ISVOID("endIsvoid"),
+        NOT("not"),
+        DISPATCH("dispatch"),
+        THEN("then"),
+        ELSE("else"),
+        END_IF("endIf"),
+        LOOP_START("loopStart"),
+        WHILE_END("whileEnd"),
+        CASE("case"),
+        END_CASE("endCase"),
+        CASE_BRANCH("caseBranch"),
+        PROFILE_COUNTER("profCounter"),
+        PROFILE_RECEIVERS("profReceivers"),
+        DEVIRTUALIZED_MISS("devirtMiss"),
+        DEVIRTUALIZED_END("devirtEnd"),
+        VOID_ABORT("voidAbort"),
+        INLINE_CACHE("inlineCache"),
+        INLINE_CACHE_MISS("icMiss"),
+        INLINE_CACHE_CALL("icCall");
+
+        private final String prefix;
+
+        Kind(String prefix) {
+            this.prefix = prefix;
+        }
+    }
+
+    private final String modulePrefix;
+    private final int[] base;
+    private final Kind kind;
+    private final int number;
+
+    Label(String modulePrefix, int[] base, Kind kind, int number) {
+        this.modulePrefix = modulePrefix;
+        this.base = base;
+        this.kind = kind;
+        this.number = number;
+    }
+
+    @Override
+    public String toString() {
+        return modulePrefix + kind.prefix + "_" + (base[kind.ordinal()] + number);
+    }
+}
@@ -0,0 +1,221 @@
+package cool.compiler;
+
+import cool.structures.TypeSymbol;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Separate compilation. A module holds the code of the classes defined in
+ * one source file, after a manifest of comment lines:
+ *
+ *   # module-options <the options that change the code, see linkSignature>
+ *   # hierarchy <checksum of the class layout of the whole program>
+ *   # prefix <prefix of the labels generated for the module>
+ *   # class <name> <tag>
+ *   # int <value>
+ *   # str <escaped value>
+ *
+ * followed by a "# data" and a "# text" section. The strings are numbered
+ * in the order they are listed and the code refers to them as
+ * <prefix>str_const<number>. Linking adds them to one pool shared by all
+ * the modules, defining the labels of the modules together with those of
+ * the pool, builds the class tables and adds the runtime support; the code
+ * of the modules is kept as it is.
+ *
+ * Tags, attribute offsets and dispatch table offsets are those of the whole
+ * program the module was compiled with, so modules compiled against
+ * different class hierarchies are rejected.
+ */
+public class Linker {
+    private static class Module {
+        final String fileName;
+        String options;
+        String hierarchy;
+        String prefix;
+        final Map<Integer, String> classes = new LinkedHashMap<>();
+        final List<Integer> ints = new ArrayList<>();
+        final List<String> strs = new ArrayList<>();
+        final StringBuilder data = new StringBuilder();
+        final StringBuilder text = new StringBuilder();
+
+        Module(String fileName) {
+            this.fileName = fileName;
+        }
+    }
+
+    // Checksum of the tags and layouts of all the classes in the program
+    public static String hierarchySignature(Program program) {
+        var sb = new StringBuilder();
+        for (var cls : program.classes) {
+            var symbol = cls.name.getTypeSymbol();
+            sb.append(symbol.getName()).append(':').append(((TypeSymbol) symbol.getParent()).getName())
+                    .append(':').append(symbol.getTag()).append(':').append(symbol.getMaxTag());
+            for (var attribute : symbol.getAttributes().values()) {
+                sb.append(" a").append(attribute.getName()).append('@').append(attribute.getOffset());
+            }
+            for (var method : symbol.getMethods().values()) {
+                sb.append(" m").append(method.getName()).append('@').append(method.getOffset());
+            }
+            sb.append('\n');
+        }
+
+        var crc = new CRC32();
+        crc.update(sb.toString().getBytes());
+        return Long.toHexString(crc.getValue());
+    }
+
+    public static String formatModule(CompilerOptions options, String hierarchy, String prefix,
+                                      List<TypeSymbol> classes, ConstantPool constants, String data,
+                                      String text) {
+        var sb = new StringBuilder();
+        sb.append("# module-options ").append(options.linkSignature()).append('\n');
+        sb.append("# hierarchy ").append(hierarchy).append('\n');
+        sb.append("# prefix ").append(prefix).append('\n');
+        for (var cls : classes) {
+            sb.append("# class ").append(cls.getName()).append(' ').append(cls.getTag()).append('\n');
+        }
+        for (int n : constants.getInts()) {
+            sb.append("# int ").append(n).append('\n');
+        }
+        for (var str : constants.getStrings()) {
+            sb.append("# str ").append(escape(str)).append('\n');
+        }
+        sb.append("# data\n").append(data).append('\n');
+        sb.append("# text\n").append(text).append('\n');
+
+        return sb.toString();
+    }
+
+    public static String link(CompilationContext context, List<String> fileNames) throws IOException {
+        List<Module> modules = new ArrayList<>();
+        for (var fileName : fileNames) {
+            modules.add(parse(fileName, Files.readString(Path.of(fileName))));
+        }
+
+        // All the modules must agree on the layout of the program
+        TreeMap<Integer, String> classes = new TreeMap<>();
+        for (var module : modules) {
+            if (!module.options.equals(context.options.linkSignature())) {
+                throw new IllegalArgumentException(module.fileName + " was compiled with different options");
+            }
+            if (!module.hierarchy.equals(modules.get(0).hierarchy)) {
+                throw new IllegalArgumentException(module.fileName + " was compiled against a different "
+                        + "class hierarchy than " + modules.get(0).fileName + "; recompile it");
+            }
+            for (var cls : module.classes.entrySet()) {
+                if (classes.put(cls.getKey(), cls.getValue()) != null) {
+                    throw new IllegalArgumentException("Class " + cls.getValue() + " is defined by more than one module");
+                }
+            }
+        }
+        for (int tag = 5; !classes.isEmpty() && tag <= classes.lastKey(); ++tag) {
+            if (!classes.containsKey(tag)) {
+                throw new IllegalArgumentException("No module defines the class with tag " + tag);
+            }
+        }
+
+        var codeGen = new CodeGenVisitor(context);
+        var templates = codeGen.templates;
+        codeGen.beginProgram();
+
+        for (var module : modules) {
+            for (int n : module.ints) {
+                codeGen.addIfMissingInt(n);
+            }
+
+            for (int i = 0; i < module.strs.size(); ++i) {
+                int idx = codeGen.constants.addString(module.strs.get(i));
+                codeGen.constants.addAlias(idx, module.prefix + "str_const" + i);
+            }
+
+            codeGen.classDispTabSection.add("e", module.data.toString());
+            codeGen.textMainSection.add("e", module.text.toString());
+        }
+
+        // The class tables are indexed by tag
+        for (var cls : classes.values()) {
+            codeGen.classNameTabSection.add("e", templates.getInstanceOf("nameTab")
+                    .add("name", codeGen.addIfMissingStr(cls)));
+            codeGen.classObjTabSection.add("e", templates.getInstanceOf("objTab").add("className", cls));
+        }
+
+        return codeGen.endProgram().render();
+    }
+
+    private static Module parse(String fileName, String content) {
+        var module = new Module(fileName);
+        StringBuilder section = null;
+        for (var line : content.split("\n", -1)) {
+            if (section != null && !line.equals("# text")) {
+                section.append(line).append('\n');
+                continue;
+            }
+
+            if (line.equals("# data")) {
+                section = module.data;
+            } else if (line.equals("# text")) {
+                section = module.text;
+            } else if (line.startsWith("# module-options ")) {
+                module.options = line.substring("# module-options ".length());
+            } else if (line.startsWith("# hierarchy ")) {
+                module.hierarchy = line.substring("# hierarchy ".length());
+            } else if (line.startsWith("# prefix ")) {
+                module.prefix = line.substring("# prefix ".length());
+            } else if (line.startsWith("# class ")) {
+                var fields = line.substring("# class ".length()).split(" ");
+                module.classes.put(Integer.parseInt(fields[1]), fields[0]);
+            } else if (line.startsWith("# int ")) {
+                module.ints.add(Integer.parseInt(line.substring("# int ".length())));
+            } else if (line.startsWith("# str ")) {
+                module.strs.add(unescape(line.substring("# str ".length())));
+            } else if (!line.isEmpty()) {
+                throw new IllegalArgumentException(fileName + " is not a module: " + line);
+            }
+        }
+
+        if (module.options == null || module.hierarchy == null || module.prefix == null) {
+            throw new IllegalArgumentException(fileName + " is not a module");
+        }
+
+        return module;
+    }
+
+    private static String escape(String str) {
+        var sb = new StringBuilder();
+        for (char c : str.toCharArray()) {
+            if (c == '\\') {
+                sb.append("\\\\");
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else if (c < ' ' || c > '~') {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static String unescape(String str) {
+        var sb = new StringBuilder();
+        for (int i = 0; i < str.length(); ++i) {
+            char c = str.charAt(i);
+            if (c != '\\') {
+                sb.append(c);
+            } else if (str.charAt(i + 1) == 'u') {
+                sb.append((char) Integer.parseInt(str.substring(i + 2, i + 6), 16));
+                i += 5;
+            } else {
+                sb.append(str.charAt(i + 1) == 'n' ? '\n' : str.charAt(i + 1));
+                ++i;
+            }
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,314 @@
+package cool.compiler;
+
+import cool.structures.IdSymbol;
+import cool.structures.LocalAttributeSymbol;
+import cool.structures.SymbolTable;
+import cool.structures.TypeSymbol;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the dispatches of a class whose receiver cannot be void, so that
+ * they can skip the check. Visiting an expression tells whether its value
+ * is known not to be void: self, new objects, literals and every value of
+ * type Int, String or Bool are not, and neither is a local variable or
+ * formal parameter once it has been dispatched on, matched by a case or
+ * assigned such a value, until it is assigned again. Expressions are
+ * visited in the order the generated code evaluates them.
+ */
+class NonVoidAnalysis implements ASTVisitor<Boolean> {
+    final SymbolTable symbols;
+
+    // Receivers known not to be void
+    private final Set<ExplicitDispatch> receivers = new HashSet<>();
+
+    // Variables known not to be void at the current point
+    private Set<IdSymbol> nonVoid = new HashSet<>();
+
+    // Off while looking for the variables that stay non-void in a loop
+    private boolean recording = true;
+
+    private NonVoidAnalysis(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    static Set<ExplicitDispatch> receivers(SymbolTable symbols, Class class_) {
+        var analysis = new NonVoidAnalysis(symbols);
+        class_.accept(analysis);
+
+        return analysis.receivers;
+    }
+
+    private boolean isBasic(TypeSymbol type) {
+        return type == symbols.INT || type == symbols.STRING || type == symbols.BOOL;
+    }
+
+    // Names used in expressions are resolved through their scope
+    private static IdSymbol symbolOf(Variable variable) {
+        return variable.getScope().lookup(variable.token.getText()) instanceof IdSymbol symbol ? symbol : null;
+    }
+
+    // Locals and formals can only change through assignments in the method
+    // itself; attributes can change in any method called
+    private static boolean isTracked(IdSymbol symbol) {
+        return symbol instanceof LocalAttributeSymbol || (symbol != null && symbol.getFormal());
+    }
+
+    private void set(IdSymbol symbol, boolean isNonVoid) {
+        if (!isTracked(symbol)) {
+            return;
+        }
+
+        if (isNonVoid) {
+            nonVoid.add(symbol);
+        } else {
+            nonVoid.remove(symbol);
+        }
+    }
+
+    // The params are evaluated from the last one
+    private void visitParams(Dispatch dispatch) {
+        if (dispatch.params == null) {
+            return;
+        }
+
+        List<Expression> params = new ArrayList<>(dispatch.params);
+        Collections.reverse(params);
+        for (var param : params) {
+            param.accept(this);
+        }
+    }
+
+    @Override
+    public Boolean visit(Program program) {
+        for (var cls : program.classes) {
+            cls.accept(this);
+        }
+
+        return false;
+    }
+
+    @Override
+    public Boolean visit(Class class_) {
+        for (var def : class_.definitions) {
+            def.accept(this);
+        }
+
+        return false;
+    }
+
+    @Override
+    public Boolean visit(Attribute attribute) {
+        nonVoid = new HashSet<>();
+        if (attribute.init != null) {
+            attribute.init.accept(this);
+        }
+
+        return false;
+    }
+
+    @Override
+    public Boolean visit(Method method) {
+        nonVoid = new HashSet<>();
+        method.body.accept(this);
+
+        return false;
+    }
+
+    @Override
+    public Boolean visit(Formal formal) {
+        return false;
+    }
+
+    @Override
+    public Boolean visit(LocalAttribute localAttribute) {
+        var symbol = localAttribute.name.getSymbol();
+        boolean isNonVoid = localAttribute.init != null
+                ? localAttribute.init.accept(this)
+                : isBasic(symbol.getType());
+        set(symbol, isNonVoid);
+
+        return isNonVoid;
+    }
+
+    @Override
+    public Boolean visit(BinaryOperation binaryOperation) {
+        binaryOperation.left.accept(this);
+        binaryOperation.right.accept(this);
+
+        return true;
+    }
+
+    @Override
+    public Boolean visit(UnaryOperation unaryOperation) {
+        unaryOperation.operand.accept(this);
+
+        return true;
+    }
+
+    @Override
+    public Boolean visit(Assignment assignment) {
+        boolean isNonVoid = assignment.value.accept(this);
+        set(assignment.name.getSymbol(), isNonVoid);
+
+        return isNonVoid;
+    }
+
+    @Override
+    public Boolean visit(New new_) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(ExplicitDispatch explicitDispatch) {
+        visitParams(explicitDispatch);
+        if (explicitDispatch.obj.accept(this) && recording) {
+            receivers.add(explicitDispatch);
+        }
+
+        // The dispatch aborts on void
+        if (explicitDispatch.obj instanceof Variable variable) {
+            set(symbolOf(variable), true);
+        }
+
+        return isBasic(explicitDispatch.getType());
+    }
+
+    @Override
+    public Boolean visit(ImplicitDispatch implicitDispatch) {
+        visitParams(implicitDispatch);
+
+        return isBasic(implicitDispatch.getType());
+    }
+
+    @Override
+    public Boolean visit(If if_) {
+        if_.cond.accept(this);
+
+        var before = nonVoid;
+        nonVoid = new HashSet<>(before);
+        boolean thenNonVoid = if_.then.accept(this);
+        var afterThen = nonVoid;
+
+        nonVoid = new HashSet<>(before);
+        boolean elseNonVoid = if_.else_.accept(this);
+        nonVoid.retainAll(afterThen);
+
+        return thenNonVoid && elseNonVoid;
+    }
+
+    @Override
+    public Boolean visit(While while_) {
+        // The variables known at the start of every iteration, found by
+        // going through the loop until they stop changing
+        var entry = new HashSet<>(nonVoid);
+        boolean wasRecording = recording;
+        recording = false;
+        while (true) {
+            nonVoid = new HashSet<>(entry);
+            while_.cond.accept(this);
+            while_.body.accept(this);
+
+            if (entry.retainAll(nonVoid)) {
+                continue;
+            }
+            break;
+        }
+        recording = wasRecording;
+
+        nonVoid = new HashSet<>(entry);
+        while_.cond.accept(this);
+        var exit = new HashSet<>(nonVoid);
+        while_.body.accept(this);
+        nonVoid = exit;
+
+        return false;
+    }
+
+    @Override
+    public Boolean visit(Let let) {
+        for (var localDef : let.defs) {
+            localDef.accept(this);
+        }
+
+        return let.body.accept(this);
+    }
+
+    @Override
+    public Boolean visit(Case case_) {
+        case_.expr.accept(this);
+
+        // The case aborts on void
+        if (case_.expr instanceof Variable variable) {
+            set(symbolOf(variable), true);
+        }
+
+        var before = nonVoid;
+        Set<IdSymbol> after = null;
+        boolean isNonVoid = true;
+        for (var branch : case_.branches) {
+            nonVoid = new HashSet<>(before);
+            isNonVoid &= branch.accept(this);
+
+            if (after == null) {
+                after = nonVoid;
+            } else {
+                after.retainAll(nonVoid);
+            }
+        }
+        nonVoid = after;
+
+        return isNonVoid;
+    }
+
+    @Override
+    public Boolean visit(CaseBranch caseBranch) {
+        set(caseBranch.name.getSymbol(), true);
+
+        return caseBranch.body.accept(this);
+    }
+
+    @Override
+    public Boolean visit(Block block) {
+        boolean isNonVoid = false;
+        for (var e : block.expressions) {
+            isNonVoid = e.accept(this);
+        }
+
+        return isNonVoid;
+    }
+
+    @Override
+    public Boolean visit(Int int_) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(String_ string) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(Bool bool) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(Type type) {
+        return false;
+    }
+
+    @Override
+    public Boolean visit(Variable variable) {
+        if (variable.token.getText().equals("self")) {
+            return true;
+        }
+
+        var symbol = symbolOf(variable);
+        return nonVoid.contains(symbol) || isBasic(variable.getType());
+    }
+}
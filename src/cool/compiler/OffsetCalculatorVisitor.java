@@ -10,21 +10,30 @@ import java.util.LinkedHashMap;
 import java.util.List;
 
 public class OffsetCalculatorVisitor implements ASTVisitor<Void> {
+    // Symbols of the compilation this visitor runs in
+    final SymbolTable symbols;
+    final int headerWords;
+
     int currClassTag = 4;
     int currLocalsCnt = 0;
 
+    public OffsetCalculatorVisitor(CompilationContext context) {
+        this.symbols = context.symbolTable;
+        this.headerWords = context.options.headerWords();
+    }
+
     public int generateClassTag() {
         return ++currClassTag;
     }
 
     private void calculateOffsetsForClass(TypeSymbol class_) {
         // Get the inheritance chain
-        List<TypeSymbol> inheritanceChain = Utils.getInheritanceChainForType(class_);
+        List<TypeSymbol> inheritanceChain = Utils.getInheritanceChainForType(symbols, class_);
         
         // Iterate through the chain and set the class tags
         int maxTag = 0;
         for (TypeSymbol cls : inheritanceChain) {
-            if (cls.getTag() == 0 && cls != SymbolTable.OBJECT) {
+            if (cls.getTag() == 0 && cls != symbols.OBJECT) {
                 cls.setTag(generateClassTag());
             }
 
@@ -71,11 +80,11 @@ public class OffsetCalculatorVisitor implements ASTVisitor<Void> {
     @Override
     public Void visit(Program program) {
         // Calculate offsets for predefined classes
-        calculateOffsetsForClass(SymbolTable.OBJECT);
-        calculateOffsetsForClass(SymbolTable.IO);
-        calculateOffsetsForClass(SymbolTable.INT);
-        calculateOffsetsForClass(SymbolTable.STRING);
-        calculateOffsetsForClass(SymbolTable.BOOL);
+        calculateOffsetsForClass(symbols.OBJECT);
+        calculateOffsetsForClass(symbols.IO);
+        calculateOffsetsForClass(symbols.INT);
+        calculateOffsetsForClass(symbols.STRING);
+        calculateOffsetsForClass(symbols.BOOL);
 
         for (ASTNode cls : program.classes)
             cls.accept(this);
@@ -92,13 +101,13 @@ public class OffsetCalculatorVisitor implements ASTVisitor<Void> {
         calculateOffsetsForClass(symbol);
 
         // Get the inheritance chain
-        List<TypeSymbol> inheritanceChain = Utils.getInheritanceChainForType(symbol);
+        List<TypeSymbol> inheritanceChain = Utils.getInheritanceChainForType(symbols, symbol);
 
         // Find the attributes
         int attributeCnt = 0;
         for (TypeSymbol cls : inheritanceChain) {
             for (var attribute : cls.getAttributes().values()) {
-                attribute.setOffset(12 + attributeCnt * 4);
+                attribute.setOffset(4 * (headerWords + attributeCnt));
                 ++attributeCnt;
             }
         }
@@ -0,0 +1,115 @@
+package cool.compiler;
+
+import cool.structures.TypeSymbol;
+import org.stringtemplate.v4.ST;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+/**
+ * Generates the classes of a program on separate threads. Every class gets
+ * a generator of its own, with its own constant pool and label numbers.
+ * The classes are then merged in source order: their constants are added to
+ * the program's pool and their labels numbered after those of the classes
+ * before them, so the program is the same whatever the number of threads.
+ * Both are only formatted when the code of the classes is rendered.
+ */
+class ParallelCodeGen {
+    private static class ClassCode {
+        final Class class_;
+        final CodeGenVisitor generator;
+        ST definitions;
+
+        String protObj, dispTab, init, text, coldText;
+
+        ClassCode(CompilationContext context, Class class_) {
+            this.class_ = class_;
+            this.generator = new CodeGenVisitor(context);
+        }
+    }
+
+    static void generate(CodeGenVisitor codeGen, Program program) {
+        var context = codeGen.context;
+        List<ClassCode> classes = new ArrayList<>();
+        for (var cls : program.classes) {
+            classes.add(new ClassCode(context, cls));
+        }
+
+        var pool = new ForkJoinPool(context.options.threads);
+        try {
+            runAll(pool, classes.size(), i -> {
+                var cls = classes.get(i);
+                // Starting from the constants of every program, which keep
+                // their numbers when merged
+                cls.generator.deferClassTables = true;
+                cls.generator.beginProgram();
+                if (cls.generator.irLowering != null) {
+                    program.accept(cls.generator.irLowering);
+                }
+
+                cls.definitions = cls.class_.accept(cls.generator);
+            });
+
+            // The constants and labels in the order one generator would have
+            // created them
+            for (var cls : classes) {
+                TypeSymbol symbol = cls.class_.name.getTypeSymbol();
+                codeGen.addToClassTables(symbol, Utils.getInheritanceChainForType(codeGen.symbols, symbol));
+
+                for (int n : cls.generator.constants.getInts()) {
+                    codeGen.addIfMissingInt(n);
+                }
+                var strs = cls.generator.constants.getStrings();
+                int[] programIndices = new int[strs.size()];
+                for (int i = 0; i < strs.size(); ++i) {
+                    programIndices[i] = codeGen.constants.addString(strs.get(i));
+                }
+                cls.generator.constants.programIndices = programIndices;
+
+                for (int kind = 0; kind < codeGen.labelCnt.length; ++kind) {
+                    cls.generator.labelBase[kind] = codeGen.labelCnt[kind];
+                    codeGen.labelCnt[kind] += cls.generator.labelCnt[kind];
+                }
+                codeGen.profileCounters.addAll(cls.generator.profileCounters);
+                codeGen.receiverTables.addAll(cls.generator.receiverTables);
+                codeGen.inlineCaches.addAll(cls.generator.inlineCaches);
+            }
+
+            runAll(pool, classes.size(), i -> {
+                var cls = classes.get(i);
+                cls.protObj = cls.generator.classProtObjSection.render();
+                cls.dispTab = cls.generator.classDispTabSection.render();
+                cls.init = cls.generator.classInitSection.render();
+                cls.text = cls.definitions.render();
+                cls.coldText = cls.generator.coldTextSection.render();
+            });
+        } finally {
+            pool.shutdown();
+        }
+
+        for (var cls : classes) {
+            codeGen.classProtObjSection.add("e", cls.protObj);
+            codeGen.classDispTabSection.add("e", cls.dispTab);
+            codeGen.classInitSection.add("e", cls.init);
+            codeGen.textMainSection.add("e", cls.text);
+            if (!cls.coldText.isEmpty()) {
+                codeGen.coldTextSection.add("e", cls.coldText);
+            }
+        }
+    }
+
+    private static void runAll(ForkJoinPool pool, int count, IntConsumer task) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            int idx = i;
+            tasks.add(pool.submit(() -> task.accept(idx)));
+        }
+
+        for (var t : tasks) {
+            t.join();
+        }
+    }
+}
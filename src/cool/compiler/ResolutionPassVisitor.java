@@ -1,31 +1,74 @@
 package cool.compiler;
 
 import cool.structures.*;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
+    // The compilation this visitor runs in
+    final CompilationContext context;
+    final SymbolTable symbols;
+
+    // Collects the errors of a class checked on a worker thread, reported
+    // later in source order; null while errors are printed as they are found
+    private final List<String> errors;
+
     TypeSymbol currentClass = null;
 
+    public ResolutionPassVisitor(CompilationContext context) {
+        this(context, null);
+    }
+
+    private ResolutionPassVisitor(CompilationContext context, List<String> errors) {
+        this.context = context;
+        this.symbols = context.symbolTable;
+        this.errors = errors;
+    }
+
+    private void error(ParserRuleContext ctx, Token info, String str) {
+        if (errors != null) {
+            errors.add(symbols.errorMessage(ctx, info, str));
+        } else {
+            symbols.error(ctx, info, str);
+        }
+    }
+
     @Override
     public TypeSymbol visit(Program program) {
         // Check if a class 'Main' with the function 'main()' exists
-        TypeSymbol mainClass = (TypeSymbol)SymbolTable.globals.lookup("Main");
+        TypeSymbol mainClass = (TypeSymbol)symbols.globals.lookup("Main");
         if (mainClass == null) {
             // No program context because of a missing file name in ProgramContext, no idea why
-            SymbolTable.error("No method main in class Main");
+            symbols.error("No method main in class Main");
             return null;
         }
 
         FunctionSymbol mainFn = mainClass.lookupMethod("main");
         if (mainFn == null) {
-            SymbolTable.error("No method main in class Main");
+            symbols.error("No method main in class Main");
             return null;
         }
 
         // Check if the main() method has any formals
         if (mainFn.getFormals() != null && mainFn.getFormals().size() > 0) {
-            SymbolTable.error("No method main in class Main");
+            symbols.error("No method main in class Main");
+            return null;
+        }
+
+        // Every class sees the declarations of the classes after it, as
+        // when they are checked in parallel
+        for (var cls : program.classes) {
+            declareTypes(cls);
+        }
+
+        if (context.options.threads > 1) {
+            checkInParallel(program);
             return null;
         }
 
@@ -37,6 +80,75 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
         return null;
     }
 
+    // Once the types of all the declarations are set, the classes only read
+    // the class table and each other's declarations, so they are checked on
+    // separate threads. Each class collects its errors, which are reported
+    // in source order.
+    private void checkInParallel(Program program) {
+        var pool = new ForkJoinPool(context.options.threads);
+        try {
+            List<List<String>> classErrorLists = new ArrayList<>();
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (var cls : program.classes) {
+                List<String> classErrors = new ArrayList<>();
+                classErrorLists.add(classErrors);
+                tasks.add(pool.submit(() -> cls.accept(new ResolutionPassVisitor(context, classErrors))));
+            }
+
+            for (int i = 0; i < tasks.size(); ++i) {
+                try {
+                    tasks.get(i).join();
+                } finally {
+                    symbols.reportErrors(classErrorLists.get(i));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Sets the types the visit of the class would set on its attributes,
+    // methods and formals, without reporting the errors
+    private void declareTypes(Class class_) {
+        var symbol = class_.name.getTypeSymbol();
+        if (symbol == null || class_.definitions == null) {
+            return;
+        }
+        if (class_.parent != null && symbols.globals.lookup(class_.parent.token.getText()) == null) {
+            return;
+        }
+        if (Utils.checkInheritanceLoop(symbol)) {
+            return;
+        }
+
+        for (var def : class_.definitions) {
+            if (def instanceof Attribute attribute) {
+                var name = attribute.name;
+                var type = (TypeSymbol) symbols.globals.lookup(attribute.type.token.getText());
+                if (name.getSymbol() != null && type != null
+                        && name.getScope().getParent().lookup(name.token.getText()) == null) {
+                    name.getSymbol().setType(type);
+                }
+            } else if (def instanceof Method method) {
+                var name = method.name;
+                var type = (TypeSymbol) symbols.globals.lookup(method.type.token.getText());
+                if (name.getSymbol() == null || type == null) {
+                    continue;
+                }
+
+                name.getSymbol().setType(type);
+                if (method.params != null) {
+                    for (var formal : method.params) {
+                        var formalType = (TypeSymbol) symbols.globals.lookup(formal.type.token.getText());
+                        if (formal.name.getSymbol() != null && formalType != null) {
+                            formal.name.getSymbol().setType(formalType);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public TypeSymbol visit(Class class_) {
         var name = class_.name;
@@ -51,15 +163,15 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
 
         // Check if the parent exists in the global namespace
         if (class_.parent != null) {
-            if (SymbolTable.globals.lookup(parent.token.getText()) == null) {
-                SymbolTable.error(parent.ctx, parent.token, "Class " + name.token.getText() + " has undefined parent " + parent.token.getText());
+            if (symbols.globals.lookup(parent.token.getText()) == null) {
+                error(parent.ctx, parent.token, "Class " + name.token.getText() + " has undefined parent " + parent.token.getText());
                 return null;
             }
         }
 
         // Check if there is an inheritance loop
         if (Utils.checkInheritanceLoop(name.getTypeSymbol())) {
-            SymbolTable.error(name.ctx, name.token, "Inheritance cycle for class " + name.token.getText());
+            error(name.ctx, name.token, "Inheritance cycle for class " + name.token.getText());
             return null;
         }
 
@@ -87,14 +199,14 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
         // Error handling
         // Check if a parent class has already declared the attribute
         if (name.getScope().getParent().lookup(name.token.getText()) != null) {
-            SymbolTable.error(name.ctx, name.token, "Class " + baseClass.getName() + " redefines inherited attribute " + name.token.getText());
+            error(name.ctx, name.token, "Class " + baseClass.getName() + " redefines inherited attribute " + name.token.getText());
             return null;
         }
 
         // Check if the type exists in the namespace
-        TypeSymbol typeSymbol = (TypeSymbol)SymbolTable.globals.lookup(type.token.getText());
+        TypeSymbol typeSymbol = (TypeSymbol)symbols.globals.lookup(type.token.getText());
         if (typeSymbol == null) {
-            SymbolTable.error(type.ctx, type.token, "Class " + baseClass.getName() + " has attribute " + name.token.getText() + " with undefined type " + type.token.getText());
+            error(type.ctx, type.token, "Class " + baseClass.getName() + " has attribute " + name.token.getText() + " with undefined type " + type.token.getText());
             return null;
         }
 
@@ -107,8 +219,8 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
                 return null;
             }
 
-            if (Utils.getDistanceFromParent_checkSelfType(currentClass, initType, typeSymbol) < 0) {
-                SymbolTable.error(attribute.init.ctx, attribute.init.token, "Type " + initType.getName() + " of initialization expression of attribute " + name.token.getText() + " is incompatible with declared type " + typeSymbol.getName());
+            if (Utils.getDistanceFromParent_checkSelfType(symbols, currentClass, initType, typeSymbol) < 0) {
+                error(attribute.init.ctx, attribute.init.token, "Type " + initType.getName() + " of initialization expression of attribute " + name.token.getText() + " is incompatible with declared type " + typeSymbol.getName());
             }
         }
 
@@ -129,9 +241,9 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
 
         // Error handling
         // Check if the type exists in the namespace
-        TypeSymbol typeSymbol = (TypeSymbol)SymbolTable.globals.lookup(type.token.getText());
+        TypeSymbol typeSymbol = (TypeSymbol)symbols.globals.lookup(type.token.getText());
         if (typeSymbol == null) {
-            SymbolTable.error(type.ctx, type.token, "Class " + baseClass.getName() + " has method " + name.token.getText() + " with undefined return type " + type.token.getText());
+            error(type.ctx, type.token, "Class " + baseClass.getName() + " has method " + name.token.getText() + " with undefined return type " + type.token.getText());
             return null;
         }
 
@@ -150,7 +262,7 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
         if (parentMethod != null) {
             // Check if formals count is different
             if (method.params.size() != parentMethod.getFormals().size()) {
-                SymbolTable.error(name.ctx, name.token, "Class " + baseClass.getName() + " overrides method " + name.token.getText() + " with different number of formal parameters");
+                error(name.ctx, name.token, "Class " + baseClass.getName() + " overrides method " + name.token.getText() + " with different number of formal parameters");
                 return null;
             }
 
@@ -166,14 +278,14 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
                 }
 
                 if (!formal.type.token.getText().equals(parentType.getName())) {
-                    SymbolTable.error(formal.type.ctx, formal.type.token, "Class " + baseClass.getName() + " overrides method " + name.token.getText() + " but changes type of formal parameter " + formal.name.token.getText() + " from " + parentType.getName() + " to " + formal.type.token.getText());
+                    error(formal.type.ctx, formal.type.token, "Class " + baseClass.getName() + " overrides method " + name.token.getText() + " but changes type of formal parameter " + formal.name.token.getText() + " from " + parentType.getName() + " to " + formal.type.token.getText());
                     return null;
                 }
             }
 
             // Check if return type is different
             if (!method.type.token.getText().equals(parentMethod.getType().getName())) {
-                SymbolTable.error(method.type.ctx, method.type.token, "Class " + baseClass.getName() + " overrides method " + name.token.getText() + " but changes return type from " + parentMethod.getType().getName() + " to " + method.type.token.getText());
+                error(method.type.ctx, method.type.token, "Class " + baseClass.getName() + " overrides method " + name.token.getText() + " but changes return type from " + parentMethod.getType().getName() + " to " + method.type.token.getText());
                 return null;
             }
         }
@@ -183,8 +295,8 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
             return null;
         }
 
-        if (Utils.getDistanceFromParent_checkSelfType(currentClass, bodyType, typeSymbol) < 0) {
-            SymbolTable.error(method.body.ctx, method.body.token, "Type " + bodyType.getName() + " of the body of method " + name.token.getText() + " is incompatible with declared return type " + typeSymbol.getName());
+        if (Utils.getDistanceFromParent_checkSelfType(symbols, currentClass, bodyType, typeSymbol) < 0) {
+            error(method.body.ctx, method.body.token, "Type " + bodyType.getName() + " of the body of method " + name.token.getText() + " is incompatible with declared return type " + typeSymbol.getName());
 
         }
 
@@ -206,9 +318,9 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
 
         // Error handling
         // Check if the type exists in the namespace
-        TypeSymbol typeSymbol = (TypeSymbol)SymbolTable.globals.lookup(type.token.getText());
+        TypeSymbol typeSymbol = (TypeSymbol)symbols.globals.lookup(type.token.getText());
         if (typeSymbol == null) {
-            SymbolTable.error(type.ctx, type.token, "Method " + baseMethod.getName() + " of class " + baseClass.getName() + " has formal parameter " + name.token.getText() + " with undefined type " + type.token.getText());
+            error(type.ctx, type.token, "Method " + baseMethod.getName() + " of class " + baseClass.getName() + " has formal parameter " + name.token.getText() + " with undefined type " + type.token.getText());
             return null;
         }
 
@@ -229,9 +341,9 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
 
         // Error handling
         // Check if the type exists in the namespace
-        TypeSymbol typeSymbol = (TypeSymbol)SymbolTable.globals.lookup(type.token.getText());
+        TypeSymbol typeSymbol = (TypeSymbol)symbols.globals.lookup(type.token.getText());
         if (typeSymbol == null) {
-            SymbolTable.error(type.ctx, type.token, "Let variable " + name.token.getText() + " has undefined type " + type.token.getText());
+            error(type.ctx, type.token, "Let variable " + name.token.getText() + " has undefined type " + type.token.getText());
             return null;
         }
 
@@ -243,8 +355,8 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
                 return null;
             }
 
-            if (Utils.getDistanceFromParent_checkSelfType(currentClass, initType, typeSymbol) < 0) {
-                SymbolTable.error(localAttribute.init.ctx, localAttribute.init.token, "Type " + initType.getName() + " of initialization expression of identifier " + name.token.getText() + " is incompatible with declared type " + typeSymbol.getName());
+            if (Utils.getDistanceFromParent_checkSelfType(symbols, currentClass, initType, typeSymbol) < 0) {
+                error(localAttribute.init.ctx, localAttribute.init.token, "Type " + initType.getName() + " of initialization expression of identifier " + name.token.getText() + " is incompatible with declared type " + typeSymbol.getName());
             }
         }
 
@@ -260,21 +372,21 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
         if (binaryOperation.token.getText().equals("=")) {
             // Stop error propagation
             if (leftType == null || rightType == null) {
-                return SymbolTable.BOOL;
+                return symbols.BOOL;
             }
 
             // Check if primitive type and same type
-            if ((leftType == SymbolTable.INT || leftType == SymbolTable.STRING || leftType == SymbolTable.BOOL) && (leftType != rightType)) {
-                SymbolTable.error(binaryOperation.ctx, binaryOperation.token, "Cannot compare " + leftType.getName() + " with " + rightType.getName());
+            if ((leftType == symbols.INT || leftType == symbols.STRING || leftType == symbols.BOOL) && (leftType != rightType)) {
+                error(binaryOperation.ctx, binaryOperation.token, "Cannot compare " + leftType.getName() + " with " + rightType.getName());
             }
 
-            return SymbolTable.BOOL;
+            return symbols.BOOL;
         }
 
         // Change the return type based on the operator
-        TypeSymbol returnType = SymbolTable.INT;
+        TypeSymbol returnType = symbols.INT;
         if (binaryOperation.token.getText().equals("<") || binaryOperation.token.getText().equals("<=")) {
-            returnType = SymbolTable.BOOL;
+            returnType = symbols.BOOL;
         }
 
         // Stop error propagation
@@ -282,12 +394,12 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
             return returnType;
         }
 
-        if (leftType != SymbolTable.INT) {
-            SymbolTable.error(binaryOperation.left.ctx, binaryOperation.left.token, "Operand of " + binaryOperation.token.getText() + " has type " + leftType.getName() + " instead of Int");
+        if (leftType != symbols.INT) {
+            error(binaryOperation.left.ctx, binaryOperation.left.token, "Operand of " + binaryOperation.token.getText() + " has type " + leftType.getName() + " instead of Int");
         }
 
-        if (rightType != SymbolTable.INT) {
-            SymbolTable.error(binaryOperation.right.ctx, binaryOperation.right.token, "Operand of " + binaryOperation.token.getText() + " has type " + rightType.getName() + " instead of Int");
+        if (rightType != symbols.INT) {
+            error(binaryOperation.right.ctx, binaryOperation.right.token, "Operand of " + binaryOperation.token.getText() + " has type " + rightType.getName() + " instead of Int");
         }
 
         return returnType;
@@ -297,7 +409,7 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
     public TypeSymbol visit(UnaryOperation unaryOperation) {
         // If the operator is 'isvoid' return Bool
         if (unaryOperation.token.getText().equalsIgnoreCase("isvoid")) {
-            return SymbolTable.BOOL;
+            return symbols.BOOL;
         }
 
         // Get the operand type
@@ -305,27 +417,27 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
         if (unaryOperation.token.getText().equalsIgnoreCase("not")) {
             // Stop error propagation
             if (operandType == null) {
-                return SymbolTable.BOOL;
+                return symbols.BOOL;
             }
 
             // Check bool type
-            if (operandType != SymbolTable.BOOL) {
-                SymbolTable.error(unaryOperation.operand.ctx, unaryOperation.operand.token, "Operand of not has type " + operandType.getName() + " instead of Bool");
+            if (operandType != symbols.BOOL) {
+                error(unaryOperation.operand.ctx, unaryOperation.operand.token, "Operand of not has type " + operandType.getName() + " instead of Bool");
             }
 
-            return SymbolTable.BOOL;
+            return symbols.BOOL;
         }
 
         // Stop error propagation
         if (operandType == null) {
-            return SymbolTable.INT;
+            return symbols.INT;
         }
 
-        if (operandType != SymbolTable.INT) {
-            SymbolTable.error(unaryOperation.operand.ctx, unaryOperation.operand.token, "Operand of " + unaryOperation.token.getText() + " has type " + operandType.getName() + " instead of Int");
+        if (operandType != symbols.INT) {
+            error(unaryOperation.operand.ctx, unaryOperation.operand.token, "Operand of " + unaryOperation.token.getText() + " has type " + operandType.getName() + " instead of Int");
         }
 
-        return SymbolTable.INT;
+        return symbols.INT;
     }
 
     @Override
@@ -342,13 +454,13 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
 
         // Check if identifier is 'self'
         if (assignment.name.token.getText().equals("self")) {
-            SymbolTable.error(assignment.name.ctx, assignment.name.token, "Cannot assign to self");
+            error(assignment.name.ctx, assignment.name.token, "Cannot assign to self");
             return null;
         }
 
         // Check if varType is a parent of exprType
-        if (Utils.getDistanceFromParent_checkSelfType(currentClass, exprType, varType) < 0) {
-            SymbolTable.error(assignment.value.ctx, assignment.value.token, "Type " + exprType.getName() + " of assigned expression is incompatible with declared type " + varType.getName() + " of identifier " + assignment.name.token.getText());
+        if (Utils.getDistanceFromParent_checkSelfType(symbols, currentClass, exprType, varType) < 0) {
+            error(assignment.value.ctx, assignment.value.token, "Type " + exprType.getName() + " of assigned expression is incompatible with declared type " + varType.getName() + " of identifier " + assignment.name.token.getText());
             return null;
         }
 
@@ -359,9 +471,9 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
     public TypeSymbol visit(New new_) {
         Type type = new_.type;
 
-        TypeSymbol typeSymbol = (TypeSymbol)SymbolTable.globals.lookup(type.token.getText());
+        TypeSymbol typeSymbol = (TypeSymbol)symbols.globals.lookup(type.token.getText());
         if (typeSymbol == null) {
-            SymbolTable.error(type.ctx, type.token, "new is used with undefined type " + type.token.getText());
+            error(type.ctx, type.token, "new is used with undefined type " + type.token.getText());
             return null;
         }
 
@@ -387,20 +499,20 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
             // Error handling
             // Static type should not be SELF_TYPE
             if (staticType.token.getText().equals(SymbolTable.SELF_TYPE_STR)) {
-                SymbolTable.error(staticType.ctx, staticType.token, "Type of static dispatch cannot be SELF_TYPE");
+                error(staticType.ctx, staticType.token, "Type of static dispatch cannot be SELF_TYPE");
                 return null;
             }
 
             // Static type should exist in the namespace
-            staticTypeSymbol = (TypeSymbol) SymbolTable.globals.lookup(staticType.token.getText());
+            staticTypeSymbol = (TypeSymbol) symbols.globals.lookup(staticType.token.getText());
             if (staticTypeSymbol == null) {
-                SymbolTable.error(staticType.ctx, staticType.token, "Type " + staticType.token.getText() + " of static dispatch is undefined");
+                error(staticType.ctx, staticType.token, "Type " + staticType.token.getText() + " of static dispatch is undefined");
                 return null;
             }
 
             // Check if the 'obj' 's class is a child of the static type
-            if (Utils.getDistanceFromParent_checkSelfType(currentClass, objType, staticTypeSymbol) < 0) {
-                SymbolTable.error(staticType.ctx, staticType.token, "Type " + staticType.token.getText() + " of static dispatch is not a superclass of type " + objType.getName());
+            if (Utils.getDistanceFromParent_checkSelfType(symbols, currentClass, objType, staticTypeSymbol) < 0) {
+                error(staticType.ctx, staticType.token, "Type " + staticType.token.getText() + " of static dispatch is not a superclass of type " + objType.getName());
                 return null;
             }
 
@@ -411,7 +523,7 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
             baseClass = objType;
 
             // Check for SELF_TYPE
-            if (objType == SymbolTable.SELF_TYPE) {
+            if (objType == symbols.SELF_TYPE) {
                 baseClass = Utils.findBaseClass(methodName.getScope());
             }
         }
@@ -419,14 +531,14 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
         // Check if the method exists in the current scope
         FunctionSymbol methodFn = baseClass.lookupMethod(methodName.token.getText());
         if (methodFn == null) {
-            SymbolTable.error(methodName.ctx, methodName.token, "Undefined method " + methodName.token.getText() + " in class " + baseClass.getName());
+            error(methodName.ctx, methodName.token, "Undefined method " + methodName.token.getText() + " in class " + baseClass.getName());
             return null;
         }
 
         // Check param count
         int paramCount = (explicitDispatch.params == null) ? 0 : explicitDispatch.params.size();
         if (methodFn.getFormals().size() != paramCount) {
-            SymbolTable.error(methodName.ctx, methodName.token, "Method " + methodName.token.getText() + " of class " + baseClass.getName() + " is applied to wrong number of arguments");
+            error(methodName.ctx, methodName.token, "Method " + methodName.token.getText() + " of class " + baseClass.getName() + " is applied to wrong number of arguments");
             return null;
         }
 
@@ -441,13 +553,13 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
                 // type in the global namespace, if it exists, and THEN I'm doing the comparison. Normally, the type of the formal
                 // should be retrievable from the symbol, however, the formal param types are resolved during this pass, meaning
                 // some formal params might not yet have a resolved type, due to forward referencing
-                TypeSymbol formalParamType = (TypeSymbol) SymbolTable.globals.lookup(((IdSymbol)formalParam).getTypeStr());
+                TypeSymbol formalParamType = (TypeSymbol) symbols.globals.lookup(((IdSymbol)formalParam).getTypeStr());
                 if (formalParamType == null) {
                     continue;
                 }
 
-                if (Utils.getDistanceFromParent_checkSelfType(currentClass, paramType, formalParamType) < 0) {
-                    SymbolTable.error(param.ctx, param.token, "In call to method " + methodName.token.getText() + " of class " + baseClass.getName() + ", actual type " + paramType.getName() + " of formal parameter " + formalParam.getName() + " is incompatible with declared type " + formalParamType.getName());
+                if (Utils.getDistanceFromParent_checkSelfType(symbols, currentClass, paramType, formalParamType) < 0) {
+                    error(param.ctx, param.token, "In call to method " + methodName.token.getText() + " of class " + baseClass.getName() + ", actual type " + paramType.getName() + " of formal parameter " + formalParam.getName() + " is incompatible with declared type " + formalParamType.getName());
                 }
             }
         }
@@ -458,7 +570,7 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
         if (methodFn.getTypeStr().equals(SymbolTable.SELF_TYPE_STR)) {
             returnType = objType;
         } else {
-            returnType = (TypeSymbol) SymbolTable.globals.lookup(methodFn.getTypeStr());
+            returnType = (TypeSymbol) symbols.globals.lookup(methodFn.getTypeStr());
         }
 
         return returnType;
@@ -477,14 +589,14 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
         // Check if the method exists in the current scope
         FunctionSymbol methodFn = baseClass.lookupMethod(methodName.token.getText());
         if (methodFn == null) {
-            SymbolTable.error(methodName.ctx, methodName.token, "Undefined method " + methodName.token.getText() + " in class " + baseClass.getName());
+            error(methodName.ctx, methodName.token, "Undefined method " + methodName.token.getText() + " in class " + baseClass.getName());
             return null;
         }
 
         // Check param count
         int paramCount = (implicitDispatch.params == null) ? 0 : implicitDispatch.params.size();
         if (methodFn.getFormals().size() != paramCount) {
-            SymbolTable.error(methodName.ctx, methodName.token, "Method " + methodName.token.getText() + " of class " + baseClass.getName() + " is applied to wrong number of arguments");
+            error(methodName.ctx, methodName.token, "Method " + methodName.token.getText() + " of class " + baseClass.getName() + " is applied to wrong number of arguments");
             return null;
         }
 
@@ -494,13 +606,13 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
                 // Get the types
                 Expression param = paramsIt.next();
                 TypeSymbol paramType = param.accept(this);
-                TypeSymbol formalParamType = (TypeSymbol) SymbolTable.globals.lookup(((IdSymbol)formalParam).getTypeStr());
+                TypeSymbol formalParamType = (TypeSymbol) symbols.globals.lookup(((IdSymbol)formalParam).getTypeStr());
                 if (formalParamType == null) {
                     continue;
                 }
 
-                if (Utils.getDistanceFromParent_checkSelfType(currentClass, paramType, formalParamType) < 0) {
-                    SymbolTable.error(param.ctx, param.token, "In call to method " + methodName.token.getText() + " of class " + baseClass.getName() + ", actual type " + paramType.getName() + " of formal parameter " + formalParam.getName() + " is incompatible with declared type " + formalParamType.getName());
+                if (Utils.getDistanceFromParent_checkSelfType(symbols, currentClass, paramType, formalParamType) < 0) {
+                    error(param.ctx, param.token, "In call to method " + methodName.token.getText() + " of class " + baseClass.getName() + ", actual type " + paramType.getName() + " of formal parameter " + formalParam.getName() + " is incompatible with declared type " + formalParamType.getName());
                 }
             }
         }
@@ -511,34 +623,34 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
 //        if (methodFn.getTypeStr().equals(SymbolTable.SELF_TYPE_STR)) {
 //            returnType = baseClass;
 //        } else {
-//            returnType = (TypeSymbol) SymbolTable.globals.lookup(methodFn.getTypeStr());
+//            returnType = (TypeSymbol) symbols.globals.lookup(methodFn.getTypeStr());
 //        }
 
-        return (TypeSymbol) SymbolTable.globals.lookup(methodFn.getTypeStr());
+        return (TypeSymbol) symbols.globals.lookup(methodFn.getTypeStr());
     }
 
     @Override
     public TypeSymbol visit(If if_) {
         TypeSymbol condType = if_.cond.accept(this);
-        if (condType != SymbolTable.BOOL) {
-            SymbolTable.error(if_.cond.ctx, if_.cond.token, "If condition has type " + condType.getName() + " instead of Bool");
+        if (condType != symbols.BOOL) {
+            error(if_.cond.ctx, if_.cond.token, "If condition has type " + condType.getName() + " instead of Bool");
         }
 
         TypeSymbol thenType = if_.then.accept(this);
         TypeSymbol elseType = if_.else_.accept(this);
 
-        return Utils.lowestCommonAncestor_checkSelfType(currentClass, thenType, elseType);
+        return Utils.lowestCommonAncestor_checkSelfType(symbols, currentClass, thenType, elseType);
     }
 
     @Override
     public TypeSymbol visit(While while_) {
         TypeSymbol condType = while_.cond.accept(this);
-        if (condType != SymbolTable.BOOL) {
-            SymbolTable.error(while_.cond.ctx, while_.cond.token, "While condition has type " + condType.getName() + " instead of Bool");
+        if (condType != symbols.BOOL) {
+            error(while_.cond.ctx, while_.cond.token, "While condition has type " + condType.getName() + " instead of Bool");
         }
 
         while_.body.accept(this);
-        return SymbolTable.OBJECT;
+        return symbols.OBJECT;
     }
 
     @Override
@@ -587,9 +699,9 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
 
         // Error handling
         // Check if the type exists in the namespace
-        TypeSymbol typeSymbol = (TypeSymbol)SymbolTable.globals.lookup(type.token.getText());
+        TypeSymbol typeSymbol = (TypeSymbol)symbols.globals.lookup(type.token.getText());
         if (typeSymbol == null) {
-            SymbolTable.error(type.ctx, type.token, "Case variable " + name.token.getText() + " has undefined type " + type.token.getText());
+            error(type.ctx, type.token, "Case variable " + name.token.getText() + " has undefined type " + type.token.getText());
             return null;
         }
 
@@ -610,17 +722,17 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
 
     @Override
     public TypeSymbol visit(Int int_) {
-        return SymbolTable.INT;
+        return symbols.INT;
     }
 
     @Override
     public TypeSymbol visit(String_ string) {
-        return SymbolTable.STRING;
+        return symbols.STRING;
     }
 
     @Override
     public TypeSymbol visit(Bool bool) {
-        return SymbolTable.BOOL;
+        return symbols.BOOL;
     }
 
     @Override
@@ -632,7 +744,7 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
     public TypeSymbol visit(Variable variable) {
         // If the variable is 'self'
         if (variable.token.getText().equals("self")) {
-            return SymbolTable.SELF_TYPE;
+            return symbols.SELF_TYPE;
         }
 
         // Look for the symbol in the current scope
@@ -641,7 +753,7 @@ public class ResolutionPassVisitor implements ASTVisitor<TypeSymbol> {
         // Error handling
         // Variable is undefined
         if (symbol == null) {
-            SymbolTable.error(variable.ctx, variable.token, "Undefined identifier " + variable.token.getText());
+            error(variable.ctx, variable.token, "Undefined identifier " + variable.token.getText());
             return null;
         }
 
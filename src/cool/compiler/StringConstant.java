@@ -0,0 +1,32 @@
+package cool.compiler;
+
+/**
+ * A String constant referenced by generated code. Like a {@link Label}, only
+ * its pool and its index there are kept; the label is formatted when the
+ * template holding it is rendered, once the pools of the classes generated
+ * separately have been merged into the program's.
+ */
+public final class StringConstant {
+    private final ConstantPool pool;
+    private final int index;
+
+    StringConstant(ConstantPool pool, int index) {
+        this.pool = pool;
+        this.index = index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof StringConstant c && c.pool == pool && c.index == index;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(pool) + index;
+    }
+
+    @Override
+    public String toString() {
+        return pool.label(index);
+    }
+}
@@ -0,0 +1,36 @@
+package cool.compiler;
+
+/**
+ * Evaluates length, concat and substr at compile time when the receiver and
+ * the arguments are literals, or dispatches that fold themselves. String
+ * cannot be inherited from, so these always reach the runtime's methods.
+ */
+class StringFolding {
+    // The String or Integer value of the expression, null if it is not a
+    // constant. A substr that would fail at runtime is left to fail there.
+    static Object fold(Expression expr) {
+        if (expr instanceof String_ string) {
+            return string.token.getText();
+        }
+        if (expr instanceof Int int_) {
+            return Integer.parseInt(int_.token.getText());
+        }
+        if (!(expr instanceof ExplicitDispatch dispatch)
+                || !(fold(dispatch.obj) instanceof String receiver)) {
+            return null;
+        }
+
+        var params = dispatch.params;
+        int paramCount = params == null ? 0 : params.size();
+        return switch (dispatch.method.token.getText()) {
+            case "length" -> paramCount == 0 ? receiver.length() : null;
+            case "concat" -> paramCount == 1 && fold(params.get(0)) instanceof String arg
+                    ? receiver.concat(arg) : null;
+            case "substr" -> paramCount == 2 && fold(params.get(0)) instanceof Integer index
+                    && fold(params.get(1)) instanceof Integer length
+                    && index >= 0 && length >= 0 && (long) index + length <= receiver.length()
+                    ? receiver.substring(index, index + length) : null;
+            default -> null;
+        };
+    }
+}
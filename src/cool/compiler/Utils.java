@@ -7,14 +7,14 @@ import cool.structures.TypeSymbol;
 import java.util.*;
 
 public class Utils {
-    public static List<TypeSymbol> getInheritanceChainForType(TypeSymbol class_) {
+    public static List<TypeSymbol> getInheritanceChainForType(SymbolTable symbols, TypeSymbol class_) {
         // Find the inheritance chain
         List<TypeSymbol> inheritanceChain = new LinkedList<>();
 
         TypeSymbol currClass = class_;
         while (true) {
             inheritanceChain.add(0, currClass);
-            if (currClass == SymbolTable.OBJECT) {
+            if (currClass == symbols.OBJECT) {
                 break;
             }
 
@@ -77,15 +77,15 @@ public class Utils {
         return dist;
     }
 
-    public static int getDistanceFromParent_checkSelfType(TypeSymbol baseClass, TypeSymbol child, TypeSymbol parent) {
-        TypeSymbol newChild = (child == SymbolTable.SELF_TYPE) ? baseClass : child;
-        TypeSymbol newParent = (parent == SymbolTable.SELF_TYPE) ? baseClass : parent;
+    public static int getDistanceFromParent_checkSelfType(SymbolTable symbols, TypeSymbol baseClass, TypeSymbol child, TypeSymbol parent) {
+        TypeSymbol newChild = (child == symbols.SELF_TYPE) ? baseClass : child;
+        TypeSymbol newParent = (parent == symbols.SELF_TYPE) ? baseClass : parent;
 
         if (child == parent) {
             return 0;
         }
 
-        if (parent == SymbolTable.SELF_TYPE) {
+        if (parent == symbols.SELF_TYPE) {
             return -1;
         }
 
@@ -115,11 +115,11 @@ public class Utils {
         return null;
     }
 
-    public static TypeSymbol lowestCommonAncestor_checkSelfType(TypeSymbol baseClass, TypeSymbol a, TypeSymbol b) {
-        if (a == SymbolTable.SELF_TYPE && b == SymbolTable.SELF_TYPE) {
-            return SymbolTable.SELF_TYPE;
+    public static TypeSymbol lowestCommonAncestor_checkSelfType(SymbolTable symbols, TypeSymbol baseClass, TypeSymbol a, TypeSymbol b) {
+        if (a == symbols.SELF_TYPE && b == symbols.SELF_TYPE) {
+            return symbols.SELF_TYPE;
         }
 
-        return lowestCommonAncestor((a == SymbolTable.SELF_TYPE) ? baseClass : a, (b == SymbolTable.SELF_TYPE) ? baseClass : b);
+        return lowestCommonAncestor((a == symbols.SELF_TYPE) ? baseClass : a, (b == symbols.SELF_TYPE) ? baseClass : b);
     }
 }
@@ -0,0 +1,34 @@
+package cool.ir;
+
+/**
+ * The address of a statically allocated object, such as int_const5,
+ * str_const2 or bool_const1.
+ */
+public class Address extends Value {
+    // Formatted as the label when the code is emitted
+    final Object label;
+
+    public Address(Object label) {
+        super(IrType.REF);
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Address a && a.label.equals(label);
+    }
+
+    @Override
+    public int hashCode() {
+        return label.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "@" + label;
+    }
+}
@@ -0,0 +1,75 @@
+package cool.ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A straight-line sequence of instructions ending in a terminator.
+ */
+public class BasicBlock {
+    final int id;
+    final List<Instr> instrs = new ArrayList<>();
+    final List<BasicBlock> preds = new ArrayList<>();
+
+    BasicBlock(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public List<Instr> getInstrs() {
+        return instrs;
+    }
+
+    public void add(Instr instr) {
+        instr.block = this;
+        instrs.add(instr);
+    }
+
+    public void add(int index, Instr instr) {
+        instr.block = this;
+        instrs.add(index, instr);
+    }
+
+    // Phis always come first in a block
+    public List<Instr.Phi> getPhis() {
+        List<Instr.Phi> phis = new ArrayList<>();
+        for (var instr : instrs) {
+            if (!(instr instanceof Instr.Phi phi)) {
+                break;
+            }
+            phis.add(phi);
+        }
+
+        return phis;
+    }
+
+    // Inserts the instruction right before the terminator
+    public void addBeforeTerminator(Instr instr) {
+        add(isTerminated() ? instrs.size() - 1 : instrs.size(), instr);
+    }
+
+    public boolean isTerminated() {
+        return !instrs.isEmpty() && instrs.get(instrs.size() - 1).isTerminator();
+    }
+
+    public Instr.Terminator getTerminator() {
+        return isTerminated() ? (Instr.Terminator) instrs.get(instrs.size() - 1) : null;
+    }
+
+    public List<BasicBlock> getSuccessors() {
+        return isTerminated() ? getTerminator().getSuccessors() : List.of();
+    }
+
+    // Valid after IrMethod.computePredecessors()
+    public List<BasicBlock> getPredecessors() {
+        return preds;
+    }
+
+    @Override
+    public String toString() {
+        return "B" + id;
+    }
+}
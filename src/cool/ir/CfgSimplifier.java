@@ -0,0 +1,63 @@
+package cool.ir;
+
+/**
+ * Cleans up the CFG after optimization: branches to a single target become
+ * jumps, jumps to empty blocks are threaded through, and a block is merged
+ * into its only predecessor when that predecessor jumps straight to it.
+ * Expects a method without phis.
+ */
+public class CfgSimplifier {
+    private CfgSimplifier() {
+    }
+
+    public static void run(IrMethod method) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            method.computePredecessors();
+
+            for (var block : method.getBlocks()) {
+                if (block.getTerminator() instanceof Instr.Branch branch
+                        && branch.getIfTrue() == branch.getIfFalse()) {
+                    block.getInstrs().remove(branch);
+                    block.add(new Instr.Jump(branch.getIfTrue()));
+                    changed = true;
+                }
+            }
+
+            for (var block : method.getBlocks()) {
+                if (block == method.getEntry() || block.getInstrs().size() != 1
+                        || !(block.getTerminator() instanceof Instr.Jump jump) || jump.getTarget() == block) {
+                    continue;
+                }
+
+                for (var pred : block.getPredecessors()) {
+                    pred.getTerminator().replaceSuccessor(block, jump.getTarget());
+                    changed = true;
+                }
+            }
+            if (changed) {
+                continue;
+            }
+
+            for (var block : method.getBlocks()) {
+                if (!(block.getTerminator() instanceof Instr.Jump jump)) {
+                    continue;
+                }
+
+                var target = jump.getTarget();
+                if (target == block || target == method.getEntry() || target.getPredecessors().size() != 1) {
+                    continue;
+                }
+
+                block.getInstrs().remove(jump);
+                for (var instr : target.getInstrs()) {
+                    block.add(instr);
+                }
+                target.getInstrs().clear();
+                changed = true;
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package cool.ir;
+
+/**
+ * An integer constant. A REF constant can only be 0, meaning void.
+ */
+public class Const extends Value {
+    public static final Const VOID = new Const(IrType.REF, 0);
+    public static final Const ZERO = new Const(IrType.WORD, 0);
+    public static final Const ONE = new Const(IrType.WORD, 1);
+
+    final int value;
+
+    private Const(IrType type, int value) {
+        super(type);
+        this.value = value;
+    }
+
+    public static Const word(int value) {
+        return value == 0 ? ZERO : value == 1 ? ONE : new Const(IrType.WORD, value);
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Const c && c.type == type && c.value == value;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * type.hashCode() + value;
+    }
+
+    @Override
+    public String toString() {
+        return type == IrType.REF ? "void" : String.valueOf(value);
+    }
+}
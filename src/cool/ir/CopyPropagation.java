@@ -0,0 +1,61 @@
+package cool.ir;
+
+import java.util.*;
+
+/**
+ * Replaces the uses of copies with their sources on SSA form. Phis whose
+ * operands are all the same value (apart from the phi itself) are copies
+ * as well.
+ */
+public class CopyPropagation {
+    private CopyPropagation() {
+    }
+
+    // Returns true if the method changed
+    public static boolean run(IrMethod method) {
+        Map<Temp, Value> copies = new HashMap<>();
+
+        boolean found = true;
+        while (found) {
+            found = false;
+            for (var block : method.getBlocks()) {
+                var it = block.getInstrs().iterator();
+                while (it.hasNext()) {
+                    var instr = it.next();
+                    Value source = null;
+                    if (instr instanceof Instr.Move move) {
+                        source = move.getSrc();
+                    } else if (instr instanceof Instr.Phi phi) {
+                        source = uniqueOperand(phi);
+                    }
+
+                    if (source != null) {
+                        copies.put(instr.getDst(), source);
+                        it.remove();
+                        found = true;
+                    }
+                }
+            }
+
+            // Resolving the copies may turn more phis into copies
+            method.replaceUses(copies);
+        }
+
+        return !copies.isEmpty();
+    }
+
+    private static Value uniqueOperand(Instr.Phi phi) {
+        Value unique = null;
+        for (var operand : phi.getOperands()) {
+            if (operand == phi.getDst() || operand.equals(unique)) {
+                continue;
+            }
+            if (unique != null) {
+                return null;
+            }
+            unique = operand;
+        }
+
+        return unique;
+    }
+}
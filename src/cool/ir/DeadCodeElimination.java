@@ -0,0 +1,49 @@
+package cool.ir;
+
+import java.util.*;
+
+/**
+ * Removes the instructions whose results are never used, on SSA form.
+ * Instructions with side effects (calls, allocations through 'new', stores,
+ * void checks, divisions and terminators) are always kept; boxing and
+ * unboxing are not, so unused Int and Bool objects are never allocated.
+ */
+public class DeadCodeElimination {
+    private DeadCodeElimination() {
+    }
+
+    // Returns true if the method changed
+    public static boolean run(IrMethod method) {
+        Map<Temp, Instr> defs = new HashMap<>();
+        Set<Instr> live = new HashSet<>();
+        Deque<Instr> worklist = new ArrayDeque<>();
+
+        for (var block : method.getBlocks()) {
+            for (var instr : block.getInstrs()) {
+                if (instr.getDst() != null) {
+                    defs.put(instr.getDst(), instr);
+                }
+                if (instr.hasSideEffects() && live.add(instr)) {
+                    worklist.push(instr);
+                }
+            }
+        }
+
+        while (!worklist.isEmpty()) {
+            var instr = worklist.pop();
+            for (var operand : instr.getOperands()) {
+                var def = operand instanceof Temp temp ? defs.get(temp) : null;
+                if (def != null && live.add(def)) {
+                    worklist.push(def);
+                }
+            }
+        }
+
+        boolean changed = false;
+        for (var block : method.getBlocks()) {
+            changed |= block.getInstrs().retainAll(live);
+        }
+
+        return changed;
+    }
+}
@@ -0,0 +1,140 @@
+package cool.ir;
+
+import java.util.*;
+
+/**
+ * Immediate dominators and dominance frontiers of a method's CFG, computed
+ * with the iterative algorithm of Cooper, Harvey and Kennedy. Expects the
+ * predecessor lists to be up to date.
+ */
+public class DominatorTree {
+    private final List<BasicBlock> reversePostorder = new ArrayList<>();
+    private final Map<BasicBlock, Integer> order = new HashMap<>();
+    private final Map<BasicBlock, BasicBlock> idom = new HashMap<>();
+    private final Map<BasicBlock, List<BasicBlock>> children = new HashMap<>();
+    private final Map<BasicBlock, Set<BasicBlock>> frontiers = new HashMap<>();
+
+    public DominatorTree(IrMethod method) {
+        computeReversePostorder(method.getEntry());
+        for (int i = 0; i < reversePostorder.size(); ++i) {
+            order.put(reversePostorder.get(i), i);
+            children.put(reversePostorder.get(i), new ArrayList<>());
+            frontiers.put(reversePostorder.get(i), new LinkedHashSet<>());
+        }
+
+        computeIdoms(method.getEntry());
+        computeFrontiers();
+    }
+
+    private void computeReversePostorder(BasicBlock entry) {
+        // Iterative DFS, so that long chains of blocks do not overflow the stack
+        Set<BasicBlock> visited = new HashSet<>();
+        Deque<Iterator<BasicBlock>> stack = new ArrayDeque<>();
+        Deque<BasicBlock> path = new ArrayDeque<>();
+
+        visited.add(entry);
+        stack.push(entry.getSuccessors().iterator());
+        path.push(entry);
+        while (!stack.isEmpty()) {
+            var it = stack.peek();
+            if (it.hasNext()) {
+                var succ = it.next();
+                if (visited.add(succ)) {
+                    stack.push(succ.getSuccessors().iterator());
+                    path.push(succ);
+                }
+            } else {
+                stack.pop();
+                reversePostorder.add(path.pop());
+            }
+        }
+        Collections.reverse(reversePostorder);
+    }
+
+    private void computeIdoms(BasicBlock entry) {
+        idom.put(entry, entry);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (var block : reversePostorder) {
+                if (block == entry) {
+                    continue;
+                }
+
+                BasicBlock newIdom = null;
+                for (var pred : block.getPredecessors()) {
+                    if (idom.containsKey(pred)) {
+                        newIdom = newIdom == null ? pred : intersect(pred, newIdom);
+                    }
+                }
+
+                if (newIdom != idom.get(block)) {
+                    idom.put(block, newIdom);
+                    changed = true;
+                }
+            }
+        }
+
+        idom.put(entry, null);
+        for (var block : reversePostorder) {
+            if (idom.get(block) != null) {
+                children.get(idom.get(block)).add(block);
+            }
+        }
+    }
+
+    private BasicBlock intersect(BasicBlock a, BasicBlock b) {
+        while (a != b) {
+            while (order.get(a) > order.get(b)) {
+                a = idom.get(a);
+            }
+            while (order.get(b) > order.get(a)) {
+                b = idom.get(b);
+            }
+        }
+
+        return a;
+    }
+
+    private void computeFrontiers() {
+        for (var block : reversePostorder) {
+            if (block.getPredecessors().size() < 2) {
+                continue;
+            }
+
+            for (var pred : block.getPredecessors()) {
+                var runner = pred;
+                while (runner != null && runner != idom.get(block)) {
+                    frontiers.get(runner).add(block);
+                    runner = idom.get(runner);
+                }
+            }
+        }
+    }
+
+    // Null for the entry block
+    public BasicBlock getIdom(BasicBlock block) {
+        return idom.get(block);
+    }
+
+    public List<BasicBlock> getChildren(BasicBlock block) {
+        return children.get(block);
+    }
+
+    public Set<BasicBlock> getFrontier(BasicBlock block) {
+        return frontiers.get(block);
+    }
+
+    public List<BasicBlock> getReversePostorder() {
+        return reversePostorder;
+    }
+
+    public boolean dominates(BasicBlock a, BasicBlock b) {
+        while (b != null && b != a) {
+            b = idom.get(b);
+        }
+
+        return b == a;
+    }
+}
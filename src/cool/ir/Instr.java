@@ -0,0 +1,563 @@
+package cool.ir;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A three-address instruction. Every instruction defines at most one temp
+ * and reads its operands, which are kept in one array so that passes can
+ * rewrite them uniformly.
+ */
+public abstract class Instr {
+    protected Temp dst;
+    protected Value[] operands;
+
+    BasicBlock block;
+
+    protected Instr(Temp dst, Value... operands) {
+        this.dst = dst;
+        this.operands = operands;
+    }
+
+    public Temp getDst() {
+        return dst;
+    }
+
+    public void setDst(Temp dst) {
+        this.dst = dst;
+    }
+
+    public List<Value> getOperands() {
+        return Arrays.asList(operands);
+    }
+
+    public Value getOperand(int i) {
+        return operands[i];
+    }
+
+    public void setOperand(int i, Value value) {
+        operands[i] = value;
+    }
+
+    public BasicBlock getBlock() {
+        return block;
+    }
+
+    public boolean isTerminator() {
+        return false;
+    }
+
+    // False if the instruction can be removed when its result is unused
+    public boolean hasSideEffects() {
+        return false;
+    }
+
+    protected String operandList() {
+        return Arrays.stream(operands).map(String::valueOf).collect(Collectors.joining(", "));
+    }
+
+    protected String assign() {
+        return dst == null ? "" : dst + " = ";
+    }
+
+    //// Data movement and arithmetic
+
+    public static class Move extends Instr {
+        public Move(Temp dst, Value src) {
+            super(dst, src);
+        }
+
+        public Value getSrc() {
+            return operands[0];
+        }
+
+        @Override
+        public String toString() {
+            return assign() + operands[0];
+        }
+    }
+
+    public static class BinOp extends Instr {
+        // ADDU wraps around on overflow instead of trapping, like MUL
+        public enum Op { ADD, ADDU, SUB, MUL, DIV, LT, LE, EQ }
+
+        final Op op;
+
+        public BinOp(Temp dst, Op op, Value left, Value right) {
+            super(dst, left, right);
+            this.op = op;
+        }
+
+        public Op getOp() {
+            return op;
+        }
+
+        // Division by zero traps
+        @Override
+        public boolean hasSideEffects() {
+            return op == Op.DIV;
+        }
+
+        @Override
+        public String toString() {
+            return assign() + op.name().toLowerCase() + " " + operandList();
+        }
+    }
+
+    public static class Neg extends Instr {
+        public Neg(Temp dst, Value operand) {
+            super(dst, operand);
+        }
+
+        @Override
+        public String toString() {
+            return assign() + "neg " + operands[0];
+        }
+    }
+
+    // Reads the formal parameter with the given index from the caller's pushes.
+    // The declared type tells Int and Bool parameters, which are never void.
+    public static class LoadParam extends Instr {
+        final int index;
+        final String type;
+
+        public LoadParam(Temp dst, int index, String type) {
+            super(dst);
+            this.index = index;
+            this.type = type;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        @Override
+        public String toString() {
+            return assign() + "param " + index;
+        }
+    }
+
+    //// Objects
+
+    // Immutable loads read fields that never change after allocation, such as
+    // class tags and the values of Int and Bool objects
+    public static class LoadField extends Instr {
+        final int offset;
+        final boolean immutable;
+
+        public LoadField(Temp dst, Value obj, int offset) {
+            this(dst, obj, offset, false);
+        }
+
+        public LoadField(Temp dst, Value obj, int offset, boolean immutable) {
+            super(dst, obj);
+            this.offset = offset;
+            this.immutable = immutable;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public boolean isImmutable() {
+            return immutable;
+        }
+
+        @Override
+        public String toString() {
+            return assign() + (immutable ? "load.imm " : "load ") + operands[0] + "[" + offset + "]";
+        }
+    }
+
+    public static class StoreField extends Instr {
+        final int offset;
+
+        public StoreField(Value obj, int offset, Value value) {
+            super(null, obj, value);
+            this.offset = offset;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        @Override
+        public boolean hasSideEffects() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "store " + operands[0] + "[" + offset + "], " + operands[1];
+        }
+    }
+
+    // Aborts with the file name and line number when the object is void
+    public static class NullCheck extends Instr {
+        public enum Kind { DISPATCH, CASE }
+
+        final Kind kind;
+        // Label of the name of the source file
+        final Object fileName;
+        final int line;
+
+        public NullCheck(Kind kind, Value obj, Object fileName, int line) {
+            super(null, obj);
+            this.kind = kind;
+            this.fileName = fileName;
+            this.line = line;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public Object getFileName() {
+            return fileName;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        @Override
+        public boolean hasSideEffects() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "nullcheck." + kind.name().toLowerCase() + " " + operands[0] + " (line " + line + ")";
+        }
+    }
+
+    // Operand 0 is the receiver, the rest are the arguments in source order
+    public static class Call extends Instr {
+        public enum Kind { DYNAMIC, STATIC, DIRECT }
+
+        final Kind kind;
+        final String className;
+        final String methodName;
+        final int methodOffset;
+
+        public Call(Temp dst, Kind kind, String className, String methodName, int methodOffset,
+                    Value receiver, List<Value> args) {
+            super(dst, concat(receiver, args));
+            this.kind = kind;
+            this.className = className;
+            this.methodName = methodName;
+            this.methodOffset = methodOffset;
+        }
+
+        private static Value[] concat(Value receiver, List<Value> args) {
+            Value[] operands = new Value[args.size() + 1];
+            operands[0] = receiver;
+            for (int i = 0; i < args.size(); ++i) {
+                operands[i + 1] = args.get(i);
+            }
+
+            return operands;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        // Static type for DYNAMIC calls, dispatch table class for STATIC
+        // calls, full label for DIRECT calls
+        public String getClassName() {
+            return className;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+
+        public int getMethodOffset() {
+            return methodOffset;
+        }
+
+        public Value getReceiver() {
+            return operands[0];
+        }
+
+        public int getArgCount() {
+            return operands.length - 1;
+        }
+
+        public Value getArg(int i) {
+            return operands[i + 1];
+        }
+
+        @Override
+        public boolean hasSideEffects() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            String target = switch (kind) {
+                case DYNAMIC -> className + "." + methodName;
+                case STATIC -> "@" + className + "." + methodName;
+                case DIRECT -> className;
+            };
+
+            return assign() + "call " + target + "(" + operandList() + ")";
+        }
+    }
+
+    // Allocates and initializes an object of the given class. Without a class
+    // name, the dynamic class of the operand (self) is used.
+    public static class New extends Instr {
+        final String className;
+
+        public New(Temp dst, String className) {
+            super(dst);
+            this.className = className;
+        }
+
+        public New(Temp dst, Value self) {
+            super(dst, self);
+            this.className = null;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        // The class initializer may have arbitrary side effects
+        @Override
+        public boolean hasSideEffects() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return assign() + "new " + (className != null ? className : "SELF_TYPE(" + operands[0] + ")");
+        }
+    }
+
+    public static class BoxInt extends Instr {
+        public BoxInt(Temp dst, Value word) {
+            super(dst, word);
+        }
+
+        @Override
+        public String toString() {
+            return assign() + "box.int " + operands[0];
+        }
+    }
+
+    public static class BoxBool extends Instr {
+        public BoxBool(Temp dst, Value word) {
+            super(dst, word);
+        }
+
+        @Override
+        public String toString() {
+            return assign() + "box.bool " + operands[0];
+        }
+    }
+
+    // The '=' operator: pointer equality, then runtime comparison of the
+    // values of basic objects. Yields a Bool object.
+    public static class EqualityTest extends Instr {
+        public EqualityTest(Temp dst, Value left, Value right) {
+            super(dst, left, right);
+        }
+
+        @Override
+        public String toString() {
+            return assign() + "equal " + operandList();
+        }
+    }
+
+    // SSA merge; operand i flows in from getIncoming(i)
+    public static class Phi extends Instr {
+        List<BasicBlock> incoming;
+
+        public Phi(Temp dst, List<BasicBlock> incoming) {
+            super(dst, new Value[incoming.size()]);
+            this.incoming = new ArrayList<>(incoming);
+        }
+
+        public BasicBlock getIncoming(int i) {
+            return incoming.get(i);
+        }
+
+        public void replaceIncoming(BasicBlock from, BasicBlock to) {
+            incoming.replaceAll(block -> block == from ? to : block);
+        }
+
+        // Drops the operands flowing in from blocks that are not predecessors anymore
+        public void retainIncoming(List<BasicBlock> preds) {
+            List<BasicBlock> newIncoming = new ArrayList<>();
+            List<Value> newOperands = new ArrayList<>();
+            for (int i = 0; i < incoming.size(); ++i) {
+                if (preds.contains(incoming.get(i))) {
+                    newIncoming.add(incoming.get(i));
+                    newOperands.add(operands[i]);
+                }
+            }
+
+            incoming = newIncoming;
+            operands = newOperands.toArray(new Value[0]);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(assign()).append("phi");
+            for (int i = 0; i < operands.length; ++i) {
+                sb.append(i == 0 ? " " : ", ").append("[").append(incoming.get(i)).append(": ")
+                        .append(operands[i]).append("]");
+            }
+
+            return sb.toString();
+        }
+    }
+
+    //// Terminators
+
+    public abstract static class Terminator extends Instr {
+        protected Terminator(Value... operands) {
+            super(null, operands);
+        }
+
+        @Override
+        public boolean isTerminator() {
+            return true;
+        }
+
+        @Override
+        public boolean hasSideEffects() {
+            return true;
+        }
+
+        public abstract List<BasicBlock> getSuccessors();
+
+        public abstract void replaceSuccessor(BasicBlock from, BasicBlock to);
+    }
+
+    public static class Jump extends Terminator {
+        BasicBlock target;
+
+        public Jump(BasicBlock target) {
+            this.target = target;
+        }
+
+        public BasicBlock getTarget() {
+            return target;
+        }
+
+        @Override
+        public List<BasicBlock> getSuccessors() {
+            return List.of(target);
+        }
+
+        @Override
+        public void replaceSuccessor(BasicBlock from, BasicBlock to) {
+            if (target == from) {
+                target = to;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "jump " + target;
+        }
+    }
+
+    // Goes to ifTrue when the condition word is non-zero
+    public static class Branch extends Terminator {
+        BasicBlock ifTrue, ifFalse;
+
+        public Branch(Value cond, BasicBlock ifTrue, BasicBlock ifFalse) {
+            super(cond);
+            this.ifTrue = ifTrue;
+            this.ifFalse = ifFalse;
+        }
+
+        public Value getCond() {
+            return operands[0];
+        }
+
+        public BasicBlock getIfTrue() {
+            return ifTrue;
+        }
+
+        public BasicBlock getIfFalse() {
+            return ifFalse;
+        }
+
+        @Override
+        public List<BasicBlock> getSuccessors() {
+            return List.of(ifTrue, ifFalse);
+        }
+
+        @Override
+        public void replaceSuccessor(BasicBlock from, BasicBlock to) {
+            if (ifTrue == from) {
+                ifTrue = to;
+            }
+            if (ifFalse == from) {
+                ifFalse = to;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "branch " + operands[0] + ", " + ifTrue + ", " + ifFalse;
+        }
+    }
+
+    public static class Return extends Terminator {
+        public Return(Value value) {
+            super(value);
+        }
+
+        public Value getValue() {
+            return operands[0];
+        }
+
+        @Override
+        public List<BasicBlock> getSuccessors() {
+            return List.of();
+        }
+
+        @Override
+        public void replaceSuccessor(BasicBlock from, BasicBlock to) {
+        }
+
+        @Override
+        public String toString() {
+            return "return " + operands[0];
+        }
+    }
+
+    // No case branch matched the object
+    public static class CaseAbort extends Terminator {
+        public CaseAbort(Value obj) {
+            super(obj);
+        }
+
+        @Override
+        public List<BasicBlock> getSuccessors() {
+            return List.of();
+        }
+
+        @Override
+        public void replaceSuccessor(BasicBlock from, BasicBlock to) {
+        }
+
+        @Override
+        public String toString() {
+            return "case.abort " + operands[0];
+        }
+    }
+}
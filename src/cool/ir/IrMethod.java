@@ -0,0 +1,173 @@
+package cool.ir;
+
+import java.util.*;
+
+/**
+ * The control flow graph of one method (or class initializer). The first
+ * block is the entry; self is available in a dedicated temp throughout.
+ */
+public class IrMethod {
+    final String className;
+    final String methodName;
+    final int paramCount;
+
+    final List<Temp> temps = new ArrayList<>();
+    final List<BasicBlock> blocks = new ArrayList<>();
+    final Temp self;
+
+    int nextBlockId = 0;
+
+    public IrMethod(String className, String methodName, int paramCount) {
+        this.className = className;
+        this.methodName = methodName;
+        this.paramCount = paramCount;
+        this.self = newTemp(IrType.REF, "self");
+        newBlock();
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    // Class initializers are named <Class>_init, methods <Class>.<method>
+    public String getLabel() {
+        return methodName == null ? className + "_init" : className + "." + methodName;
+    }
+
+    public boolean isInit() {
+        return methodName == null;
+    }
+
+    public int getParamCount() {
+        return paramCount;
+    }
+
+    public Temp getSelf() {
+        return self;
+    }
+
+    public List<Temp> getTemps() {
+        return temps;
+    }
+
+    public List<BasicBlock> getBlocks() {
+        return blocks;
+    }
+
+    public BasicBlock getEntry() {
+        return blocks.get(0);
+    }
+
+    public Temp newTemp(IrType type, String name) {
+        var temp = new Temp(temps.size(), type, name);
+        temps.add(temp);
+        return temp;
+    }
+
+    public BasicBlock newBlock() {
+        var block = new BasicBlock(nextBlockId++);
+        blocks.add(block);
+        return block;
+    }
+
+    // Creates a block laid out right before the given one, so that it can
+    // fall through into it
+    public BasicBlock newBlockBefore(BasicBlock next) {
+        var block = new BasicBlock(nextBlockId++);
+        blocks.add(blocks.indexOf(next), block);
+        return block;
+    }
+
+    // Drops blocks that cannot be reached from the entry and recomputes the
+    // predecessor lists, along with the incoming edges of phis
+    public void computePredecessors() {
+        Set<BasicBlock> reachable = new LinkedHashSet<>();
+        Deque<BasicBlock> worklist = new ArrayDeque<>();
+        worklist.push(getEntry());
+        while (!worklist.isEmpty()) {
+            var block = worklist.pop();
+            if (reachable.add(block)) {
+                for (var succ : block.getSuccessors()) {
+                    worklist.push(succ);
+                }
+            }
+        }
+        blocks.retainAll(reachable);
+
+        for (var block : blocks) {
+            block.preds.clear();
+        }
+        for (var block : blocks) {
+            for (var succ : block.getSuccessors()) {
+                succ.preds.add(block);
+            }
+        }
+        for (var block : blocks) {
+            for (var phi : block.getPhis()) {
+                phi.retainIncoming(block.preds);
+            }
+        }
+    }
+
+    // Rewrites every use of the keys with their values, following chains of
+    // replacements
+    public void replaceUses(Map<Temp, Value> replacements) {
+        if (replacements.isEmpty()) {
+            return;
+        }
+
+        for (var block : blocks) {
+            for (var instr : block.instrs) {
+                for (int i = 0; i < instr.operands.length; ++i) {
+                    var value = instr.operands[i];
+                    while (value instanceof Temp temp && replacements.containsKey(temp)) {
+                        value = replacements.get(temp);
+                    }
+                    instr.operands[i] = value;
+                }
+            }
+        }
+    }
+
+    // Drops the temps that are neither defined nor used anymore, so that
+    // they do not take up frame slots
+    public void removeUnusedTemps() {
+        Set<Temp> used = new HashSet<>();
+        used.add(self);
+        for (var block : blocks) {
+            for (var instr : block.instrs) {
+                if (instr.dst != null) {
+                    used.add(instr.dst);
+                }
+                for (var operand : instr.operands) {
+                    if (operand instanceof Temp temp) {
+                        used.add(temp);
+                    }
+                }
+            }
+        }
+
+        temps.retainAll(used);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(getLabel()).append(":\n");
+        for (var block : blocks) {
+            sb.append(block).append(":");
+            if (!block.preds.isEmpty()) {
+                sb.append("    ; preds ").append(block.preds);
+            }
+            sb.append("\n");
+            for (var instr : block.instrs) {
+                sb.append("    ").append(instr).append("\n");
+            }
+        }
+
+        return sb.toString();
+    }
+}
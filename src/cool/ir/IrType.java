@@ -0,0 +1,10 @@
+package cool.ir;
+
+/**
+ * Types of IR values: object references (including void) and raw machine
+ * words, such as the unboxed contents of Int and Bool objects.
+ */
+public enum IrType {
+    REF,
+    WORD
+}
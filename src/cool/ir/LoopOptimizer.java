@@ -0,0 +1,581 @@
+package cool.ir;
+
+import java.util.*;
+
+/**
+ * Loop optimizations on SSA form, for the rotated loops produced from
+ * while expressions:
+ *
+ * - Int and Bool phis whose incoming values are all boxes, or parameters
+ *   of those types, get a word phi next to them, so that loop-carried
+ *   values are not unboxed on every iteration; when the phi is only used
+ *   after the loop otherwise, the word is boxed there instead;
+ * - loop-invariant code motion into the preheader: arithmetic that cannot
+ *   trap, or that runs before the loop is left and its output, boxing of invariant values, and attribute loads when the loop neither
+ *   calls, allocates nor stores the attribute;
+ * - strength reduction of multiplications of induction variables by
+ *   constants into additions;
+ * - sinking of boxes only used after the loop to its exit, so that the
+ *   final value is boxed once instead of on every iteration.
+ */
+public class LoopOptimizer {
+    private final IrMethod method;
+    private final Map<Temp, Instr> defs = new HashMap<>();
+    private DominatorTree domTree;
+    private boolean changed;
+
+    private static class Loop {
+        BasicBlock header;
+        BasicBlock preheader;
+        final List<BasicBlock> latches = new ArrayList<>();
+        final Set<BasicBlock> body = new LinkedHashSet<>();
+
+        // The blocks outside the loop entered from it
+        Set<BasicBlock> exits() {
+            Set<BasicBlock> exits = new HashSet<>();
+            for (var block : body) {
+                for (var succ : block.getSuccessors()) {
+                    if (!body.contains(succ)) {
+                        exits.add(succ);
+                    }
+                }
+            }
+
+            return exits;
+        }
+    }
+
+    private LoopOptimizer(IrMethod method) {
+        this.method = method;
+    }
+
+    // Returns true if the method changed
+    public static boolean run(IrMethod method) {
+        var loopOptimizer = new LoopOptimizer(method);
+        loopOptimizer.promoteBoxedPhis();
+        // Drop the boxed phis that are not needed anymore before looking at uses
+        DeadCodeElimination.run(method);
+
+        for (var loop : loopOptimizer.findLoops()) {
+            loopOptimizer.collectDefs();
+            loopOptimizer.hoistInvariants(loop);
+            loopOptimizer.reduceStrength(loop);
+            loopOptimizer.sinkBoxes(loop);
+        }
+
+        return loopOptimizer.changed;
+    }
+
+    private void collectDefs() {
+        defs.clear();
+        for (var block : method.getBlocks()) {
+            for (var instr : block.getInstrs()) {
+                if (instr.getDst() != null) {
+                    defs.put(instr.getDst(), instr);
+                }
+            }
+        }
+    }
+
+    //// Boxed phis
+
+    // The unboxed word of an operand of a promotable phi. Bool boxes and
+    // parameters have their value field loaded right after them; value
+    // numbering replaces the loads it can read back from the box.
+    private Value word(Value value, Map<Instr.Phi, Instr.Phi> wordPhis, Map<Value, Value> loads) {
+        if (value instanceof Address a) {
+            return Const.word(Sccp.literalValue(a));
+        }
+
+        var def = defs.get((Temp) value);
+        if (def instanceof Instr.Phi phi) {
+            return wordPhis.get(phi).getDst();
+        }
+        if (def instanceof Instr.BoxInt) {
+            return def.getOperand(0);
+        }
+
+        return loads.computeIfAbsent(value, v -> {
+            var word = method.newTemp(IrType.WORD, null);
+            def.getBlock().add(def.getBlock().getInstrs().indexOf(def) + 1, new Instr.LoadField(word, v, 12, true));
+            return word;
+        });
+    }
+
+    // Int or Bool for a box or a parameter of that class, null otherwise
+    private String boxedClass(Value value) {
+        if (value instanceof Address a) {
+            return a.getLabel().startsWith("int_const") ? "Int" : a.getLabel().startsWith("bool_const") ? "Bool" : null;
+        }
+        if (!(value instanceof Temp temp)) {
+            return null;
+        }
+
+        var def = defs.get(temp);
+        if (def instanceof Instr.BoxInt) {
+            return "Int";
+        }
+        if (def instanceof Instr.BoxBool) {
+            return "Bool";
+        }
+        if (def instanceof Instr.LoadParam param && (param.getType().equals("Int") || param.getType().equals("Bool"))) {
+            return param.getType();
+        }
+
+        return null;
+    }
+
+    private boolean isBoxed(Value value, Set<Instr.Phi> candidates) {
+        return boxedClass(value) != null
+                || value instanceof Temp temp && defs.get(temp) instanceof Instr.Phi phi && candidates.contains(phi);
+    }
+
+    private void promoteBoxedPhis() {
+        collectDefs();
+
+        // Largest set of phis whose operands are all Int or Bool boxes or phis of the set
+        Set<Instr.Phi> candidates = new LinkedHashSet<>();
+        for (var block : method.getBlocks()) {
+            for (var phi : block.getPhis()) {
+                if (phi.getDst().getType() == IrType.REF) {
+                    candidates.add(phi);
+                }
+            }
+        }
+
+        boolean removed = true;
+        while (removed) {
+            removed = candidates.removeIf(phi -> !phi.getOperands().stream().allMatch(v -> isBoxed(v, candidates)));
+        }
+
+        // Only the phis that are actually unboxed are worth a word phi
+        Map<Temp, Instr.Phi> byDst = new HashMap<>();
+        candidates.forEach(phi -> byDst.put(phi.getDst(), phi));
+        List<Instr.LoadField> unboxes = new ArrayList<>();
+        for (var block : method.getBlocks()) {
+            for (var instr : block.getInstrs()) {
+                if (instr instanceof Instr.LoadField load && load.isImmutable() && load.getOffset() == 12
+                        && byDst.containsKey(load.getOperand(0))) {
+                    unboxes.add(load);
+                }
+            }
+        }
+        if (unboxes.isEmpty()) {
+            return;
+        }
+
+        Map<Instr.Phi, Instr.Phi> wordPhis = new LinkedHashMap<>();
+        for (var phi : candidates) {
+            var wordPhi = new Instr.Phi(method.newTemp(IrType.WORD, null), phi.incoming);
+            phi.getBlock().add(0, wordPhi);
+            wordPhis.put(phi, wordPhi);
+        }
+        Map<Value, Value> loads = new HashMap<>();
+        for (var entry : wordPhis.entrySet()) {
+            for (int i = 0; i < entry.getKey().getOperands().size(); ++i) {
+                entry.getValue().setOperand(i, word(entry.getKey().getOperand(i), wordPhis, loads));
+            }
+        }
+
+        Map<Temp, Value> replacements = new HashMap<>();
+        for (var load : unboxes) {
+            replacements.put(load.getDst(), wordPhis.get(byDst.get((Temp) load.getOperand(0))).getDst());
+            load.getBlock().getInstrs().remove(load);
+        }
+        method.replaceUses(replacements);
+        reboxAfterLoops(wordPhis);
+        changed = true;
+    }
+
+    // Boxes the word of the phis only used after their loop, in place of
+    // the phi, once their equality tests compare words. The boxes the phi
+    // merged then die, so a value carried around the loop is boxed once
+    // when it leaves instead of on every iteration.
+    private void reboxAfterLoops(Map<Instr.Phi, Instr.Phi> wordPhis) {
+        // The classes of the boxes each phi merges, through the phis it merges
+        Map<Instr.Phi, Set<String>> classes = new HashMap<>();
+        boolean grown = true;
+        while (grown) {
+            grown = false;
+            for (var phi : wordPhis.keySet()) {
+                var phiClasses = classes.computeIfAbsent(phi, p -> new HashSet<>());
+                for (var operand : phi.getOperands()) {
+                    var boxed = boxedClass(operand);
+                    grown |= boxed != null ? phiClasses.add(boxed)
+                            : phiClasses.addAll(classes.getOrDefault((Instr.Phi) defs.get((Temp) operand), Set.of()));
+                }
+            }
+        }
+
+        compareWords(wordPhis, classes);
+
+        Map<Temp, List<Instr>> uses = new HashMap<>();
+        for (var block : method.getBlocks()) {
+            for (var instr : block.getInstrs()) {
+                for (var operand : instr.getOperands()) {
+                    if (operand instanceof Temp temp) {
+                        uses.computeIfAbsent(temp, t -> new ArrayList<>()).add(instr);
+                    }
+                }
+            }
+        }
+
+        for (var entry : wordPhis.entrySet()) {
+            var phi = entry.getKey();
+            var phiClasses = classes.get(phi);
+            var phiUses = uses.getOrDefault(phi.getDst(), List.of());
+            var inLoop = reaching(phi.getBlock());
+            if (phiClasses.size() != 1 || !phiUses.stream().allMatch(use -> use instanceof Instr.Phi usePhi
+                    ? wordPhis.containsKey(usePhi) : !inLoop.contains(use.getBlock()))) {
+                continue;
+            }
+
+            Map<BasicBlock, Temp> boxes = new HashMap<>();
+            for (var use : phiUses) {
+                if (use instanceof Instr.Phi) {
+                    continue;
+                }
+
+                var box = boxes.computeIfAbsent(use.getBlock(), block -> {
+                    var obj = method.newTemp(IrType.REF, null);
+                    var word = entry.getValue().getDst();
+                    block.add(block.getPhis().size(), phiClasses.contains("Int")
+                            ? new Instr.BoxInt(obj, word) : new Instr.BoxBool(obj, word));
+                    return obj;
+                });
+                for (int i = 0; i < use.getOperands().size(); ++i) {
+                    if (use.getOperand(i) == phi.getDst()) {
+                        use.setOperand(i, box);
+                    }
+                }
+            }
+        }
+    }
+
+    // Turns the equality tests of promoted phis of a single class against
+    // constants or other such phis of the same class into word comparisons
+    private void compareWords(Map<Instr.Phi, Instr.Phi> wordPhis, Map<Instr.Phi, Set<String>> classes) {
+        Map<Value, Value> words = new HashMap<>();
+        Map<Value, Set<String>> valueClasses = new HashMap<>();
+        for (var entry : wordPhis.entrySet()) {
+            if (classes.get(entry.getKey()).size() == 1) {
+                words.put(entry.getKey().getDst(), entry.getValue().getDst());
+                valueClasses.put(entry.getKey().getDst(), classes.get(entry.getKey()));
+            }
+        }
+
+        for (var block : method.getBlocks()) {
+            var instrs = block.getInstrs();
+            for (int i = 0; i < instrs.size(); ++i) {
+                if (!(instrs.get(i) instanceof Instr.EqualityTest test)) {
+                    continue;
+                }
+
+                var left = test.getOperand(0);
+                var right = test.getOperand(1);
+                if (!words.containsKey(left) && !words.containsKey(right)
+                        || classesOf(left, valueClasses) == null
+                        || !classesOf(left, valueClasses).equals(classesOf(right, valueClasses))) {
+                    continue;
+                }
+
+                var eq = method.newTemp(IrType.WORD, null);
+                instrs.remove(i);
+                block.add(i, new Instr.BinOp(eq, Instr.BinOp.Op.EQ, wordOf(left, words), wordOf(right, words)));
+                block.add(++i, new Instr.BoxBool(test.getDst(), eq));
+            }
+        }
+    }
+
+    private Set<String> classesOf(Value value, Map<Value, Set<String>> valueClasses) {
+        return value instanceof Address a ? Collections.singleton(boxedClass(a)) : valueClasses.get(value);
+    }
+
+    private static Value wordOf(Value value, Map<Value, Value> words) {
+        return value instanceof Address a ? Const.word(Sccp.literalValue(a)) : words.get(value);
+    }
+
+    // The blocks from which the given one can be reached
+    private Set<BasicBlock> reaching(BasicBlock target) {
+        Set<BasicBlock> reaching = new HashSet<>();
+        Deque<BasicBlock> worklist = new ArrayDeque<>(target.getPredecessors());
+        while (!worklist.isEmpty()) {
+            var block = worklist.pop();
+            if (reaching.add(block)) {
+                worklist.addAll(block.getPredecessors());
+            }
+        }
+
+        return reaching;
+    }
+
+    //// Loop structure
+
+    // Innermost loops first
+    private List<Loop> findLoops() {
+        // Splitting off a preheader changes the blocks of the enclosing
+        // loops, so the loops are recomputed until no split is needed
+        while (true) {
+            method.computePredecessors();
+            domTree = new DominatorTree(method);
+
+            Map<BasicBlock, Loop> loops = new LinkedHashMap<>();
+            for (var block : domTree.getReversePostorder()) {
+                for (var succ : block.getSuccessors()) {
+                    if (domTree.dominates(succ, block)) {
+                        var loop = loops.computeIfAbsent(succ, header -> new Loop());
+                        loop.header = succ;
+                        loop.latches.add(block);
+                    }
+                }
+            }
+
+            for (var loop : loops.values()) {
+                loop.body.add(loop.header);
+                Deque<BasicBlock> worklist = new ArrayDeque<>(loop.latches);
+                while (!worklist.isEmpty()) {
+                    var block = worklist.pop();
+                    if (loop.body.add(block)) {
+                        worklist.addAll(block.getPredecessors());
+                    }
+                }
+            }
+
+            boolean split = false;
+            List<Loop> result = new ArrayList<>();
+            for (var loop : loops.values()) {
+                var outside = loop.header.getPredecessors().stream().filter(b -> !loop.body.contains(b)).toList();
+                if (outside.size() != 1) {
+                    // Several entries, no single place to hoist to
+                    continue;
+                }
+
+                loop.preheader = outside.get(0);
+                if (loop.preheader.getSuccessors().size() > 1) {
+                    splitPreheader(loop);
+                    split = true;
+                }
+                result.add(loop);
+            }
+
+            if (!split) {
+                result.sort(Comparator.comparingInt(loop -> loop.body.size()));
+                return result;
+            }
+        }
+    }
+
+    // Gives the edge from the preheader into the header a block of its own
+    private void splitPreheader(Loop loop) {
+        var pred = loop.preheader;
+        var preheader = method.newBlockBefore(loop.header);
+        preheader.add(new Instr.Jump(loop.header));
+        pred.getTerminator().replaceSuccessor(loop.header, preheader);
+        for (var phi : loop.header.getPhis()) {
+            phi.replaceIncoming(pred, preheader);
+        }
+    }
+
+    //// Invariant code motion
+
+    private boolean isInvariant(Value value, Loop loop) {
+        return !(value instanceof Temp temp) || temp == method.getSelf() || defs.get(temp) == null
+                || !loop.body.contains(defs.get(temp).getBlock());
+    }
+
+    // Runs on every iteration that reaches a latch
+    private boolean alwaysExecuted(BasicBlock block, Loop loop) {
+        return loop.latches.stream().allMatch(latch -> domTree.dominates(block, latch));
+    }
+
+    // Runs whenever the loop is left, so an operation that traps there
+    // would have trapped in the loop anyway
+    private boolean reachedOnExit(BasicBlock block, Loop loop) {
+        var exits = loop.exits();
+        return !exits.isEmpty() && exits.stream().allMatch(exit -> domTree.dominates(block, exit));
+    }
+
+    // Overflow and division by zero trap; ADDU wraps around
+    private static boolean mayTrap(Instr instr) {
+        if (instr instanceof Instr.BinOp binOp) {
+            return switch (binOp.getOp()) {
+                case ADD, SUB, MUL -> true;
+                case DIV -> !(binOp.getOperand(1) instanceof Const c && c.getValue() != 0 && c.getValue() != -1);
+                default -> false;
+            };
+        }
+
+        return instr instanceof Instr.Neg;
+    }
+
+    private boolean canHoist(Instr instr, Loop loop, Set<Integer> clobberedFields, boolean calls,
+                             boolean callsOrAllocates) {
+        if (instr instanceof Instr.BinOp || instr instanceof Instr.Neg) {
+            // A trap in the preheader must not show on paths that never ran
+            // the operation, nor before the output of the loop
+            return !mayTrap(instr) || reachedOnExit(instr.getBlock(), loop) && !calls;
+        }
+        if (instr instanceof Instr.LoadField load) {
+            if (load.isImmutable()) {
+                // The object might be void if the load is not reached
+                return alwaysExecuted(instr.getBlock(), loop);
+            }
+            return load.getOperand(0) == method.getSelf() && !callsOrAllocates
+                    && !clobberedFields.contains(load.getOffset());
+        }
+        if (instr instanceof Instr.BoxInt || instr instanceof Instr.BoxBool || instr instanceof Instr.EqualityTest) {
+            // Do not add allocations or runtime calls to paths that had none
+            return alwaysExecuted(instr.getBlock(), loop);
+        }
+
+        return false;
+    }
+
+    private void hoistInvariants(Loop loop) {
+        Set<Integer> clobberedFields = new HashSet<>();
+        boolean calls = false;
+        boolean callsOrAllocates = false;
+        for (var block : loop.body) {
+            for (var instr : block.getInstrs()) {
+                if (instr instanceof Instr.StoreField store) {
+                    clobberedFields.add(store.getOffset());
+                }
+                // Both can print before the program stops
+                calls |= instr instanceof Instr.Call || instr instanceof Instr.NullCheck;
+                callsOrAllocates |= instr instanceof Instr.Call || instr instanceof Instr.New;
+            }
+        }
+
+        // Dominator order, so that the operands of an instruction are hoisted before it
+        for (var block : domTree.getReversePostorder()) {
+            if (!loop.body.contains(block)) {
+                continue;
+            }
+
+            var it = block.getInstrs().iterator();
+            while (it.hasNext()) {
+                var instr = it.next();
+                if (instr instanceof Instr.Phi || instr.getDst() == null
+                        || !instr.getOperands().stream().allMatch(v -> isInvariant(v, loop))
+                        || !canHoist(instr, loop, clobberedFields, calls, callsOrAllocates)) {
+                    continue;
+                }
+
+                it.remove();
+                loop.preheader.addBeforeTerminator(instr);
+                changed = true;
+            }
+        }
+    }
+
+    //// Sinking
+
+    private void sinkBoxes(Loop loop) {
+        // Only loops with a single exit block, entered from the loop alone
+        var exits = loop.exits();
+        if (exits.size() != 1) {
+            return;
+        }
+        var exit = exits.iterator().next();
+        if (!loop.body.containsAll(exit.getPredecessors())) {
+            return;
+        }
+
+        Map<Temp, Boolean> usedInLoop = new HashMap<>();
+        for (var block : method.getBlocks()) {
+            for (var instr : block.getInstrs()) {
+                for (var operand : instr.getOperands()) {
+                    if (operand instanceof Temp temp) {
+                        usedInLoop.merge(temp, loop.body.contains(block), Boolean::logicalOr);
+                    }
+                }
+            }
+        }
+
+        for (var block : loop.body) {
+            if (!domTree.dominates(block, exit)) {
+                continue;
+            }
+
+            var it = block.getInstrs().iterator();
+            while (it.hasNext()) {
+                var instr = it.next();
+                if ((instr instanceof Instr.BoxInt || instr instanceof Instr.BoxBool)
+                        && !usedInLoop.getOrDefault(instr.getDst(), false)) {
+                    it.remove();
+                    exit.add(exit.getPhis().size(), instr);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    //// Strength reduction
+
+    private void reduceStrength(Loop loop) {
+        if (loop.latches.size() != 1) {
+            return;
+        }
+        var latch = loop.latches.get(0);
+
+        for (var phi : loop.header.getPhis()) {
+            if (phi.getDst().getType() != IrType.WORD || phi.getOperands().size() != 2) {
+                continue;
+            }
+
+            // phi = [preheader: init, latch: phi + step]
+            int latchIdx = phi.incoming.indexOf(latch);
+            int initIdx = 1 - latchIdx;
+            if (latchIdx < 0 || phi.getIncoming(initIdx) != loop.preheader
+                    || !(phi.getOperand(latchIdx) instanceof Temp next)
+                    || !(defs.get(next) instanceof Instr.BinOp add) || add.getOp() != Instr.BinOp.Op.ADD) {
+                continue;
+            }
+
+            Const step;
+            if (add.getOperand(0) == phi.getDst() && add.getOperand(1) instanceof Const c) {
+                step = c;
+            } else if (add.getOperand(1) == phi.getDst() && add.getOperand(0) instanceof Const c) {
+                step = c;
+            } else {
+                continue;
+            }
+
+            for (var block : loop.body) {
+                for (var instr : new ArrayList<>(block.getInstrs())) {
+                    if (instr instanceof Instr.BinOp mul && mul.getOp() == Instr.BinOp.Op.MUL) {
+                        Const factor = null;
+                        if (mul.getOperand(0) == phi.getDst() && mul.getOperand(1) instanceof Const c) {
+                            factor = c;
+                        } else if (mul.getOperand(1) == phi.getDst() && mul.getOperand(0) instanceof Const c) {
+                            factor = c;
+                        }
+
+                        if (factor != null) {
+                            reduce(loop, latch, phi, initIdx, latchIdx, step, mul, factor);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Replaces phi * factor by a new induction variable stepping by
+    // step * factor. Both wrap around on overflow, so they stay equal.
+    private void reduce(Loop loop, BasicBlock latch, Instr.Phi phi, int initIdx, int latchIdx,
+                        Const step, Instr.BinOp mul, Const factor) {
+        var init = method.newTemp(IrType.WORD, null);
+        loop.preheader.addBeforeTerminator(new Instr.BinOp(init, Instr.BinOp.Op.MUL, phi.getOperand(initIdx), factor));
+
+        var reduced = new Instr.Phi(mul.getDst(), phi.incoming);
+        var next = method.newTemp(IrType.WORD, null);
+        reduced.setOperand(initIdx, init);
+        reduced.setOperand(latchIdx, next);
+        loop.header.add(0, reduced);
+        latch.addBeforeTerminator(new Instr.BinOp(next, Instr.BinOp.Op.ADDU, mul.getDst(),
+                Const.word(step.getValue() * factor.getValue())));
+
+        mul.getBlock().getInstrs().remove(mul);
+        changed = true;
+    }
+}
@@ -0,0 +1,298 @@
+package cool.ir;
+
+import java.util.*;
+
+/**
+ * Emits MIPS code for an {@link IrMethod}, using the same calling
+ * convention, frame layout and runtime interface as the template backend.
+ * Every temp except self lives in its own frame slot below $fp; self stays
+ * in $s0.
+ */
+public class MipsEmitter {
+    // Range of the preallocated boxed Int table, disabled when low > high
+    final int intCacheLow;
+    final int intCacheHigh;
+
+    // Runtime routines replaced by routines emitted with the program
+    final Map<String, String> runtimeRoutines;
+
+    private StringBuilder out;
+    private IrMethod method;
+    private Map<Temp, Integer> slots;
+    private int frameSize;
+    private int labelCnt;
+
+    public MipsEmitter(int intCacheLow, int intCacheHigh, Map<String, String> runtimeRoutines) {
+        this.intCacheLow = intCacheLow;
+        this.intCacheHigh = intCacheHigh;
+        this.runtimeRoutines = runtimeRoutines;
+    }
+
+    private String routine(String label) {
+        return runtimeRoutines.getOrDefault(label, label);
+    }
+
+    public String emit(IrMethod method) {
+        return emit(method, method.getLabel());
+    }
+
+    // label names the emitted code, which is otherwise the method's own label
+    public String emit(IrMethod method, String label) {
+        this.out = new StringBuilder();
+        this.method = method;
+        this.labelCnt = 0;
+
+        // Assign the frame slots
+        slots = new HashMap<>();
+        for (var temp : method.getTemps()) {
+            if (temp != method.getSelf()) {
+                slots.put(temp, -4 * (slots.size() + 1));
+            }
+        }
+        frameSize = 4 * slots.size();
+
+        label(label);
+        insn("addiu", "$sp", "$sp", "-12");
+        insn("sw", "$fp", "12($sp)");
+        insn("sw", "$s0", "8($sp)");
+        insn("sw", "$ra", "4($sp)");
+        insn("addiu", "$fp", "$sp", "4");
+        if (frameSize > 0) {
+            insn("addiu", "$sp", "$sp", String.valueOf(-frameSize));
+        }
+        insn("move", "$s0", "$a0");
+
+        var blocks = method.getBlocks();
+        for (int i = 0; i < blocks.size(); ++i) {
+            var block = blocks.get(i);
+            var next = i + 1 < blocks.size() ? blocks.get(i + 1) : null;
+
+            if (i > 0) {
+                label(blockLabel(block));
+            }
+            for (var instr : block.getInstrs()) {
+                emitInstr(instr, next);
+            }
+        }
+
+        // Drop the trailing newline, sections are joined with one
+        out.setLength(out.length() - 1);
+        return out.toString();
+    }
+
+    private String blockLabel(BasicBlock block) {
+        return method.getLabel() + "." + block;
+    }
+
+    private String newLabel() {
+        return method.getLabel() + ".L" + labelCnt++;
+    }
+
+    private void label(String label) {
+        out.append(label).append(":\n");
+    }
+
+    private void insn(String op, String... operands) {
+        out.append("    ").append(op).append(" ".repeat(Math.max(1, 8 - op.length())))
+                .append(String.join(" ", operands)).append('\n');
+    }
+
+    private String slot(Temp temp) {
+        return slots.get(temp) + "($fp)";
+    }
+
+    private void load(Value value, String reg) {
+        if (value == method.getSelf()) {
+            insn("move", reg, "$s0");
+        } else if (value instanceof Temp temp) {
+            insn("lw", reg, slot(temp));
+        } else if (value instanceof Const c) {
+            insn("li", reg, String.valueOf(c.getValue()));
+        } else if (value instanceof Address a) {
+            insn("la", reg, a.getLabel());
+        }
+    }
+
+    private void store(Temp temp, String reg) {
+        if (temp != null) {
+            insn("sw", reg, slot(temp));
+        }
+    }
+
+    private void emitInstr(Instr instr, BasicBlock next) {
+        if (instr instanceof Instr.Move move) {
+            load(move.getSrc(), "$t1");
+            store(move.getDst(), "$t1");
+        } else if (instr instanceof Instr.BinOp binOp) {
+            load(binOp.getOperand(0), "$t1");
+            load(binOp.getOperand(1), "$t2");
+            switch (binOp.getOp()) {
+                case ADD -> insn("add", "$t1", "$t1", "$t2");
+                case ADDU -> insn("addu", "$t1", "$t1", "$t2");
+                case SUB -> insn("sub", "$t1", "$t1", "$t2");
+                case MUL -> insn("mul", "$t1", "$t1", "$t2");
+                case DIV -> insn("div", "$t1", "$t1", "$t2");
+                case LT -> insn("slt", "$t1", "$t1", "$t2");
+                case LE -> {
+                    insn("slt", "$t1", "$t2", "$t1");
+                    insn("xori", "$t1", "$t1", "1");
+                }
+                case EQ -> insn("seq", "$t1", "$t1", "$t2");
+            }
+            store(binOp.getDst(), "$t1");
+        } else if (instr instanceof Instr.Neg neg) {
+            load(neg.getOperand(0), "$t1");
+            insn("neg", "$t1", "$t1");
+            store(neg.getDst(), "$t1");
+        } else if (instr instanceof Instr.LoadParam loadParam) {
+            insn("lw", "$t1", (12 + 4 * loadParam.getIndex()) + "($fp)");
+            store(loadParam.getDst(), "$t1");
+        } else if (instr instanceof Instr.LoadField loadField) {
+            load(loadField.getOperand(0), "$t1");
+            insn("lw", "$t1", loadField.getOffset() + "($t1)");
+            store(loadField.getDst(), "$t1");
+        } else if (instr instanceof Instr.StoreField storeField) {
+            load(storeField.getOperand(0), "$t1");
+            load(storeField.getOperand(1), "$t2");
+            insn("sw", "$t2", storeField.getOffset() + "($t1)");
+        } else if (instr instanceof Instr.NullCheck nullCheck) {
+            String okLabel = newLabel();
+            load(nullCheck.getOperand(0), "$a0");
+            insn("bnez", "$a0", okLabel);
+            insn("la", "$a0", nullCheck.getFileName().toString());
+            insn("li", "$t1", String.valueOf(nullCheck.getLine()));
+            insn("jal", routine(nullCheck.getKind() == Instr.NullCheck.Kind.DISPATCH ? "_dispatch_abort" : "_case_abort2"));
+            label(okLabel);
+        } else if (instr instanceof Instr.Call call) {
+            emitCall(call);
+        } else if (instr instanceof Instr.New new_) {
+            emitNew(new_);
+        } else if (instr instanceof Instr.BoxInt boxInt) {
+            emitBoxInt(boxInt);
+        } else if (instr instanceof Instr.BoxBool boxBool) {
+            String endLabel = newLabel();
+            load(boxBool.getOperand(0), "$t1");
+            insn("la", "$a0", "bool_const0");
+            insn("beqz", "$t1", endLabel);
+            insn("la", "$a0", "bool_const1");
+            label(endLabel);
+            store(boxBool.getDst(), "$a0");
+        } else if (instr instanceof Instr.EqualityTest equalityTest) {
+            String endLabel = newLabel();
+            load(equalityTest.getOperand(0), "$t1");
+            load(equalityTest.getOperand(1), "$t2");
+            insn("la", "$a0", "bool_const1");
+            insn("beq", "$t1", "$t2", endLabel);
+            insn("la", "$a1", "bool_const0");
+            insn("jal", routine("equality_test"));
+            label(endLabel);
+            store(equalityTest.getDst(), "$a0");
+        } else if (instr instanceof Instr.Jump jump) {
+            if (jump.getTarget() != next) {
+                insn("b", blockLabel(jump.getTarget()));
+            }
+        } else if (instr instanceof Instr.Branch branch) {
+            load(branch.getCond(), "$t1");
+            if (branch.getIfFalse() == next) {
+                insn("bnez", "$t1", blockLabel(branch.getIfTrue()));
+            } else if (branch.getIfTrue() == next) {
+                insn("beqz", "$t1", blockLabel(branch.getIfFalse()));
+            } else {
+                insn("bnez", "$t1", blockLabel(branch.getIfTrue()));
+                insn("b", blockLabel(branch.getIfFalse()));
+            }
+        } else if (instr instanceof Instr.Return ret) {
+            load(ret.getValue(), "$a0");
+            if (frameSize > 0) {
+                insn("addiu", "$sp", "$sp", String.valueOf(frameSize));
+            }
+            insn("lw", "$fp", "12($sp)");
+            insn("lw", "$s0", "8($sp)");
+            insn("lw", "$ra", "4($sp)");
+            insn("addiu", "$sp", "$sp", String.valueOf(12 + 4 * method.getParamCount()));
+            insn("jr", "$ra");
+        } else if (instr instanceof Instr.CaseAbort caseAbort) {
+            load(caseAbort.getOperand(0), "$a0");
+            insn("jal", routine("_case_abort"));
+        } else {
+            throw new IllegalStateException("Cannot emit " + instr);
+        }
+    }
+
+    private void emitCall(Instr.Call call) {
+        // The first argument ends up closest to the callee's frame
+        for (int i = call.getArgCount() - 1; i >= 0; --i) {
+            load(call.getArg(i), "$a0");
+            insn("sw", "$a0", "0($sp)");
+            insn("addiu", "$sp", "$sp", "-4");
+        }
+
+        load(call.getReceiver(), "$a0");
+        switch (call.getKind()) {
+            case DYNAMIC -> {
+                insn("lw", "$t1", "8($a0)");
+                insn("lw", "$t1", call.getMethodOffset() + "($t1)");
+                insn("jalr", "$t1");
+            }
+            case STATIC -> {
+                insn("la", "$t1", call.getClassName() + "_dispTab");
+                insn("lw", "$t1", call.getMethodOffset() + "($t1)");
+                insn("jalr", "$t1");
+            }
+            case DIRECT -> insn("jal", routine(call.getClassName()));
+        }
+
+        store(call.getDst(), "$a0");
+    }
+
+    private void emitNew(Instr.New new_) {
+        if (new_.getClassName() != null) {
+            insn("la", "$a0", new_.getClassName() + "_protObj");
+            insn("jal", "Object.copy");
+            insn("jal", new_.getClassName() + "_init");
+        } else {
+            // Look up the prototype and initializer of the dynamic class in class_objTab
+            load(new_.getOperand(0), "$t2");
+            insn("la", "$t1", "class_objTab");
+            insn("lw", "$t2", "0($t2)");
+            insn("sll", "$t2", "$t2", "3");
+            insn("addu", "$t1", "$t1", "$t2");
+            insn("sw", "$t1", "0($sp)");
+            insn("addiu", "$sp", "$sp", "-4");
+            insn("lw", "$a0", "0($t1)");
+            insn("jal", "Object.copy");
+            insn("lw", "$t1", "4($sp)");
+            insn("addiu", "$sp", "$sp", "4");
+            insn("lw", "$t1", "4($t1)");
+            insn("jalr", "$t1");
+        }
+
+        store(new_.getDst(), "$a0");
+    }
+
+    private void emitBoxInt(Instr.BoxInt boxInt) {
+        String endLabel = null;
+        if (intCacheLow <= intCacheHigh) {
+            String missLabel = newLabel();
+            endLabel = newLabel();
+            load(boxInt.getOperand(0), "$t1");
+            insn("addiu", "$t2", "$t1", String.valueOf(-intCacheLow));
+            insn("bgeu", "$t2", String.valueOf(intCacheHigh - intCacheLow + 1), missLabel);
+            insn("sll", "$t2", "$t2", "4");
+            insn("la", "$a0", "int_cache");
+            insn("addu", "$a0", "$a0", "$t2");
+            insn("b", endLabel);
+            label(missLabel);
+        }
+
+        insn("la", "$a0", "Int_protObj");
+        insn("jal", "Object.copy");
+        load(boxInt.getOperand(0), "$t1");
+        insn("sw", "$t1", "12($a0)");
+
+        if (endLabel != null) {
+            label(endLabel);
+        }
+        store(boxInt.getDst(), "$a0");
+    }
+}
@@ -0,0 +1,46 @@
+package cool.ir;
+
+import java.util.function.IntConsumer;
+
+/**
+ * The optimization pipeline: turns self tail calls into loops, builds SSA form, iterates constant
+ * propagation, copy propagation, value numbering and dead code elimination
+ * until nothing changes, optimizes the loops and cleans up after them, then
+ * leaves SSA form and tidies up the CFG for the emitter.
+ */
+public class Optimizer {
+    // Bound on the rounds of the pass loop; each round is linear in practice
+    static final int MAX_ROUNDS = 8;
+
+    // Receives the Int constants the folded code refers to, which have to
+    // be emitted in the data section
+    final IntConsumer intConstants;
+
+    public Optimizer(IntConsumer intConstants) {
+        this.intConstants = intConstants;
+    }
+
+    public void optimize(IrMethod method) {
+        TailCallElimination.run(method);
+        SsaBuilder.build(method);
+
+        runScalarPasses(method);
+        if (LoopOptimizer.run(method)) {
+            runScalarPasses(method);
+        }
+
+        SsaDestruction.run(method);
+        CfgSimplifier.run(method);
+        method.removeUnusedTemps();
+    }
+
+    private void runScalarPasses(IrMethod method) {
+        boolean changed = true;
+        for (int round = 0; changed && round < MAX_ROUNDS; ++round) {
+            changed = Sccp.run(method, intConstants);
+            changed |= CopyPropagation.run(method);
+            changed |= ValueNumbering.run(method);
+            changed |= DeadCodeElimination.run(method);
+        }
+    }
+}
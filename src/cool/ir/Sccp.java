@@ -0,0 +1,299 @@
+package cool.ir;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Sparse conditional constant propagation (Wegman and Zadeck) on SSA form.
+ * Besides words, the lattice tracks the statically allocated constants, so
+ * that literals can be unboxed, comparisons folded and constant Bool and Int
+ * results replaced by their constants. Folding never hides a trap: overflows
+ * and divisions are left to run.
+ */
+public class Sccp {
+    // Lattice bottom; a missing entry is top
+    private static final Value BOTTOM = new Value(IrType.REF) {
+        @Override
+        public String toString() {
+            return "bottom";
+        }
+    };
+
+    private final IrMethod method;
+    private final IntConsumer intConstants;
+
+    private final Map<Temp, Value> lattice = new HashMap<>();
+    private final Map<Temp, List<Instr>> uses = new HashMap<>();
+    private final Set<BasicBlock> reached = new HashSet<>();
+    private final Map<BasicBlock, Set<BasicBlock>> executable = new HashMap<>();
+
+    private final Deque<BasicBlock[]> edgeWorklist = new ArrayDeque<>();
+    private final Deque<Instr> instrWorklist = new ArrayDeque<>();
+
+    // intConstants registers the int_const<n> objects referenced by the
+    // rewritten code
+    private Sccp(IrMethod method, IntConsumer intConstants) {
+        this.method = method;
+        this.intConstants = intConstants;
+    }
+
+    // Returns true if the method changed
+    public static boolean run(IrMethod method, IntConsumer intConstants) {
+        var sccp = new Sccp(method, intConstants);
+        sccp.solve();
+        return sccp.rewrite();
+    }
+
+    private void solve() {
+        for (var block : method.getBlocks()) {
+            for (var instr : block.getInstrs()) {
+                for (var operand : instr.getOperands()) {
+                    if (operand instanceof Temp temp) {
+                        uses.computeIfAbsent(temp, t -> new ArrayList<>()).add(instr);
+                    }
+                }
+            }
+        }
+        lattice.put(method.getSelf(), BOTTOM);
+
+        reach(method.getEntry());
+        while (!edgeWorklist.isEmpty() || !instrWorklist.isEmpty()) {
+            while (!edgeWorklist.isEmpty()) {
+                var edge = edgeWorklist.pop();
+                if (reached.contains(edge[1])) {
+                    edge[1].getPhis().forEach(this::visit);
+                } else {
+                    reach(edge[1]);
+                }
+            }
+            while (!instrWorklist.isEmpty()) {
+                var instr = instrWorklist.pop();
+                if (reached.contains(instr.getBlock())) {
+                    visit(instr);
+                }
+            }
+        }
+    }
+
+    private void reach(BasicBlock block) {
+        reached.add(block);
+        block.getInstrs().forEach(this::visit);
+    }
+
+    private void markEdge(BasicBlock from, BasicBlock to) {
+        if (executable.computeIfAbsent(from, b -> new HashSet<>()).add(to)) {
+            edgeWorklist.push(new BasicBlock[] {from, to});
+        }
+    }
+
+    private boolean isExecutable(BasicBlock from, BasicBlock to) {
+        return executable.getOrDefault(from, Set.of()).contains(to);
+    }
+
+    private Value valueOf(Value operand) {
+        return operand instanceof Temp temp ? lattice.get(temp) : operand;
+    }
+
+    private static Value meet(Value a, Value b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null || a.equals(b)) {
+            return a;
+        }
+
+        return BOTTOM;
+    }
+
+    private void visit(Instr instr) {
+        if (instr instanceof Instr.Branch branch) {
+            var cond = valueOf(branch.getCond());
+            if (cond instanceof Const c) {
+                markEdge(branch.getBlock(), c.getValue() != 0 ? branch.getIfTrue() : branch.getIfFalse());
+            } else if (cond == BOTTOM) {
+                markEdge(branch.getBlock(), branch.getIfTrue());
+                markEdge(branch.getBlock(), branch.getIfFalse());
+            }
+            return;
+        }
+        if (instr instanceof Instr.Terminator terminator) {
+            for (var succ : terminator.getSuccessors()) {
+                markEdge(terminator.getBlock(), succ);
+            }
+            return;
+        }
+        if (instr.getDst() == null) {
+            return;
+        }
+
+        var oldValue = lattice.get(instr.getDst());
+        if (oldValue == BOTTOM) {
+            return;
+        }
+
+        var newValue = meet(oldValue, evaluate(instr));
+        if (!Objects.equals(oldValue, newValue)) {
+            lattice.put(instr.getDst(), newValue);
+            instrWorklist.addAll(uses.getOrDefault(instr.getDst(), List.of()));
+        }
+    }
+
+    private Value evaluate(Instr instr) {
+        if (instr instanceof Instr.Phi phi) {
+            Value result = null;
+            for (int i = 0; i < phi.getOperands().size(); ++i) {
+                if (isExecutable(phi.getIncoming(i), phi.getBlock())) {
+                    result = meet(result, valueOf(phi.getOperand(i)));
+                }
+            }
+            return result;
+        }
+
+        if (instr instanceof Instr.Move || instr instanceof Instr.BinOp || instr instanceof Instr.Neg
+                || instr instanceof Instr.LoadField || instr instanceof Instr.BoxInt
+                || instr instanceof Instr.BoxBool || instr instanceof Instr.EqualityTest) {
+            Value[] values = new Value[instr.getOperands().size()];
+            for (int i = 0; i < values.length; ++i) {
+                values[i] = valueOf(instr.getOperand(i));
+                if (values[i] == null) {
+                    return null;
+                }
+            }
+
+            var result = fold(instr, values);
+            return result != null ? result : BOTTOM;
+        }
+
+        // Parameters, calls and allocations are unknown
+        return BOTTOM;
+    }
+
+    // Null when the result cannot be computed at compile time
+    private Value fold(Instr instr, Value[] values) {
+        if (instr instanceof Instr.Move) {
+            return values[0] == BOTTOM ? null : values[0];
+        }
+
+        if (instr instanceof Instr.BinOp binOp) {
+            if (binOp.getOp() == Instr.BinOp.Op.EQ && values[0] != BOTTOM && values[1] != BOTTOM) {
+                return values[0].equals(values[1]) ? Const.ONE : Const.ZERO;
+            }
+            if (!(values[0] instanceof Const left) || !(values[1] instanceof Const right)) {
+                return null;
+            }
+
+            int a = left.getValue(), b = right.getValue();
+            try {
+                return switch (binOp.getOp()) {
+                    case ADD -> Const.word(Math.addExact(a, b));
+                    case ADDU -> Const.word(a + b);
+                    case SUB -> Const.word(Math.subtractExact(a, b));
+                    case MUL -> Const.word(a * b);
+                    case DIV -> b == 0 || (a == Integer.MIN_VALUE && b == -1) ? null : Const.word(a / b);
+                    case LT -> a < b ? Const.ONE : Const.ZERO;
+                    case LE -> a <= b ? Const.ONE : Const.ZERO;
+                    case EQ -> a == b ? Const.ONE : Const.ZERO;
+                };
+            } catch (ArithmeticException e) {
+                // add and sub trap on overflow
+                return null;
+            }
+        }
+
+        if (instr instanceof Instr.Neg) {
+            return values[0] instanceof Const c && c.getValue() != Integer.MIN_VALUE
+                    ? Const.word(-c.getValue()) : null;
+        }
+
+        if (instr instanceof Instr.LoadField loadField) {
+            // The value of an Int or Bool literal
+            if (loadField.isImmutable() && loadField.getOffset() == 12 && values[0] instanceof Address a) {
+                Integer value = literalValue(a);
+                return value != null ? Const.word(value) : null;
+            }
+            return null;
+        }
+
+        if (instr instanceof Instr.BoxBool) {
+            return values[0] instanceof Const c ? new Address(c.getValue() != 0 ? "bool_const1" : "bool_const0") : null;
+        }
+
+        if (instr instanceof Instr.BoxInt) {
+            // Only non-negative constants have a label of their own
+            return values[0] instanceof Const c && c.getValue() >= 0 ? new Address("int_const" + c.getValue()) : null;
+        }
+
+        if (instr instanceof Instr.EqualityTest) {
+            // Equal constants are pooled, so distinct constants have distinct values
+            if (values[0] != BOTTOM && values[1] != BOTTOM) {
+                return new Address(values[0].equals(values[1]) ? "bool_const1" : "bool_const0");
+            }
+            return null;
+        }
+
+        return null;
+    }
+
+    // The value of an Int or Bool constant, null for other addresses
+    static Integer literalValue(Address address) {
+        var label = address.getLabel();
+        if (label.startsWith("int_const")) {
+            return Integer.parseInt(label.substring("int_const".length()));
+        }
+        if (label.startsWith("bool_const")) {
+            return Integer.parseInt(label.substring("bool_const".length()));
+        }
+
+        return null;
+    }
+
+    private boolean rewrite() {
+        boolean changed = false;
+
+        // The constants are registered in the order they are defined, which
+        // unlike the order of the lattice is the same on every run
+        Map<Temp, Value> constants = new HashMap<>();
+        for (var block : method.getBlocks()) {
+            for (var instr : block.getInstrs()) {
+                var value = instr.getDst() != null ? lattice.get(instr.getDst()) : null;
+                if (value != null && value != BOTTOM && constants.put(instr.getDst(), value) == null
+                        && value instanceof Address a && a.getLabel().startsWith("int_const")) {
+                    intConstants.accept(literalValue(a));
+                }
+            }
+        }
+
+        // Replace the uses, the definitions are left to dead code elimination
+        for (var block : method.getBlocks()) {
+            for (var instr : block.getInstrs()) {
+                for (int i = 0; i < instr.getOperands().size(); ++i) {
+                    if (instr.getOperand(i) instanceof Temp temp && constants.containsKey(temp)) {
+                        instr.setOperand(i, constants.get(temp));
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        // Fold branches with a known outcome
+        for (var block : method.getBlocks()) {
+            if (!reached.contains(block)) {
+                continue;
+            }
+
+            if (block.getTerminator() instanceof Instr.Branch branch && branch.getCond() instanceof Const c) {
+                var target = c.getValue() != 0 ? branch.getIfTrue() : branch.getIfFalse();
+                block.getInstrs().remove(block.getInstrs().size() - 1);
+                block.add(new Instr.Jump(target));
+                changed = true;
+            }
+        }
+
+        if (reached.size() != method.getBlocks().size()) {
+            changed = true;
+        }
+        method.computePredecessors();
+
+        return changed;
+    }
+}
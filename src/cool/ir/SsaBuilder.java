@@ -0,0 +1,134 @@
+package cool.ir;
+
+import java.util.*;
+
+/**
+ * Converts a method to SSA form. Temps assigned more than once (variables,
+ * and the results of ifs and cases) get phis on their iterated dominance
+ * frontiers and are then renamed along the dominator tree so that every
+ * temp has a single definition.
+ */
+public class SsaBuilder {
+    private final IrMethod method;
+    private final DominatorTree domTree;
+
+    // Marks the point where the names pushed by a block are popped
+    private static final BasicBlock POP = new BasicBlock(-1);
+
+    // The variable each phi was inserted for
+    private final Map<Instr.Phi, Temp> phiVariables = new HashMap<>();
+    private final Map<Temp, Deque<Value>> stacks = new HashMap<>();
+
+    private SsaBuilder(IrMethod method) {
+        this.method = method;
+        this.domTree = new DominatorTree(method);
+    }
+
+    public static DominatorTree build(IrMethod method) {
+        method.computePredecessors();
+        var builder = new SsaBuilder(method);
+        builder.insertPhis();
+        builder.rename();
+
+        return builder.domTree;
+    }
+
+    private void insertPhis() {
+        Map<Temp, Set<BasicBlock>> defBlocks = new LinkedHashMap<>();
+        Map<Temp, Integer> defCounts = new HashMap<>();
+        for (var block : method.getBlocks()) {
+            for (var instr : block.getInstrs()) {
+                if (instr.getDst() != null) {
+                    defBlocks.computeIfAbsent(instr.getDst(), t -> new LinkedHashSet<>()).add(block);
+                    defCounts.merge(instr.getDst(), 1, Integer::sum);
+                }
+            }
+        }
+
+        for (var entry : defBlocks.entrySet()) {
+            var variable = entry.getKey();
+            if (defCounts.get(variable) < 2) {
+                continue;
+            }
+            stacks.put(variable, new ArrayDeque<>());
+
+            Set<BasicBlock> hasPhi = new HashSet<>();
+            Deque<BasicBlock> worklist = new ArrayDeque<>(entry.getValue());
+            while (!worklist.isEmpty()) {
+                var block = worklist.pop();
+                for (var frontier : domTree.getFrontier(block)) {
+                    if (hasPhi.add(frontier)) {
+                        var phi = new Instr.Phi(variable, frontier.getPredecessors());
+                        frontier.add(0, phi);
+                        phiVariables.put(phi, variable);
+                        worklist.push(frontier);
+                    }
+                }
+            }
+        }
+    }
+
+    // Value of a variable on paths where it was never assigned; such uses
+    // are dead, any value of the right type will do
+    private static Value undefined(Temp variable) {
+        return variable.getType() == IrType.REF ? Const.VOID : Const.ZERO;
+    }
+
+    private Value current(Temp variable) {
+        var stack = stacks.get(variable);
+        return stack.isEmpty() ? undefined(variable) : stack.peek();
+    }
+
+    private void rename() {
+        // Walk the dominator tree without recursion
+        Deque<BasicBlock> worklist = new ArrayDeque<>();
+        Deque<List<Temp>> pushedNames = new ArrayDeque<>();
+        worklist.push(method.getEntry());
+
+        while (!worklist.isEmpty()) {
+            var block = worklist.pop();
+            if (block == POP) {
+                for (var variable : pushedNames.pop()) {
+                    stacks.get(variable).pop();
+                }
+                continue;
+            }
+
+            List<Temp> pushed = new ArrayList<>();
+            for (var instr : block.getInstrs()) {
+                if (!(instr instanceof Instr.Phi)) {
+                    for (int i = 0; i < instr.getOperands().size(); ++i) {
+                        if (instr.getOperand(i) instanceof Temp temp && stacks.containsKey(temp)) {
+                            instr.setOperand(i, current(temp));
+                        }
+                    }
+                }
+
+                var variable = instr instanceof Instr.Phi phi ? phiVariables.get(phi) : instr.getDst();
+                if (variable != null && stacks.containsKey(variable)) {
+                    var name = method.newTemp(variable.getType(), variable.getName());
+                    instr.setDst(name);
+                    stacks.get(variable).push(name);
+                    pushed.add(variable);
+                }
+            }
+
+            for (var succ : block.getSuccessors()) {
+                for (var phi : succ.getPhis()) {
+                    var variable = phiVariables.get(phi);
+                    for (int i = 0; i < phi.getOperands().size(); ++i) {
+                        if (phi.getIncoming(i) == block) {
+                            phi.setOperand(i, current(variable));
+                        }
+                    }
+                }
+            }
+
+            pushedNames.push(pushed);
+            worklist.push(POP);
+            for (var child : domTree.getChildren(block)) {
+                worklist.push(child);
+            }
+        }
+    }
+}
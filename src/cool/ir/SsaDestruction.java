@@ -0,0 +1,75 @@
+package cool.ir;
+
+import java.util.*;
+
+/**
+ * Replaces phis with copies at the end of the predecessors. Critical edges
+ * are split first, so that a copy never runs on a path that leaves the
+ * merge; the copies of one edge are made as a parallel assignment, staging
+ * through fresh temps when a phi reads the result of another.
+ */
+public class SsaDestruction {
+    private SsaDestruction() {
+    }
+
+    public static void run(IrMethod method) {
+        method.computePredecessors();
+
+        for (var block : new ArrayList<>(method.getBlocks())) {
+            var phis = block.getPhis();
+            if (phis.isEmpty()) {
+                continue;
+            }
+
+            for (var pred : new ArrayList<>(block.getPredecessors())) {
+                var source = pred;
+                if (pred.getSuccessors().size() > 1) {
+                    source = method.newBlockBefore(block);
+                    source.add(new Instr.Jump(block));
+                    pred.getTerminator().replaceSuccessor(block, source);
+                    for (var phi : phis) {
+                        phi.replaceIncoming(pred, source);
+                    }
+                }
+
+                insertCopies(method, phis, source);
+            }
+
+            block.getInstrs().removeAll(phis);
+        }
+
+        method.computePredecessors();
+    }
+
+    private static void insertCopies(IrMethod method, List<Instr.Phi> phis, BasicBlock pred) {
+        Set<Temp> targets = new HashSet<>();
+        for (var phi : phis) {
+            targets.add(phi.getDst());
+        }
+
+        List<Temp> dsts = new ArrayList<>();
+        List<Value> srcs = new ArrayList<>();
+        boolean overlap = false;
+        for (var phi : phis) {
+            var src = phi.getOperand(phi.incoming.indexOf(pred));
+            if (src == phi.getDst()) {
+                continue;
+            }
+
+            dsts.add(phi.getDst());
+            srcs.add(src);
+            overlap |= src instanceof Temp temp && targets.contains(temp);
+        }
+
+        if (overlap) {
+            for (int i = 0; i < srcs.size(); ++i) {
+                var staged = method.newTemp(srcs.get(i).getType(), null);
+                pred.addBeforeTerminator(new Instr.Move(staged, srcs.get(i)));
+                srcs.set(i, staged);
+            }
+        }
+        for (int i = 0; i < dsts.size(); ++i) {
+            pred.addBeforeTerminator(new Instr.Move(dsts.get(i), srcs.get(i)));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package cool.ir;
+
+import java.util.*;
+
+/**
+ * Turns self-recursive tail calls into jumps back to the start of the
+ * method, before SSA construction. A tail call is a direct call of the
+ * method itself on self whose result is returned right away, possibly
+ * through the result temps of ifs, cases and blocks. The arguments
+ * overwrite the parameters and the frame is reused, so deep recursion
+ * runs in constant stack space.
+ */
+public class TailCallElimination {
+    // Bound on the blocks followed from a call to its return
+    static final int MAX_PATH = 16;
+
+    private TailCallElimination() {
+    }
+
+    // Returns true if the method changed
+    public static boolean run(IrMethod method) {
+        if (method.isInit()) {
+            return false;
+        }
+
+        List<Instr.Call> tailCalls = new ArrayList<>();
+        for (var block : method.getBlocks()) {
+            for (var instr : block.getInstrs()) {
+                if (instr instanceof Instr.Call call && call.getKind() == Instr.Call.Kind.DIRECT
+                        && call.getClassName().equals(method.getLabel()) && call.getReceiver() == method.getSelf()
+                        && isTailCall(call)) {
+                    tailCalls.add(call);
+                }
+            }
+        }
+        if (tailCalls.isEmpty()) {
+            return false;
+        }
+
+        // The parameters are loaded at the start of the entry block, the rest
+        // of it becomes the target of the tail calls
+        var entry = method.getEntry();
+        Temp[] params = new Temp[method.getParamCount()];
+        int split = 0;
+        while (split < entry.getInstrs().size() && entry.getInstrs().get(split) instanceof Instr.LoadParam load) {
+            params[load.getIndex()] = load.getDst();
+            ++split;
+        }
+
+        var start = method.getBlocks().size() > 1
+                ? method.newBlockBefore(method.getBlocks().get(1)) : method.newBlock();
+        var rest = new ArrayList<>(entry.getInstrs().subList(split, entry.getInstrs().size()));
+        entry.getInstrs().subList(split, entry.getInstrs().size()).clear();
+        rest.forEach(start::add);
+        entry.add(new Instr.Jump(start));
+
+        for (var call : tailCalls) {
+            var block = call.getBlock();
+            var instrs = block.getInstrs();
+            instrs.subList(instrs.indexOf(call), instrs.size()).clear();
+
+            // The arguments may read the parameters they replace
+            List<Temp> staged = new ArrayList<>();
+            for (int i = 0; i < params.length; ++i) {
+                var temp = method.newTemp(IrType.REF, null);
+                block.add(new Instr.Move(temp, call.getArg(i)));
+                staged.add(temp);
+            }
+            for (int i = 0; i < params.length; ++i) {
+                block.add(new Instr.Move(params[i], staged.get(i)));
+            }
+            block.add(new Instr.Jump(start));
+        }
+
+        method.computePredecessors();
+        return true;
+    }
+
+    // Follows the call's result through copies and jumps to a return
+    private static boolean isTailCall(Instr.Call call) {
+        Value result = call.getDst();
+        var block = call.getBlock();
+        int index = block.getInstrs().indexOf(call) + 1;
+
+        for (int steps = 0; steps < MAX_PATH; ++steps) {
+            for (var instr : block.getInstrs().subList(index, block.getInstrs().size())) {
+                if (instr instanceof Instr.Move move) {
+                    if (move.getSrc() == result) {
+                        result = move.getDst();
+                    } else if (move.getDst() == result) {
+                        return false;
+                    }
+                } else if (instr instanceof Instr.Return ret) {
+                    return ret.getValue() == result;
+                } else if (instr instanceof Instr.Jump jump) {
+                    block = jump.getTarget();
+                } else {
+                    return false;
+                }
+            }
+            index = 0;
+        }
+
+        return false;
+    }
+}
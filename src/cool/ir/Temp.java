@@ -0,0 +1,29 @@
+package cool.ir;
+
+/**
+ * A virtual register. Each method numbers its temps from 0; the name is only
+ * used when printing.
+ */
+public class Temp extends Value {
+    final int id;
+    final String name;
+
+    Temp(int id, IrType type, String name) {
+        super(type);
+        this.id = id;
+        this.name = name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name == null ? "%" + id : "%" + id + "." + name;
+    }
+}
@@ -0,0 +1,16 @@
+package cool.ir;
+
+/**
+ * An operand of an IR instruction.
+ */
+public abstract class Value {
+    protected final IrType type;
+
+    protected Value(IrType type) {
+        this.type = type;
+    }
+
+    public IrType getType() {
+        return type;
+    }
+}
@@ -0,0 +1,178 @@
+package cool.ir;
+
+import java.util.*;
+
+/**
+ * Dominator-based value numbering on SSA form. A pure instruction whose
+ * operation and operands match one in a dominating position is replaced by
+ * the earlier result.
+ *
+ * Boxing counts as pure: the identity of an Int or Bool object cannot be
+ * observed in COOL, since '=' compares their values. Loads of attributes are
+ * only reused within a block, up to the next call, allocation or store,
+ * which may all change them; stores are forwarded to later loads. Unboxing
+ * a freshly boxed value yields the boxed word.
+ */
+public class ValueNumbering {
+    private final IrMethod method;
+    private final DominatorTree domTree;
+
+    private final Map<Temp, Instr> defs = new HashMap<>();
+    private final Map<List<Object>, Temp> available = new HashMap<>();
+    private final Map<Temp, Value> replacements = new HashMap<>();
+
+    private ValueNumbering(IrMethod method) {
+        this.method = method;
+        this.domTree = new DominatorTree(method);
+
+        for (var block : method.getBlocks()) {
+            for (var instr : block.getInstrs()) {
+                if (instr.getDst() != null) {
+                    defs.put(instr.getDst(), instr);
+                }
+            }
+        }
+    }
+
+    // Returns true if the method changed
+    public static boolean run(IrMethod method) {
+        var valueNumbering = new ValueNumbering(method);
+        valueNumbering.visit(method.getEntry());
+        method.replaceUses(valueNumbering.replacements);
+
+        return !valueNumbering.replacements.isEmpty();
+    }
+
+    private Value resolve(Value value) {
+        while (value instanceof Temp temp && replacements.containsKey(temp)) {
+            value = replacements.get(temp);
+        }
+
+        return value;
+    }
+
+    // The word an immutable load of a value field reads back from a box,
+    // or null if unknown
+    private Value unboxed(Instr.LoadField loadField) {
+        if (!loadField.isImmutable() || loadField.getOffset() != 12
+                || !(resolve(loadField.getOperand(0)) instanceof Temp obj)) {
+            return null;
+        }
+
+        var def = defs.get(obj);
+        if (def instanceof Instr.BoxInt) {
+            return resolve(def.getOperand(0));
+        }
+        // Booleans are boxed from any non-zero word, only 0 and 1 read back unchanged
+        if (def instanceof Instr.BoxBool) {
+            var word = resolve(def.getOperand(0));
+            if (word.equals(Const.ZERO) || word.equals(Const.ONE)
+                    || word instanceof Temp temp && defs.get(temp) instanceof Instr.BinOp binOp
+                    && EnumSet.of(Instr.BinOp.Op.LT, Instr.BinOp.Op.LE, Instr.BinOp.Op.EQ).contains(binOp.getOp())) {
+                return word;
+            }
+        }
+
+        return null;
+    }
+
+    // Null if the instruction cannot be value numbered
+    private List<Object> key(Instr instr) {
+        List<Object> key = new ArrayList<>();
+        if (instr instanceof Instr.BinOp binOp) {
+            key.add(binOp.getOp());
+        } else if (instr instanceof Instr.LoadField loadField && loadField.isImmutable()) {
+            key.add("load");
+            key.add(loadField.getOffset());
+        } else if (instr instanceof Instr.Neg || instr instanceof Instr.BoxInt || instr instanceof Instr.BoxBool
+                || instr instanceof Instr.EqualityTest) {
+            key.add(instr.getClass());
+        } else {
+            return null;
+        }
+
+        for (var operand : instr.getOperands()) {
+            key.add(resolve(operand));
+        }
+
+        return key;
+    }
+
+    private void visit(BasicBlock entry) {
+        // Walk the dominator tree without recursion, undoing the entries a
+        // block added once its subtree is done
+        Deque<Object> worklist = new ArrayDeque<>();
+        worklist.push(entry);
+
+        while (!worklist.isEmpty()) {
+            var item = worklist.pop();
+            if (item instanceof List<?> added) {
+                added.forEach(available::remove);
+                continue;
+            }
+
+            var block = (BasicBlock) item;
+            List<List<Object>> added = new ArrayList<>();
+            visitBlock(block, added);
+
+            worklist.push(added);
+            for (var child : domTree.getChildren(block)) {
+                worklist.push(child);
+            }
+        }
+    }
+
+    private void visitBlock(BasicBlock block, List<List<Object>> added) {
+        // Known attribute values, keyed by object and offset
+        Map<List<Value>, Value> fields = new HashMap<>();
+
+        var it = block.getInstrs().iterator();
+        while (it.hasNext()) {
+            var instr = it.next();
+
+            if (instr instanceof Instr.LoadField loadField && unboxed(loadField) != null) {
+                replacements.put(loadField.getDst(), unboxed(loadField));
+                it.remove();
+                continue;
+            }
+            if (instr instanceof Instr.LoadField loadField && !loadField.isImmutable()) {
+                var field = List.of(resolve(loadField.getOperand(0)), (Value) Const.word(loadField.getOffset()));
+                var known = fields.get(field);
+                if (known != null) {
+                    replacements.put(loadField.getDst(), resolve(known));
+                    it.remove();
+                } else {
+                    fields.put(field, loadField.getDst());
+                }
+                continue;
+            }
+            if (instr instanceof Instr.StoreField storeField) {
+                // Another object might alias the stored one
+                fields.keySet().removeIf(field -> field.get(1).equals(Const.word(storeField.getOffset())));
+                fields.put(List.of(resolve(storeField.getOperand(0)), Const.word(storeField.getOffset())),
+                        storeField.getOperand(1));
+                continue;
+            }
+            if (instr instanceof Instr.Call || instr instanceof Instr.New) {
+                fields.clear();
+                continue;
+            }
+
+            var key = key(instr);
+            if (key == null || instr.getDst() == null) {
+                continue;
+            }
+
+            var existing = available.get(key);
+            if (existing != null) {
+                replacements.put(instr.getDst(), existing);
+                // Division keeps its trap, but a dominating division by the
+                // same value already trapped
+                it.remove();
+            } else {
+                available.put(key, instr.getDst());
+                added.add(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package cool.peephole;
+
+import java.util.*;
+
+/**
+ * One line of emitted assembly: a label, a directive or an instruction with
+ * its operands. Unchanged lines are written back exactly as they were read.
+ */
+public class AsmLine {
+    public enum Kind { LABEL, DIRECTIVE, INSTRUCTION, OTHER }
+
+    // Instructions whose first operand is the only register they write
+    private static final Set<String> WRITES_FIRST = Set.of(
+            "la", "li", "move", "lw", "lb", "lbu", "neg", "not", "sll", "srl", "sra",
+            "add", "addu", "addiu", "sub", "subu", "mul", "div", "rem", "and", "or", "xor",
+            "slt", "sltu", "seq", "sne");
+
+    final Kind kind;
+    final String op;
+    final List<String> operands;
+    final String comment;
+
+    private String text;
+
+    private AsmLine(Kind kind, String op, List<String> operands, String comment, String text) {
+        this.kind = kind;
+        this.op = op;
+        this.operands = operands;
+        this.comment = comment;
+        this.text = text;
+    }
+
+    public static AsmLine parse(String text) {
+        String stripped = text.strip();
+        if (stripped.isEmpty() || stripped.startsWith("#")) {
+            return new AsmLine(Kind.OTHER, null, List.of(), null, text);
+        }
+
+        if (stripped.startsWith(".")) {
+            return new AsmLine(Kind.DIRECTIVE, null, List.of(), null, text);
+        }
+
+        if (stripped.endsWith(":") && !stripped.contains(" ")) {
+            return new AsmLine(Kind.LABEL, stripped.substring(0, stripped.length() - 1), List.of(), null, text);
+        }
+
+        String comment = null;
+        int hash = stripped.indexOf('#');
+        if (hash >= 0) {
+            comment = stripped.substring(hash);
+            stripped = stripped.substring(0, hash).strip();
+        }
+
+        var tokens = stripped.split("[\\s,]+");
+        return new AsmLine(Kind.INSTRUCTION, tokens[0],
+                List.of(Arrays.copyOfRange(tokens, 1, tokens.length)), comment, text);
+    }
+
+    // Builds a new instruction, formatted like the templates
+    public static AsmLine instruction(String op, String... operands) {
+        StringBuilder sb = new StringBuilder("    ").append(op);
+        sb.append(" ".repeat(Math.max(1, 8 - op.length())));
+        sb.append(String.join(" ", operands));
+
+        return new AsmLine(Kind.INSTRUCTION, op, List.of(operands), null, sb.toString());
+    }
+
+    public boolean isInstruction() {
+        return kind == Kind.INSTRUCTION;
+    }
+
+    public boolean isInstruction(String op) {
+        return kind == Kind.INSTRUCTION && this.op.equals(op);
+    }
+
+    public boolean isLabel() {
+        return kind == Kind.LABEL;
+    }
+
+    public String getLabel() {
+        return kind == Kind.LABEL ? op : null;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public String operand(int i) {
+        return operands.get(i);
+    }
+
+    public int operandCount() {
+        return operands.size();
+    }
+
+    // The register written by a simple (side-effect free, non-control)
+    // instruction, or null for anything else
+    public String writtenRegister() {
+        if (kind != Kind.INSTRUCTION || !WRITES_FIRST.contains(op) || operands.isEmpty()) {
+            return null;
+        }
+
+        return operands.get(0);
+    }
+
+    // True if the instruction may read the given register. Calls, jumps and
+    // unknown instructions conservatively read everything.
+    public boolean mayRead(String register) {
+        if (kind != Kind.INSTRUCTION) {
+            return false;
+        }
+
+        if (!WRITES_FIRST.contains(op) && !op.equals("sw") && !op.equals("sb")
+                && !op.startsWith("b")) {
+            return true;
+        }
+
+        int first = WRITES_FIRST.contains(op) ? 1 : 0;
+        for (int i = first; i < operands.size(); ++i) {
+            String operand = operands.get(i);
+            if (operand.equals(register) || operand.endsWith("(" + register + ")")) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
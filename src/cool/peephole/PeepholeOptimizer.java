@@ -0,0 +1,93 @@
+package cool.peephole;
+
+import java.util.*;
+
+/**
+ * Applies a set of {@link PeepholeRule}s to the text section of the emitted
+ * assembly until none of them matches anymore.
+ */
+public class PeepholeOptimizer {
+    private final List<PeepholeRule> rules;
+    private final Map<String, Integer> hits = new LinkedHashMap<>();
+
+    public PeepholeOptimizer() {
+        this(PeepholeRules.defaultRules());
+    }
+
+    public PeepholeOptimizer(List<PeepholeRule> rules) {
+        this.rules = rules;
+        for (var rule : rules) {
+            hits.put(rule.getName(), 0);
+        }
+    }
+
+    public String optimize(String assembly) {
+        List<AsmLine> output = new ArrayList<>();
+        List<AsmLine> text = new ArrayList<>();
+        boolean inText = false;
+
+        for (var rawLine : assembly.split("\n", -1)) {
+            var line = AsmLine.parse(rawLine);
+            String directive = rawLine.strip();
+
+            // Entering another section ends the current text run
+            if (directive.startsWith(".data") || directive.startsWith(".text")) {
+                if (inText) {
+                    output.addAll(optimizeText(text));
+                    text.clear();
+                }
+                inText = directive.startsWith(".text");
+                output.add(line);
+                continue;
+            }
+
+            if (inText) {
+                // Blank lines inside code would only split instruction windows
+                if (line.kind != AsmLine.Kind.OTHER || !rawLine.isBlank()) {
+                    text.add(line);
+                }
+            } else {
+                output.add(line);
+            }
+        }
+        output.addAll(optimizeText(text));
+
+        StringJoiner joiner = new StringJoiner("\n");
+        for (var line : output) {
+            joiner.add(line.toString());
+        }
+
+        return joiner.toString();
+    }
+
+    private List<AsmLine> optimizeText(List<AsmLine> code) {
+        code = new ArrayList<>(code);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < code.size(); ++i) {
+                for (var rule : rules) {
+                    if (rule.apply(code, i)) {
+                        hits.merge(rule.getName(), 1, Integer::sum);
+                        changed = true;
+
+                        // Revisit the previous lines, which may match now
+                        i = Math.max(-1, i - 4);
+                        break;
+                    }
+                }
+            }
+        }
+
+        return code;
+    }
+
+    public Map<String, Integer> getHits() {
+        return hits;
+    }
+
+    public int getTotalHits() {
+        return hits.values().stream().mapToInt(Integer::intValue).sum();
+    }
+}
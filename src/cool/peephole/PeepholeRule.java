@@ -0,0 +1,14 @@
+package cool.peephole;
+
+import java.util.List;
+
+/**
+ * A local rewrite over the text section. Rules look at the lines starting at
+ * a given position and rewrite them in place.
+ */
+public interface PeepholeRule {
+    String getName();
+
+    // Returns true if the code was changed at position i
+    boolean apply(List<AsmLine> code, int i);
+}
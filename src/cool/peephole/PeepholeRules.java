@@ -0,0 +1,241 @@
+package cool.peephole;
+
+import java.util.List;
+
+/**
+ * The default peephole rules. Each one only matches adjacent instructions,
+ * so no label (and hence no incoming jump) can sit between the lines it
+ * rewrites.
+ */
+public class PeepholeRules {
+    public static List<PeepholeRule> defaultRules() {
+        return List.of(
+                new SelfMove(),
+                new MoveBack(),
+                new PushPop(),
+                new StoreLoad(),
+                new DeadWrite(),
+                new StackAdjust(),
+                new BranchToNext());
+    }
+
+    static boolean isInstructionPair(List<AsmLine> code, int i) {
+        return i + 1 < code.size() && code.get(i).isInstruction() && code.get(i + 1).isInstruction();
+    }
+
+    // move $x $x
+    static class SelfMove implements PeepholeRule {
+        public String getName() {
+            return "self-move";
+        }
+
+        public boolean apply(List<AsmLine> code, int i) {
+            var line = code.get(i);
+            if (!line.isInstruction("move") || !line.operand(0).equals(line.operand(1))) {
+                return false;
+            }
+
+            code.remove(i);
+            return true;
+        }
+    }
+
+    // move $x $y; move $y $x  =>  move $x $y
+    static class MoveBack implements PeepholeRule {
+        public String getName() {
+            return "move-back";
+        }
+
+        public boolean apply(List<AsmLine> code, int i) {
+            if (!isInstructionPair(code, i)) {
+                return false;
+            }
+
+            var first = code.get(i);
+            var second = code.get(i + 1);
+            if (!first.isInstruction("move") || !second.isInstruction("move")
+                    || !first.operand(0).equals(second.operand(1))
+                    || !first.operand(1).equals(second.operand(0))) {
+                return false;
+            }
+
+            code.remove(i + 1);
+            return true;
+        }
+    }
+
+    // sw $x 0($sp); addiu $sp $sp -4; <simple>*; lw $y 4($sp); addiu $sp $sp 4
+    //   =>  move $y $x; <simple>*
+    // The instructions in between must leave $sp and $y alone.
+    static class PushPop implements PeepholeRule {
+        static final int MAX_BETWEEN = 4;
+
+        public String getName() {
+            return "push-pop";
+        }
+
+        public boolean apply(List<AsmLine> code, int i) {
+            if (i + 3 >= code.size()) {
+                return false;
+            }
+
+            var push = code.get(i);
+            if (!push.isInstruction("sw") || !push.operand(1).equals("0($sp)")
+                    || !isStackAdjust(code.get(i + 1), -4)) {
+                return false;
+            }
+
+            // Find the matching pop
+            int j = i + 2;
+            while (j < code.size() && j - i - 2 <= MAX_BETWEEN && !isPop(code, j)) {
+                var line = code.get(j);
+                String written = line.writtenRegister();
+                if (written == null || written.equals("$sp") || line.mayRead("$sp")) {
+                    return false;
+                }
+                ++j;
+            }
+
+            if (j - i - 2 > MAX_BETWEEN || !isPop(code, j)) {
+                return false;
+            }
+
+            String target = code.get(j).operand(0);
+            for (int k = i + 2; k < j; ++k) {
+                if (code.get(k).mayRead(target) || target.equals(code.get(k).writtenRegister())) {
+                    return false;
+                }
+            }
+
+            code.subList(j, j + 2).clear();
+            code.subList(i, i + 2).clear();
+            code.add(i, AsmLine.instruction("move", target, push.operand(0)));
+            return true;
+        }
+
+        private static boolean isPop(List<AsmLine> code, int j) {
+            return j + 1 < code.size() && code.get(j).isInstruction("lw")
+                    && code.get(j).operand(1).equals("4($sp)") && isStackAdjust(code.get(j + 1), 4);
+        }
+    }
+
+    // sw $x off($b); lw $y off($b)  =>  sw $x off($b); move $y $x
+    static class StoreLoad implements PeepholeRule {
+        public String getName() {
+            return "store-load";
+        }
+
+        public boolean apply(List<AsmLine> code, int i) {
+            if (!isInstructionPair(code, i)) {
+                return false;
+            }
+
+            var store = code.get(i);
+            var load = code.get(i + 1);
+            if (!store.isInstruction("sw") || !load.isInstruction("lw")
+                    || !store.operand(1).equals(load.operand(1))) {
+                return false;
+            }
+
+            code.set(i + 1, AsmLine.instruction("move", load.operand(0), store.operand(0)));
+            return true;
+        }
+    }
+
+    // A write to a register that the next instruction overwrites without reading
+    static class DeadWrite implements PeepholeRule {
+        public String getName() {
+            return "dead-write";
+        }
+
+        public boolean apply(List<AsmLine> code, int i) {
+            if (!isInstructionPair(code, i)) {
+                return false;
+            }
+
+            var first = code.get(i);
+            var second = code.get(i + 1);
+            String register = first.writtenRegister();
+            if (register == null || register.equals("$sp") || !cannotFault(first)
+                    || !register.equals(second.writtenRegister()) || second.mayRead(register)) {
+                return false;
+            }
+
+            code.remove(i);
+            return true;
+        }
+    }
+
+    // addiu $sp $sp a; addiu $sp $sp b  =>  addiu $sp $sp a+b, dropped when zero
+    static class StackAdjust implements PeepholeRule {
+        public String getName() {
+            return "stack-adjust";
+        }
+
+        public boolean apply(List<AsmLine> code, int i) {
+            var first = code.get(i);
+            if (!isStackAdjust(first, null)) {
+                return false;
+            }
+
+            int amount = Integer.parseInt(first.operand(2));
+            if (amount == 0) {
+                code.remove(i);
+                return true;
+            }
+
+            if (i + 1 < code.size() && isStackAdjust(code.get(i + 1), null)) {
+                amount += Integer.parseInt(code.get(i + 1).operand(2));
+                code.subList(i, i + 2).clear();
+                if (amount != 0) {
+                    code.add(i, AsmLine.instruction("addiu", "$sp", "$sp", String.valueOf(amount)));
+                }
+                return true;
+            }
+
+            return false;
+        }
+    }
+
+    // b L; L:  =>  L:
+    static class BranchToNext implements PeepholeRule {
+        public String getName() {
+            return "branch-to-next";
+        }
+
+        public boolean apply(List<AsmLine> code, int i) {
+            var branch = code.get(i);
+            if (!branch.isInstruction("b")) {
+                return false;
+            }
+
+            for (int j = i + 1; j < code.size() && code.get(j).isLabel(); ++j) {
+                if (code.get(j).getLabel().equals(branch.operand(0))) {
+                    code.remove(i);
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    // Division and signed arithmetic may trap, the latter on overflow, and
+    // loads may touch bad addresses, except for the frame, stack and self slots
+    static boolean cannotFault(AsmLine line) {
+        return switch (line.getOp()) {
+            case "div", "rem", "add", "addi", "sub", "neg" -> false;
+            case "lw", "lb", "lbu" -> line.operand(1).endsWith("($fp)") || line.operand(1).endsWith("($sp)")
+                    || line.operand(1).endsWith("($s0)");
+            default -> true;
+        };
+    }
+
+    static boolean isStackAdjust(AsmLine line, Integer amount) {
+        if (!line.isInstruction("addiu") || !line.operand(0).equals("$sp") || !line.operand(1).equals("$sp")) {
+            return false;
+        }
+
+        return amount == null || Integer.parseInt(line.operand(2)) == amount;
+    }
+}
@@ -0,0 +1,86 @@
+package cool.profiler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * The counters written by a program compiled with -profile to the file
+ * named after its source file, with the extension .profile: a "#profile"
+ * line followed by one "<count> <kind> <name>" line per counter. The kinds
+ * are
+ *
+ *   method <class>.<method>             entries into the method
+ *   new <class> <site>                  objects allocated at the site
+ *   dispatch <method> <site>            calls made at the site
+ *   receiver <method> <site> <class>    calls made at the site on objects of the class
+ *   then <site>, else <site>            branches of an if taken
+ *   branch <class> <site>               branches of a case taken
+ *   icmiss <method> <site>              misses of the inline cache of the dispatch
+ *
+ * where a site is the file, line and column of the expression.
+ */
+public class Profile {
+    static final String HEADER = "#profile";
+
+    public record Counter(long count, String kind, String name) {}
+
+    private final List<Counter> counters;
+    private final Map<String, Long> counts = new HashMap<>();
+
+    // Receiver classes of every dispatch site, by "<method> <site>"
+    private final Map<String, Map<String, Long>> receivers = new HashMap<>();
+
+    private Profile(List<Counter> counters) {
+        this.counters = counters;
+        for (var counter : counters) {
+            counts.merge(counter.kind() + " " + counter.name(), counter.count(), Long::sum);
+
+            if (counter.kind().equals("receiver")) {
+                int sep = counter.name().lastIndexOf(' ');
+                receivers.computeIfAbsent(counter.name().substring(0, sep), k -> new LinkedHashMap<>())
+                        .merge(counter.name().substring(sep + 1), counter.count(), Long::sum);
+            }
+        }
+    }
+
+    public static Profile read(Path path) throws IOException {
+        return parse(Files.readString(path, StandardCharsets.ISO_8859_1));
+    }
+
+    // The counters after the profile header, in the order they were written;
+    // they end at the first line that is not a counter
+    public static Profile parse(String output) {
+        if (!output.startsWith(HEADER + "\n")) {
+            throw new IllegalArgumentException("No profile found; was the program compiled with -profile?");
+        }
+
+        List<Counter> counters = new ArrayList<>();
+        for (var line : output.substring(HEADER.length() + 1).split("\n")) {
+            var fields = line.split(" ", 3);
+            if (fields.length < 3 || !fields[0].matches("\\d+")) {
+                break;
+            }
+            counters.add(new Counter(Long.parseLong(fields[0]), fields[1], fields[2]));
+        }
+
+        return new Profile(counters);
+    }
+
+    public List<Counter> getCounters() {
+        return counters;
+    }
+
+    // The count of the counter with the given kind and name, -1 if the
+    // profile has no such counter
+    public long count(String kind, String name) {
+        return counts.getOrDefault(kind + " " + name, -1L);
+    }
+
+    // Calls made at the dispatch site, by the class of the receiver
+    public Map<String, Long> receivers(String method, String site) {
+        return receivers.getOrDefault(method + " " + site, Map.of());
+    }
+}
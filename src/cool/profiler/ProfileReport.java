@@ -0,0 +1,96 @@
+package cool.profiler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Turns the counters written by a program compiled with -profile into a
+ * report, with one section per kind of counter; see Profile for the kinds.
+ *
+ * Usage: java cool.profiler.ProfileReport [-top=<n>] [profile file]
+ * The profile is read from stdin when no file is given.
+ */
+public class ProfileReport {
+    static final List<String> KINDS = List.of("method", "new", "dispatch", "receiver", "then", "else", "branch");
+
+    public static void main(String[] args) throws IOException {
+        int top = Integer.MAX_VALUE;
+        String fileName = null;
+        for (var arg : args) {
+            if (arg.startsWith("-top=")) {
+                top = Integer.parseInt(arg.substring("-top=".length()));
+            } else {
+                fileName = arg;
+            }
+        }
+
+        var profile = fileName == null
+                ? new String(System.in.readAllBytes(), StandardCharsets.ISO_8859_1)
+                : Files.readString(Path.of(fileName), StandardCharsets.ISO_8859_1);
+
+        List<Profile.Counter> counters;
+        try {
+            counters = Profile.parse(profile).getCounters();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+
+        System.out.print(report(counters, top));
+    }
+
+    // One section per kind of counter, hottest first, leaving out the sites
+    // that never ran
+    static String report(List<Profile.Counter> counters, int top) {
+        Map<String, List<Profile.Counter>> byKind = new LinkedHashMap<>();
+        for (var kind : KINDS) {
+            byKind.put(kind, new ArrayList<>());
+        }
+        for (var counter : counters) {
+            byKind.computeIfAbsent(counter.kind(), k -> new ArrayList<>()).add(counter);
+        }
+
+        var sb = new StringBuilder();
+        for (var entry : byKind.entrySet()) {
+            var kindCounters = entry.getValue();
+            long total = 0;
+            for (var counter : kindCounters) {
+                total += counter.count();
+            }
+
+            sb.append(entry.getKey()).append(": ").append(total).append(" total\n");
+            kindCounters.sort(Comparator.comparingLong(Profile.Counter::count).reversed());
+
+            int shown = 0;
+            for (var counter : kindCounters) {
+                if (counter.count() == 0 || shown++ == top) {
+                    break;
+                }
+                sb.append(String.format("%12d %6.2f%%  %s%n", counter.count(),
+                        100.0 * counter.count() / total, counter.name()));
+            }
+            sb.append('\n');
+        }
+
+        // The dispatches through inline caches, against their misses
+        if (byKind.containsKey("icmiss")) {
+            Map<String, Long> dispatches = new HashMap<>();
+            for (var counter : byKind.get("dispatch")) {
+                dispatches.put(counter.name(), counter.count());
+            }
+
+            long calls = 0, misses = 0;
+            for (var counter : byKind.get("icmiss")) {
+                calls += dispatches.getOrDefault(counter.name(), 0L);
+                misses += counter.count();
+            }
+            sb.append(String.format("inline caches: %d calls, %d misses, %.2f%% hits%n", calls, misses,
+                    calls == 0 ? 0.0 : 100.0 * (calls - misses) / calls));
+        }
+
+        return sb.toString();
+    }
+}
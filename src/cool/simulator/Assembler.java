@@ -0,0 +1,389 @@
+package cool.simulator;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+/**
+ * Translates the assembly text produced by the compiler into an {@link Image}:
+ * decoded text segment, initialized data segment and symbol table. It also
+ * reads trap.handler.nogc: constants defined with "name=value", the
+ * two-operand forms of arithmetic instructions, and kernel segments, which
+ * are skipped.
+ */
+public class Assembler {
+    public static final int TEXT_BASE = 0x00400000;
+    public static final int DATA_BASE = 0x10010000;
+
+    private static final Map<String, Integer> REGISTERS = new HashMap<>();
+    static {
+        String[] names = {
+                "zero", "at", "v0", "v1", "a0", "a1", "a2", "a3",
+                "t0", "t1", "t2", "t3", "t4", "t5", "t6", "t7",
+                "s0", "s1", "s2", "s3", "s4", "s5", "s6", "s7",
+                "t8", "t9", "k0", "k1", "gp", "sp", "fp", "ra"
+        };
+        for (int i = 0; i < names.length; ++i) {
+            REGISTERS.put("$" + names[i], i);
+            REGISTERS.put("$" + i, i);
+        }
+        REGISTERS.put("$s8", 30);
+    }
+
+    private final List<Instruction> text = new ArrayList<>();
+    private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+    private final Map<String, Integer> labels = new HashMap<>();
+    private final List<Image.Fixup> fixups = new ArrayList<>();
+    private final Map<String, Integer> constants = new HashMap<>();
+
+    private boolean inText = true;
+
+    // Inside .ktext or .kdata, whose code the simulator does not run
+    private boolean inKernel = false;
+
+    public static Image assemble(String source) {
+        var assembler = new Assembler();
+        int lineNo = 1;
+        for (var line : splitLogicalLines(source)) {
+            assembler.parseLine(line, lineNo);
+            lineNo += (int) line.chars().filter(c -> c == '\n').count() + 1;
+        }
+
+        return assembler.finish();
+    }
+
+    public static int register(String name) {
+        Integer reg = REGISTERS.get(name);
+        if (reg == null) {
+            throw new SimulatorException("Unknown register " + name);
+        }
+
+        return reg;
+    }
+
+    // Splits the source into lines, dropping comments and keeping the line
+    // breaks that appear inside string literals
+    private static List<String> splitLogicalLines(String source) {
+        List<String> lines = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        boolean inString = false, inComment = false;
+        for (int i = 0; i < source.length(); ++i) {
+            char c = source.charAt(i);
+            if (inComment) {
+                if (c == '\n') {
+                    inComment = false;
+                    lines.add(sb.toString());
+                    sb.setLength(0);
+                }
+                continue;
+            }
+
+            if (inString) {
+                sb.append(c);
+                if (c == '\\' && i + 1 < source.length()) {
+                    sb.append(source.charAt(++i));
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '#' -> inComment = true;
+                case '"' -> {
+                    inString = true;
+                    sb.append(c);
+                }
+                case '\n' -> {
+                    lines.add(sb.toString());
+                    sb.setLength(0);
+                }
+                case '\r' -> { }
+                default -> sb.append(c);
+            }
+        }
+        lines.add(sb.toString());
+
+        return lines;
+    }
+
+    private void parseLine(String line, int lineNo) {
+        String rest = line.strip();
+
+        // Leading labels
+        while (true) {
+            int colon = labelEnd(rest);
+            if (colon < 0) {
+                break;
+            }
+
+            defineLabel(rest.substring(0, colon), lineNo);
+            rest = rest.substring(colon + 1).strip();
+        }
+
+        if (rest.isEmpty()) {
+            return;
+        }
+
+        if (inKernel && !rest.startsWith(".text") && !rest.startsWith(".data")) {
+            return;
+        }
+
+        int equals = rest.indexOf('=');
+        if (equals > 0 && !rest.startsWith(".")) {
+            constants.put(rest.substring(0, equals).strip(), parseNumber(rest.substring(equals + 1).strip()));
+            return;
+        }
+
+        if (rest.startsWith(".")) {
+            parseDirective(rest, lineNo);
+        } else {
+            parseInstruction(rest, lineNo);
+        }
+    }
+
+    private static int labelEnd(String s) {
+        int i = 0;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '$') {
+                ++i;
+                continue;
+            }
+            break;
+        }
+
+        return (i > 0 && i < s.length() && s.charAt(i) == ':') ? i : -1;
+    }
+
+    private void defineLabel(String name, int lineNo) {
+        if (labels.containsKey(name)) {
+            throw new SimulatorException("Label " + name + " defined twice (line " + lineNo + ")");
+        }
+
+        labels.put(name, inText ? TEXT_BASE + 4 * text.size() : DATA_BASE + data.size());
+    }
+
+    private void parseDirective(String s, int lineNo) {
+        int sep = indexOfWhitespace(s);
+        String directive = sep < 0 ? s : s.substring(0, sep);
+        String args = sep < 0 ? "" : s.substring(sep).strip();
+
+        switch (directive) {
+            case ".data" -> {
+                inText = false;
+                inKernel = false;
+            }
+            case ".text" -> {
+                inText = true;
+                inKernel = false;
+            }
+            case ".ktext", ".kdata" -> inKernel = true;
+            case ".globl", ".extern", ".set" -> { }
+            case ".align" -> {
+                int alignment = 1 << Integer.parseInt(args);
+                while (data.size() % alignment != 0) {
+                    data.write(0);
+                }
+            }
+            case ".word" -> {
+                while (data.size() % 4 != 0) {
+                    data.write(0);
+                }
+                for (var value : args.split("[\\s,]+")) {
+                    if (isNumber(value)) {
+                        writeWord(parseNumber(value));
+                    } else {
+                        fixups.add(new Image.Fixup(data.size(), value, lineNo));
+                        writeWord(0);
+                    }
+                }
+            }
+            case ".half" -> {
+                while (data.size() % 2 != 0) {
+                    data.write(0);
+                }
+                for (var value : args.split("[\\s,]+")) {
+                    int half = parseNumber(value);
+                    data.write(half);
+                    data.write(half >> 8);
+                }
+            }
+            case ".byte" -> {
+                for (var value : args.split("[\\s,]+")) {
+                    data.write(parseNumber(value));
+                }
+            }
+            case ".space" -> {
+                int n = parseNumber(args);
+                for (int i = 0; i < n; ++i) {
+                    data.write(0);
+                }
+            }
+            case ".ascii", ".asciiz" -> {
+                byte[] bytes = parseString(args, lineNo);
+                data.write(bytes, 0, bytes.length);
+                if (directive.equals(".asciiz")) {
+                    data.write(0);
+                }
+            }
+            default -> throw new SimulatorException("Unknown directive " + directive + " (line " + lineNo + ")");
+        }
+    }
+
+    private static byte[] parseString(String s, int lineNo) {
+        if (!s.startsWith("\"") || !s.endsWith("\"") || s.length() < 2) {
+            throw new SimulatorException("Malformed string (line " + lineNo + ")");
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 1; i < s.length() - 1; ++i) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length() - 1) {
+                c = s.charAt(++i);
+                switch (c) {
+                    case 'n' -> c = '\n';
+                    case 't' -> c = '\t';
+                    case '0' -> c = '\0';
+                    default -> { }
+                }
+            }
+            out.write((byte) c);
+        }
+
+        return out.toByteArray();
+    }
+
+    private void writeWord(int value) {
+        data.write(value);
+        data.write(value >> 8);
+        data.write(value >> 16);
+        data.write(value >> 24);
+    }
+
+    private void parseInstruction(String s, int lineNo) {
+        String[] tokens = s.split("[\\s,]+");
+        Instruction.Op op;
+        try {
+            op = Instruction.Op.valueOf(tokens[0].toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new SimulatorException("Unknown instruction " + tokens[0] + " (line " + lineNo + ")");
+        }
+
+        var insn = new Instruction(op, lineNo);
+        switch (op) {
+            case ADD, ADDU, ADDI, ADDIU, SUB, SUBU, MUL, DIV, REM, AND, OR, XOR, NOR, SLT, SLTU, SEQ, SNE,
+                 ANDI, ORI, XORI, SLTI,
+                 SLLV, SRLV, SRAV -> {
+                insn.rd = register(tokens[1]);
+                // "add $t1 4" stands for "add $t1 $t1 4"
+                insn.rs = tokens.length == 3 ? insn.rd : register(tokens[2]);
+                thirdOperand(insn, tokens[tokens.length - 1]);
+            }
+            case SLL, SRL, SRA -> {
+                insn.rd = register(tokens[1]);
+                insn.rs = register(tokens[2]);
+                insn.imm = parseNumber(tokens[3]);
+                insn.hasImm = true;
+            }
+            case NEG, NOT, MOVE -> {
+                insn.rd = register(tokens[1]);
+                insn.rs = register(tokens[2]);
+            }
+            case LI, LUI -> {
+                insn.rd = register(tokens[1]);
+                insn.imm = parseNumber(tokens[2]);
+            }
+            case LA -> {
+                insn.rd = register(tokens[1]);
+                addressOperand(insn, tokens[2]);
+            }
+            case LW, SW, LB, LBU, SB -> {
+                insn.rt = register(tokens[1]);
+                addressOperand(insn, tokens[2]);
+            }
+            case B, J, JAL -> insn.label = tokens[1];
+            case JALR, JR -> insn.rs = register(tokens[1]);
+            case BEQ, BNE, BLT, BLE, BGT, BGE, BLTU, BGEU -> {
+                insn.rs = register(tokens[1]);
+                thirdOperand(insn, tokens[2]);
+                insn.label = tokens[3];
+            }
+            case BEQZ, BNEZ, BLTZ, BLEZ, BGTZ, BGEZ -> {
+                insn.rs = register(tokens[1]);
+                insn.label = tokens[2];
+            }
+            case SYSCALL, NOP -> { }
+        }
+
+        if (!inText) {
+            throw new SimulatorException("Instruction outside .text (line " + lineNo + ")");
+        }
+        text.add(insn);
+    }
+
+    private void thirdOperand(Instruction insn, String token) {
+        if (token.startsWith("$")) {
+            insn.rt = register(token);
+        } else {
+            insn.imm = parseNumber(token);
+            insn.hasImm = true;
+        }
+    }
+
+    // Accepts "off($reg)", "($reg)", "label", "label+off" and plain numbers
+    private void addressOperand(Instruction insn, String token) {
+        int paren = token.indexOf('(');
+        if (paren >= 0) {
+            insn.rs = register(token.substring(paren + 1, token.length() - 1));
+            insn.imm = paren == 0 ? 0 : parseNumber(token.substring(0, paren));
+            return;
+        }
+
+        if (isNumber(token) || constants.containsKey(token)) {
+            insn.imm = parseNumber(token);
+            return;
+        }
+
+        int plus = token.indexOf('+');
+        if (plus > 0) {
+            insn.label = token.substring(0, plus);
+            insn.imm = parseNumber(token.substring(plus + 1));
+        } else {
+            insn.label = token;
+        }
+    }
+
+    private static boolean isNumber(String s) {
+        return !s.isEmpty() && (Character.isDigit(s.charAt(0)) || s.charAt(0) == '-');
+    }
+
+    private int parseNumber(String s) {
+        var constant = constants.get(s);
+        if (constant != null) {
+            return constant;
+        }
+
+        try {
+            if (s.startsWith("0x") || s.startsWith("0X")) {
+                return (int) Long.parseLong(s.substring(2), 16);
+            }
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new SimulatorException("Malformed number " + s);
+        }
+    }
+
+    private static int indexOfWhitespace(String s) {
+        for (int i = 0; i < s.length(); ++i) {
+            if (Character.isWhitespace(s.charAt(i))) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private Image finish() {
+        return new Image(text, data.toByteArray(), labels, fixups);
+    }
+}
@@ -0,0 +1,696 @@
+package cool.simulator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Java implementation of the COOL runtime routines normally provided by
+ * trap.handler.nogc, plus the spim system calls used by emitted code.
+ * Programs compiled with -compact-headers, which set _compact_headers,
+ * get objects whose first word holds both the tag, in its low half, and
+ * the size; they have no dispatch table pointer. Programs compiled with
+ * -ropes, which point _ropes to Rope_protObj, concatenate strings into
+ * ropes as the runtime does, and programs compiled with -buffered-io,
+ * which set _io_buffered, have their output collected in a buffer. When
+ * the program is assembled together with trap.handler.nogc, no routine is
+ * native and only the system calls are served here.
+ */
+public class CoolRuntime {
+    // Thrown to stop the simulation once the program exits or aborts
+    static class Halt extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Halt() {
+            super(null, null, false, false);
+        }
+    }
+
+    static final int TAG = 0, SIZE = 4, DISP_TAB = 8, FIRST_ATTRIBUTE = 12;
+    static final int STR_LEN = 12, STR_HASH = 16, STR_CHARS = 20;
+
+    // Offsets in the program's object layout
+    private boolean compactHeaders;
+    private int firstAttribute = FIRST_ATTRIBUTE;
+    private int strLen = STR_LEN, strHash = STR_HASH, strChars = STR_CHARS;
+
+    // The string constants, which are all different, lie between the two
+    private int strConstsBegin, strConstsEnd;
+
+    // Rope_protObj when concat builds ropes, 0 otherwise
+    private int ropeProto;
+
+    // The output of out_string and out_int not written yet, when buffered
+    static final int IO_BUFFER_SIZE = 4096;
+    private boolean ioBuffered;
+    private final StringBuilder ioBuffer = new StringBuilder();
+
+    // Bytes trap.handler.nogc reads a string into, and spim reads an integer
+    // from, the terminating null included
+    static final int IN_STRING_SIZE = 1026;
+    static final int READ_INT_SIZE = 256;
+
+    // Room the data segment has past the program's data before the first
+    // sbrk, so that the runtime's heap does not grow right away
+    static final int INITIAL_HEAP = 4 << 20;
+
+    // Routines whose labels are bound to native implementations
+    private final Map<String, Runnable> routines = new LinkedHashMap<>();
+
+    // Whether trap.handler.nogc was assembled with the program
+    private final boolean mipsRuntime;
+
+    private final PrintStream out;
+
+    // Files opened for writing by the program, by descriptor
+    private final Map<Integer, OutputStream> files = new HashMap<>();
+    private int nextFd = 3;
+    private final BufferedReader in;
+
+    private Machine machine;
+    private Memory memory;
+    private int[] regs;
+
+    // Allocation statistics
+    long allocations;
+    long allocatedBytes;
+
+    public CoolRuntime(InputStream in, PrintStream out) {
+        this(in, out, false);
+    }
+
+    public CoolRuntime(InputStream in, PrintStream out, boolean mipsRuntime) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.ISO_8859_1));
+        this.out = out;
+        this.mipsRuntime = mipsRuntime;
+        if (mipsRuntime) {
+            return;
+        }
+
+        routines.put("Object.copy", this::objectCopy);
+        routines.put("Object.abort", this::objectAbort);
+        routines.put("Object.type_name", this::objectTypeName);
+        routines.put("IO.out_string", this::ioOutString);
+        routines.put("IO.out_int", this::ioOutInt);
+        routines.put("IO.in_string", this::ioInString);
+        routines.put("IO.in_int", this::ioInInt);
+        routines.put("String.length", this::stringLength);
+        routines.put("String.concat", this::stringConcat);
+        routines.put("String.substr", this::stringSubstr);
+        routines.put("equality_test", this::equalityTest);
+        routines.put("_dispatch_abort", this::dispatchAbort);
+        routines.put("_case_abort", this::caseAbort);
+        routines.put("_case_abort2", this::caseAbort2);
+        routines.put("_rope_flatten", () -> regs[Machine.A0] = flatten(regs[Machine.A0]));
+        routines.put("_io_flush", this::flushOutput);
+    }
+
+    Set<String> routineNames() {
+        return routines.keySet();
+    }
+
+    void attach(Machine machine) {
+        this.machine = machine;
+        this.memory = machine.memory;
+        this.regs = machine.regs;
+
+        if (mipsRuntime) {
+            memory.allocate(INITIAL_HEAP);
+        }
+
+        compactHeaders = machine.hasLabel("_compact_headers")
+                && memory.loadWord(machine.label("_compact_headers")) != 0;
+        if (compactHeaders) {
+            firstAttribute = 4;
+            strLen = 4;
+            strHash = 8;
+            strChars = 12;
+        }
+        if (machine.hasLabel("_str_consts_begin")) {
+            strConstsBegin = machine.label("_str_consts_begin");
+            strConstsEnd = machine.label("_str_consts_end");
+        }
+        ropeProto = machine.hasLabel("_ropes") ? memory.loadWord(machine.label("_ropes")) : 0;
+        ioBuffered = machine.hasLabel("_io_buffered") && memory.loadWord(machine.label("_io_buffered")) != 0;
+    }
+
+    void invoke(String name) {
+        routines.get(name).run();
+    }
+
+    public long getAllocations() {
+        return allocations;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    // Mirrors the runtime's __start: build Main, initialize it and call main
+    public void start() {
+        try {
+            if (mipsRuntime) {
+                machine.call(machine.label("__start"));
+                return;
+            }
+
+            regs[Machine.A0] = machine.label("Main_protObj");
+            objectCopy();
+            machine.call(machine.label("Main_init"));
+            machine.call(machine.label("Main.main"));
+            flushOutput();
+            out.print("COOL program successfully executed\n");
+        } catch (Halt ignored) {
+        } finally {
+            out.flush();
+            for (var file : files.values()) {
+                try {
+                    file.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    //// Object
+
+    private void objectCopy() {
+        objectCopyOf(regs[Machine.A0]);
+    }
+
+    private void objectCopyOf(int obj) {
+        int words = sizeOf(obj);
+        if (words <= 0) {
+            abort("Invalid object size.\n");
+        }
+
+        int copy = allocate(words * 4);
+        for (int i = 0; i < words; ++i) {
+            memory.storeWord(copy + 4 * i, memory.loadWord(obj + 4 * i));
+        }
+
+        regs[Machine.A0] = copy;
+    }
+
+    private void objectAbort() {
+        abort("Abort called from class " + className(regs[Machine.A0]) + "\n");
+    }
+
+    private void objectTypeName() {
+        regs[Machine.A0] = classNameObject(regs[Machine.A0]);
+    }
+
+    //// IO
+
+    private void ioOutString() {
+        print(readString(popArg()));
+    }
+
+    private void ioOutInt() {
+        print(Integer.toString(memory.loadWord(popArg() + firstAttribute)));
+    }
+
+    // Mirrors _io_append, which writes the buffer after each newline and
+    // whenever it fills up
+    private void print(String s) {
+        if (!ioBuffered) {
+            out.print(s);
+            return;
+        }
+
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            ioBuffer.append(c);
+            if (c == '\n' || ioBuffer.length() == IO_BUFFER_SIZE) {
+                flushOutput();
+            }
+        }
+    }
+
+    private void flushOutput() {
+        out.print(ioBuffer);
+        ioBuffer.setLength(0);
+    }
+
+    // Like trap.handler.nogc, through read_string: a longer line is cut, the
+    // rest of it read next, and nothing read at the end of the input is a
+    // newline
+    private void ioInString() {
+        flushOutput();
+        out.flush();
+        String line = readInput(IN_STRING_SIZE);
+        if (line.isEmpty()) {
+            line = "\n";
+        } else if (line.endsWith("\n")) {
+            line = line.substring(0, line.length() - 1);
+        }
+        regs[Machine.A0] = newString(line);
+    }
+
+    private void ioInInt() {
+        flushOutput();
+        out.flush();
+        regs[Machine.A0] = newInt(parseInt(readInput(READ_INT_SIZE)));
+    }
+
+    //// String
+
+    private void stringLength() {
+        regs[Machine.A0] = memory.loadWord(regs[Machine.A0] + strLen);
+    }
+
+    private void stringConcat() {
+        int other = popArg();
+        if (ropeProto == 0) {
+            regs[Machine.A0] = newString(readString(regs[Machine.A0]) + readString(other));
+            return;
+        }
+
+        // A rope of both strings, unless one is empty
+        int self = regs[Machine.A0];
+        int selfLength = lengthOf(self), otherLength = lengthOf(other);
+        if (otherLength == 0) {
+            return;
+        }
+        if (selfLength == 0) {
+            regs[Machine.A0] = other;
+            return;
+        }
+
+        int length = newInt(selfLength + otherLength);
+        regs[Machine.A0] = self;
+        objectCopyOf(ropeProto);
+        int rope = regs[Machine.A0];
+        memory.storeWord(rope + strLen, length);
+        memory.storeWord(rope + strChars, self);
+        memory.storeWord(rope + strChars + 4, other);
+    }
+
+    private void stringSubstr() {
+        int index = memory.loadWord(popArg() + firstAttribute);
+        int length = memory.loadWord(popArg() + firstAttribute);
+        String str = readString(regs[Machine.A0]);
+        if (index < 0) {
+            abort("Index to substr is negative\nExecution aborted.\n");
+        }
+        if (index > str.length()) {
+            abort("Index to substr is too big\nExecution aborted.\n");
+        }
+        if (length < 0) {
+            abort("Length to substr is negative\nExecution aborted.\n");
+        }
+        if (index + length > str.length()) {
+            abort("Length to substr too long\nExecution aborted.\n");
+        }
+
+        regs[Machine.A0] = newString(str.substring(index, index + length));
+    }
+
+    //// Helpers called by generated code
+
+    // $t1 and $t2 hold the objects, $a0 the true value, $a1 the false value
+    private void equalityTest() {
+        int a = regs[9], b = regs[10];
+        boolean equal = false;
+        if (a != 0 && b != 0 && tagOf(a) == tagOf(b)) {
+            int tag = tagOf(a);
+            if (tag == tagOf("_int_tag") || tag == tagOf("_bool_tag")) {
+                equal = memory.loadWord(a + firstAttribute) == memory.loadWord(b + firstAttribute);
+            } else if (tag == tagOf("_string_tag")) {
+                equal = stringsEqual(flatten(a), flatten(b));
+            }
+        }
+
+        if (!equal) {
+            regs[Machine.A0] = regs[Machine.A1];
+        }
+    }
+
+    // Like the runtime's equality_test, only compares the characters of
+    // strings whose lengths, first characters and hashes are the same and
+    // that are not two different constants
+    private boolean stringsEqual(int a, int b) {
+        if (a == b) {
+            return true;
+        }
+
+        int length = lengthOf(a);
+        if (length != lengthOf(b)) {
+            return false;
+        }
+        if (length == 0) {
+            return true;
+        }
+        if (memory.loadByte(a + strChars) != memory.loadByte(b + strChars)
+                || (isStrConst(a) && isStrConst(b)) || hashOf(a) != hashOf(b)) {
+            return false;
+        }
+
+        return readString(a).equals(readString(b));
+    }
+
+    private boolean isStrConst(int str) {
+        return Integer.compareUnsigned(str, strConstsBegin) >= 0 && Integer.compareUnsigned(str, strConstsEnd) < 0;
+    }
+
+    // Like the runtime's _string_hash, computes the hash of a flat string
+    // the first time it is needed and keeps it in the object
+    private int hashOf(int str) {
+        int hash = memory.loadWord(str + strHash);
+        if (hash != 0) {
+            return hash;
+        }
+
+        int length = lengthOf(str);
+        for (int i = 0; i < length; ++i) {
+            hash = 31 * hash + (memory.loadByte(str + strChars + i) & 0xff);
+        }
+        hash |= 1;
+        memory.storeWord(str + strHash, hash);
+
+        return hash;
+    }
+
+    // $a0 holds the file name, $t1 the line number
+    private void dispatchAbort() {
+        abort(readString(regs[Machine.A0]) + ":" + regs[9] + ": Dispatch to void.\n");
+    }
+
+    private void caseAbort() {
+        abort("No match in case statement for Class " + className(regs[Machine.A0]) + "\n");
+    }
+
+    private void caseAbort2() {
+        abort(readString(regs[Machine.A0]) + ":" + regs[9] + ": Match on void in case statement.\n");
+    }
+
+    //// Exceptions
+
+    // The names printed by the exception handler of trap.handler.nogc
+    private static final String[] EXCEPTIONS = {
+        "  [Interrupt] ", "", "", "",
+        "  [Unaligned address in inst/data fetch] ",
+        "  [Unaligned address in store] ",
+        "  [Bad address in text read] ",
+        "  [Bad address in data/stack read] ",
+        "  [Error in syscall] ",
+        "  [Breakpoint/Division by 0] ",
+        "  [Reserved instruction] ",
+        "",
+        "  [Arithmetic overflow] ",
+    };
+
+    // Mirrors the exception handler, which writes the buffered output,
+    // reports the cause and exits
+    void exception(int code) {
+        if (mipsRuntime) {
+            machine.call(machine.label("_io_flush"));
+        }
+        abort("  Exception " + code + EXCEPTIONS[code] + " Execution aborted\n");
+    }
+
+    //// System calls
+
+    void syscall() {
+        switch (regs[Machine.V0]) {
+            case 1 -> out.print(regs[Machine.A0]);
+            case 4 -> out.print(readCString(regs[Machine.A0]));
+            case 5 -> {
+                flushOutput();
+                out.flush();
+                regs[Machine.V0] = parseInt(readInput(READ_INT_SIZE));
+            }
+            case 8 -> {
+                flushOutput();
+                out.flush();
+                int max = regs[Machine.A1];
+                String line = readInput(max);
+                for (int i = 0; i < line.length(); ++i) {
+                    memory.storeByte(regs[Machine.A0] + i, line.charAt(i));
+                }
+                if (max > 0) {
+                    memory.storeByte(regs[Machine.A0] + line.length(), 0);
+                }
+            }
+            case 9 -> regs[Machine.V0] = allocate(regs[Machine.A0]);
+            case 14 -> {
+                // read(fd, buffer, length); only standard input is supported
+                if (regs[Machine.A0] != 0) {
+                    throw new SimulatorException("Unsupported file descriptor " + regs[Machine.A0]);
+                }
+                flushOutput();
+                out.flush();
+                char[] chars = new char[Math.max(0, regs[Machine.A2])];
+                int n;
+                try {
+                    n = chars.length == 0 ? 0 : in.read(chars, 0, chars.length);
+                } catch (IOException e) {
+                    n = -1;
+                }
+                for (int i = 0; i < n; ++i) {
+                    memory.storeByte(regs[Machine.A1] + i, chars[i]);
+                }
+                regs[Machine.V0] = Math.max(n, 0);
+            }
+            case 13 -> regs[Machine.V0] = open(readCString(regs[Machine.A0]), regs[Machine.A1]);
+            case 15 -> regs[Machine.V0] = write(regs[Machine.A0], regs[Machine.A1], regs[Machine.A2]);
+            case 16 -> {
+                var file = files.remove(regs[Machine.A0]);
+                try {
+                    if (file != null) {
+                        file.close();
+                    }
+                } catch (IOException ignored) {
+                }
+            }
+            case 10, 17 -> {
+                flushOutput();
+                out.flush();
+                throw new Halt();
+            }
+            case 11 -> out.print((char) (regs[Machine.A0] & 0xff));
+            default -> throw new SimulatorException("Unsupported syscall " + regs[Machine.V0]);
+        }
+    }
+
+    // open(path, flags) with the flags of Linux; only files opened for
+    // writing are supported, which are created or truncated
+    private int open(String path, int flags) {
+        if ((flags & 3) == 0) {
+            throw new SimulatorException("Unsupported open flags " + flags);
+        }
+
+        try {
+            files.put(nextFd, new BufferedOutputStream(new FileOutputStream(path, (flags & 0x400) != 0)));
+        } catch (IOException e) {
+            return -1;
+        }
+
+        return nextFd++;
+    }
+
+    private int write(int fd, int buffer, int length) {
+        OutputStream file = fd == 1 ? out : files.get(fd);
+        if (file == null) {
+            return -1;
+        }
+
+        try {
+            for (int i = 0; i < length; ++i) {
+                file.write(memory.loadByte(buffer + i));
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+
+        return length;
+    }
+
+    //// Object model
+
+    private int allocate(int bytes) {
+        ++allocations;
+        allocatedBytes += bytes;
+        return memory.allocate(bytes);
+    }
+
+    private int popArg() {
+        regs[Machine.SP] += 4;
+        return memory.loadWord(regs[Machine.SP]);
+    }
+
+    private int tagOf(String label) {
+        return memory.loadWord(machine.label(label));
+    }
+
+    private int tagOf(int obj) {
+        int word = memory.loadWord(obj + TAG);
+        return compactHeaders ? word & 0xffff : word;
+    }
+
+    private int sizeOf(int obj) {
+        return compactHeaders ? memory.loadWord(obj + TAG) >>> 16 : memory.loadWord(obj + SIZE);
+    }
+
+    // Like the runtime's _box_int, takes the object from int_cache when the
+    // program has one covering the value
+    public int newInt(int value) {
+        if (machine.hasLabel("_int_cache_size")) {
+            int index = value - memory.loadWord(machine.label("_int_cache_low"));
+            if (Integer.compareUnsigned(index, memory.loadWord(machine.label("_int_cache_size"))) < 0) {
+                return machine.label("int_cache") + index * (firstAttribute + 4);
+            }
+        }
+
+        int proto = machine.label("Int_protObj");
+        int words = sizeOf(proto);
+        int obj = allocate(words * 4);
+        for (int i = 0; i < words; ++i) {
+            memory.storeWord(obj + 4 * i, memory.loadWord(proto + 4 * i));
+        }
+        memory.storeWord(obj + firstAttribute, value);
+
+        return obj;
+    }
+
+    public int newString(String str) {
+        int proto = machine.label("String_protObj");
+        int words = strChars / 4 + (str.length() + 4) / 4;
+        if (compactHeaders && words > 0xffff) {
+            abort("String too long for compact object headers\n");
+        }
+
+        int obj = allocate(words * 4);
+        if (compactHeaders) {
+            memory.storeWord(obj + TAG, words << 16 | tagOf(proto));
+        } else {
+            memory.storeWord(obj + TAG, memory.loadWord(proto + TAG));
+            memory.storeWord(obj + SIZE, words);
+            memory.storeWord(obj + DISP_TAB, memory.loadWord(proto + DISP_TAB));
+        }
+        memory.storeWord(obj + strLen, newInt(str.length()));
+        memory.storeWord(obj + strHash, 0);
+        for (int i = 0; i < str.length(); ++i) {
+            memory.storeByte(obj + strChars + i, str.charAt(i));
+        }
+        memory.storeByte(obj + strChars + str.length(), 0);
+
+        return obj;
+    }
+
+    private int lengthOf(int str) {
+        return memory.loadWord(memory.loadWord(str + strLen) + firstAttribute);
+    }
+
+    private boolean isRope(int str) {
+        return ropeProto != 0 && memory.loadWord(str + DISP_TAB) == memory.loadWord(ropeProto + DISP_TAB);
+    }
+
+    // Like the runtime's _rope_flatten, copies a rope into a String of its
+    // own the first time and keeps that String in the rope
+    private int flatten(int str) {
+        if (!isRope(str)) {
+            return str;
+        }
+        if (memory.loadWord(str + strChars + 4) == 0) {
+            return memory.loadWord(str + strChars);
+        }
+
+        // The parts are read from the right end, leaving the left parts
+        // still to read on a stack
+        StringBuilder reversed = new StringBuilder(lengthOf(str));
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(str);
+        while (!pending.isEmpty()) {
+            int part = pending.pop();
+            while (isRope(part) && memory.loadWord(part + strChars + 4) != 0) {
+                pending.push(memory.loadWord(part + strChars));
+                part = memory.loadWord(part + strChars + 4);
+            }
+            if (isRope(part)) {
+                part = memory.loadWord(part + strChars);
+            }
+            reversed.append(new StringBuilder(readString(part)).reverse());
+        }
+
+        int flat = newString(reversed.reverse().toString());
+        memory.storeWord(str + strChars, flat);
+        memory.storeWord(str + strChars + 4, 0);
+
+        return flat;
+    }
+
+    public String readString(int obj) {
+        obj = flatten(obj);
+        int length = lengthOf(obj);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; ++i) {
+            sb.append((char) (memory.loadByte(obj + strChars + i) & 0xff));
+        }
+
+        return sb.toString();
+    }
+
+    private String readCString(int address) {
+        StringBuilder sb = new StringBuilder();
+        for (int c; (c = memory.loadByte(address) & 0xff) != 0; ++address) {
+            sb.append((char) c);
+        }
+
+        return sb.toString();
+    }
+
+    private int classNameObject(int obj) {
+        return memory.loadWord(machine.label("class_nameTab") + 4 * tagOf(obj));
+    }
+
+    private String className(int obj) {
+        return readString(classNameObject(obj));
+    }
+
+    // Reads like spim's read_input: up to size - 1 characters, stopping after
+    // a newline, so that the rest of a longer line is left for the next read
+    private String readInput(int size) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            for (int c; sb.length() < size - 1 && (c = in.read()) >= 0; ) {
+                sb.append((char) c);
+                if (c == '\n') {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            // Read as the end of the input
+        }
+
+        return sb.toString();
+    }
+
+    // Like spim and the bulk input routine, accept a leading integer, wrapping
+    // around when it does not fit in a word, and ignore the rest of the line
+    private static int parseInt(String line) {
+        int i = 0;
+        while (i < line.length() && line.charAt(i) <= ' ') {
+            ++i;
+        }
+
+        boolean negative = i < line.length() && line.charAt(i) == '-';
+        if (i < line.length() && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+            ++i;
+        }
+
+        int value = 0;
+        for (; i < line.length() && line.charAt(i) >= '0' && line.charAt(i) <= '9'; ++i) {
+            value = value * 10 + (line.charAt(i) - '0');
+        }
+
+        return negative ? -value : value;
+    }
+
+    private void abort(String message) {
+        flushOutput();
+        out.print(message);
+        out.flush();
+        throw new Halt();
+    }
+}
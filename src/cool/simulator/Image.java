@@ -0,0 +1,70 @@
+package cool.simulator;
+
+import java.util.*;
+
+/**
+ * Assembled program: decoded instructions, initial data segment and labels.
+ * Symbols the program references but does not define (the runtime routines)
+ * are bound by {@link #link(Map)}.
+ */
+public class Image {
+    // A data word whose value is the address of a label
+    public record Fixup(int offset, String label, int line) {}
+
+    final List<Instruction> text;
+    final byte[] data;
+    final Map<String, Integer> labels;
+    final List<Fixup> fixups;
+
+    Image(List<Instruction> text, byte[] data, Map<String, Integer> labels, List<Fixup> fixups) {
+        this.text = text;
+        this.data = data;
+        this.labels = labels;
+        this.fixups = fixups;
+    }
+
+    public Integer lookup(String label) {
+        return labels.get(label);
+    }
+
+    public int textSize() {
+        return text.size();
+    }
+
+    // Resolves every symbolic operand, falling back to the given external
+    // symbols. Fails on symbols that are defined nowhere.
+    void link(Map<String, Integer> externals) {
+        Set<String> undefined = new TreeSet<>();
+        for (var insn : text) {
+            if (insn.label != null) {
+                Integer address = resolve(insn.label, externals);
+                if (address == null) {
+                    undefined.add(insn.label);
+                    continue;
+                }
+                insn.target = address;
+            }
+        }
+
+        for (var fixup : fixups) {
+            Integer address = resolve(fixup.label(), externals);
+            if (address == null) {
+                undefined.add(fixup.label());
+                continue;
+            }
+            data[fixup.offset()] = (byte) (int) address;
+            data[fixup.offset() + 1] = (byte) (address >> 8);
+            data[fixup.offset() + 2] = (byte) (address >> 16);
+            data[fixup.offset() + 3] = (byte) (address >> 24);
+        }
+
+        if (!undefined.isEmpty()) {
+            throw new SimulatorException("Undefined symbols: " + String.join(", ", undefined));
+        }
+    }
+
+    private Integer resolve(String label, Map<String, Integer> externals) {
+        Integer address = labels.get(label);
+        return address != null ? address : externals.get(label);
+    }
+}
@@ -0,0 +1,45 @@
+package cool.simulator;
+
+/**
+ * A decoded instruction of the MIPS subset emitted by the compiler.
+ */
+public class Instruction {
+    public enum Op {
+        ADD, ADDU, ADDI, ADDIU, SUB, SUBU, MUL, DIV, REM,
+        ANDI, ORI, XORI, SLTI,
+        AND, OR, XOR, NOR, SLT, SLTU, SEQ, SNE,
+        SLL, SRL, SRA, SLLV, SRLV, SRAV,
+        NEG, NOT, MOVE, LI, LA, LUI,
+        LW, SW, LB, LBU, SB,
+        B, J, JAL, JALR, JR,
+        BEQ, BNE, BLT, BLE, BGT, BGE, BLTU, BGEU,
+        BEQZ, BNEZ, BLTZ, BLEZ, BGTZ, BGEZ,
+        SYSCALL, NOP
+    }
+
+    final Op op;
+
+    // Register operands, -1 when absent
+    int rd = -1, rs = -1, rt = -1;
+
+    // Immediate operand, used when rt is absent for three-operand forms
+    int imm;
+    boolean hasImm;
+
+    // Symbolic operand, resolved to an address after all labels are known
+    String label;
+    int target;
+
+    // Source line, for error messages
+    final int line;
+
+    Instruction(Op op, int line) {
+        this.op = op;
+        this.line = line;
+    }
+
+    @Override
+    public String toString() {
+        return op.name().toLowerCase() + " (line " + line + ")";
+    }
+}
@@ -0,0 +1,275 @@
+package cool.simulator;
+
+import java.util.*;
+
+/**
+ * Executes an assembled {@link Image}. Jumps to the addresses of runtime
+ * routines are served by {@link CoolRuntime} instead of MIPS code. Like
+ * spim, add, addi, sub and neg raise an exception on overflow and div and
+ * rem raise one on a zero divisor.
+ */
+public class Machine {
+    public static final int SP = 29, FP = 30, RA = 31, A0 = 4, A1 = 5, A2 = 6, V0 = 2;
+
+    // Return address used for calls made by the simulator itself
+    static final int HOST_RETURN = 0x00200000;
+    static final int NATIVE_BASE = 0x00300000;
+
+    // Value written into caller-saved registers after a runtime routine, so
+    // that code relying on them being preserved fails visibly
+    static final int POISON = 0xdead0000;
+
+    // Exception codes of the Cause register
+    static final int BREAKPOINT = 9, ARITHMETIC_OVERFLOW = 12;
+
+    final int[] regs = new int[32];
+    final Memory memory;
+    final Image image;
+    final CoolRuntime runtime;
+
+    private final Instruction[] text;
+    private final List<String> nativeNames;
+
+    // Counters
+    long instructions;
+    long cycles;
+    long branchesTaken;
+    long loads, stores;
+    final Map<String, Long> nativeCalls = new TreeMap<>();
+
+    private long instructionLimit = Long.MAX_VALUE;
+
+    public Machine(Image image, CoolRuntime runtime) {
+        this.image = image;
+        this.runtime = runtime;
+        this.text = image.text.toArray(new Instruction[0]);
+
+        // Bind the runtime routines the program does not define itself
+        this.nativeNames = new ArrayList<>(runtime.routineNames());
+        Map<String, Integer> externals = new HashMap<>();
+        for (int i = 0; i < nativeNames.size(); ++i) {
+            externals.put(nativeNames.get(i), NATIVE_BASE + 4 * i);
+        }
+        image.link(externals);
+
+        this.memory = new Memory(image.data);
+        regs[SP] = Memory.INITIAL_SP;
+        runtime.attach(this);
+    }
+
+    public void setInstructionLimit(long instructionLimit) {
+        this.instructionLimit = instructionLimit;
+    }
+
+    public long getInstructions() {
+        return instructions;
+    }
+
+    public long getCycles() {
+        return cycles;
+    }
+
+    public long getBranchesTaken() {
+        return branchesTaken;
+    }
+
+    public long getLoads() {
+        return loads;
+    }
+
+    public long getStores() {
+        return stores;
+    }
+
+    public Map<String, Long> getNativeCalls() {
+        return nativeCalls;
+    }
+
+    public Memory getMemory() {
+        return memory;
+    }
+
+    public int label(String name) {
+        Integer address = image.lookup(name);
+        if (address == null) {
+            throw new SimulatorException("Undefined symbol " + name);
+        }
+
+        return address;
+    }
+
+    public boolean hasLabel(String name) {
+        return image.lookup(name) != null;
+    }
+
+    // Calls the routine at the given address and runs until it returns
+    public void call(int address) {
+        regs[RA] = HOST_RETURN;
+        int pc = address;
+        while (pc != HOST_RETURN) {
+            pc = step(pc);
+            if (instructions > instructionLimit) {
+                throw new SimulatorException("Instruction limit of " + instructionLimit + " reached");
+            }
+        }
+    }
+
+    private int step(int pc) {
+        int index = (pc - Assembler.TEXT_BASE) >> 2;
+        if (index < 0 || index >= text.length) {
+            return callNative(pc);
+        }
+
+        var insn = text[index];
+        int[] r = regs;
+        int next = pc + 4;
+        ++instructions;
+        ++cycles;
+
+        switch (insn.op) {
+            case ADDU, ADDIU -> r[insn.rd] = r[insn.rs] + third(insn);
+            case SUBU -> r[insn.rd] = r[insn.rs] - third(insn);
+            case ADD, ADDI -> {
+                try {
+                    r[insn.rd] = Math.addExact(r[insn.rs], third(insn));
+                } catch (ArithmeticException e) {
+                    runtime.exception(ARITHMETIC_OVERFLOW);
+                }
+            }
+            case SUB -> {
+                try {
+                    r[insn.rd] = Math.subtractExact(r[insn.rs], third(insn));
+                } catch (ArithmeticException e) {
+                    runtime.exception(ARITHMETIC_OVERFLOW);
+                }
+            }
+            case MUL -> {
+                r[insn.rd] = r[insn.rs] * third(insn);
+                cycles += 3;
+            }
+            case DIV, REM -> {
+                // spim expands both into a check that breaks on a zero divisor
+                int divisor = third(insn);
+                if (divisor == 0) {
+                    runtime.exception(BREAKPOINT);
+                }
+                r[insn.rd] = insn.op == Instruction.Op.DIV ? r[insn.rs] / divisor : r[insn.rs] % divisor;
+                cycles += 34;
+            }
+            case AND, ANDI -> r[insn.rd] = r[insn.rs] & third(insn);
+            case OR, ORI -> r[insn.rd] = r[insn.rs] | third(insn);
+            case XOR, XORI -> r[insn.rd] = r[insn.rs] ^ third(insn);
+            case NOR -> r[insn.rd] = ~(r[insn.rs] | third(insn));
+            case SLT, SLTI -> r[insn.rd] = r[insn.rs] < third(insn) ? 1 : 0;
+            case SLTU -> r[insn.rd] = Integer.compareUnsigned(r[insn.rs], third(insn)) < 0 ? 1 : 0;
+            case SEQ -> r[insn.rd] = r[insn.rs] == third(insn) ? 1 : 0;
+            case SNE -> r[insn.rd] = r[insn.rs] != third(insn) ? 1 : 0;
+            case SLL -> r[insn.rd] = r[insn.rs] << insn.imm;
+            case SRL -> r[insn.rd] = r[insn.rs] >>> insn.imm;
+            case SRA -> r[insn.rd] = r[insn.rs] >> insn.imm;
+            case SLLV -> r[insn.rd] = r[insn.rs] << third(insn);
+            case SRLV -> r[insn.rd] = r[insn.rs] >>> third(insn);
+            case SRAV -> r[insn.rd] = r[insn.rs] >> third(insn);
+            case NEG -> {
+                // spim expands neg into a sub from $zero
+                if (r[insn.rs] == Integer.MIN_VALUE) {
+                    runtime.exception(ARITHMETIC_OVERFLOW);
+                }
+                r[insn.rd] = -r[insn.rs];
+            }
+            case NOT -> r[insn.rd] = ~r[insn.rs];
+            case MOVE -> r[insn.rd] = r[insn.rs];
+            case LI -> r[insn.rd] = insn.imm;
+            case LUI -> r[insn.rd] = insn.imm << 16;
+            case LA -> r[insn.rd] = address(insn);
+            case LW -> {
+                r[insn.rt] = memory.loadWord(address(insn));
+                ++loads;
+            }
+            case LB -> {
+                r[insn.rt] = memory.loadByte(address(insn));
+                ++loads;
+            }
+            case LBU -> {
+                r[insn.rt] = memory.loadByte(address(insn)) & 0xff;
+                ++loads;
+            }
+            case SW -> {
+                memory.storeWord(address(insn), r[insn.rt]);
+                ++stores;
+            }
+            case SB -> {
+                memory.storeByte(address(insn), r[insn.rt]);
+                ++stores;
+            }
+            case B, J -> next = taken(insn.target);
+            case JAL -> {
+                r[RA] = pc + 4;
+                next = taken(insn.target);
+            }
+            case JALR -> {
+                int target = r[insn.rs];
+                r[RA] = pc + 4;
+                next = taken(target);
+            }
+            case JR -> next = taken(r[insn.rs]);
+            case BEQ -> next = r[insn.rs] == third(insn) ? taken(insn.target) : next;
+            case BNE -> next = r[insn.rs] != third(insn) ? taken(insn.target) : next;
+            case BLT -> next = r[insn.rs] < third(insn) ? taken(insn.target) : next;
+            case BLE -> next = r[insn.rs] <= third(insn) ? taken(insn.target) : next;
+            case BGT -> next = r[insn.rs] > third(insn) ? taken(insn.target) : next;
+            case BGE -> next = r[insn.rs] >= third(insn) ? taken(insn.target) : next;
+            case BLTU -> next = Integer.compareUnsigned(r[insn.rs], third(insn)) < 0 ? taken(insn.target) : next;
+            case BGEU -> next = Integer.compareUnsigned(r[insn.rs], third(insn)) >= 0 ? taken(insn.target) : next;
+            case BEQZ -> next = r[insn.rs] == 0 ? taken(insn.target) : next;
+            case BNEZ -> next = r[insn.rs] != 0 ? taken(insn.target) : next;
+            case BLTZ -> next = r[insn.rs] < 0 ? taken(insn.target) : next;
+            case BLEZ -> next = r[insn.rs] <= 0 ? taken(insn.target) : next;
+            case BGTZ -> next = r[insn.rs] > 0 ? taken(insn.target) : next;
+            case BGEZ -> next = r[insn.rs] >= 0 ? taken(insn.target) : next;
+            case SYSCALL -> runtime.syscall();
+            case NOP -> { }
+        }
+
+        r[0] = 0;
+        return next;
+    }
+
+    private int third(Instruction insn) {
+        return insn.hasImm ? insn.imm : regs[insn.rt];
+    }
+
+    private int address(Instruction insn) {
+        if (insn.label != null) {
+            return insn.target + insn.imm;
+        }
+
+        return (insn.rs >= 0 ? regs[insn.rs] : 0) + insn.imm;
+    }
+
+    private int taken(int target) {
+        ++branchesTaken;
+        ++cycles;
+        return target;
+    }
+
+    private int callNative(int pc) {
+        int index = (pc - NATIVE_BASE) >> 2;
+        if (pc < NATIVE_BASE || index >= nativeNames.size()) {
+            throw new SimulatorException(String.format("Jump to bad address: 0x%08x", pc));
+        }
+
+        String name = nativeNames.get(index);
+        nativeCalls.merge(name, 1L, Long::sum);
+
+        int returnAddress = regs[RA];
+        runtime.invoke(name);
+
+        // Runtime routines only preserve $s registers, $fp, $sp and $ra
+        for (int reg : new int[] {1, 2, 3, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 24, 25}) {
+            regs[reg] = POISON | reg;
+        }
+
+        return returnAddress;
+    }
+}
@@ -0,0 +1,86 @@
+package cool.simulator;
+
+import java.util.Arrays;
+
+/**
+ * Little-endian memory with a growable data/heap segment starting at
+ * {@link Assembler#DATA_BASE} and a fixed-size stack growing down from
+ * {@link #STACK_TOP}.
+ */
+public class Memory {
+    public static final int STACK_TOP = 0x7ffffffc;
+    public static final int INITIAL_SP = 0x7fffeffc;
+    static final int STACK_SIZE = 16 << 20;
+    static final int STACK_BASE = STACK_TOP + 4 - STACK_SIZE;
+
+    private byte[] heap;
+    private int heapEnd;
+    private final byte[] stack = new byte[STACK_SIZE];
+
+    Memory(byte[] data) {
+        heap = Arrays.copyOf(data, Math.max(1 << 16, data.length * 2));
+        heapEnd = (data.length + 3) & ~3;
+    }
+
+    // Returns the address of a fresh zeroed block of the given byte size
+    public int allocate(int bytes) {
+        int address = Assembler.DATA_BASE + heapEnd;
+        heapEnd += (bytes + 3) & ~3;
+        if (heapEnd > heap.length) {
+            heap = Arrays.copyOf(heap, Math.max(heapEnd, heap.length * 2));
+        }
+
+        return address;
+    }
+
+    public int heapUsed() {
+        return heapEnd;
+    }
+
+    public int loadWord(int address) {
+        if ((address & 3) != 0) {
+            throw new SimulatorException(String.format("Unaligned address in load: 0x%08x", address));
+        }
+
+        byte[] segment = segment(address);
+        int i = offset(address);
+        return (segment[i] & 0xff) | (segment[i + 1] & 0xff) << 8
+                | (segment[i + 2] & 0xff) << 16 | (segment[i + 3] & 0xff) << 24;
+    }
+
+    public void storeWord(int address, int value) {
+        if ((address & 3) != 0) {
+            throw new SimulatorException(String.format("Unaligned address in store: 0x%08x", address));
+        }
+
+        byte[] segment = segment(address);
+        int i = offset(address);
+        segment[i] = (byte) value;
+        segment[i + 1] = (byte) (value >> 8);
+        segment[i + 2] = (byte) (value >> 16);
+        segment[i + 3] = (byte) (value >> 24);
+    }
+
+    public int loadByte(int address) {
+        return segment(address)[offset(address)];
+    }
+
+    public void storeByte(int address, int value) {
+        segment(address)[offset(address)] = (byte) value;
+    }
+
+    private byte[] segment(int address) {
+        if (address >= STACK_BASE && address <= STACK_TOP + 3) {
+            return stack;
+        }
+        if (address >= Assembler.DATA_BASE && address - Assembler.DATA_BASE < heapEnd) {
+            return heap;
+        }
+
+        throw new SimulatorException(String.format("Bad address: 0x%08x", address));
+    }
+
+    private static int offset(int address) {
+        return address >= STACK_BASE ? address - STACK_BASE : address - Assembler.DATA_BASE;
+    }
+}
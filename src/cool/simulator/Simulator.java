@@ -0,0 +1,83 @@
+package cool.simulator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs compiled COOL programs without spim. The runtime routines of
+ * trap.handler.nogc are implemented in Java by CoolRuntime, unless
+ * -runtime names a runtime to assemble with the program, and the program's
+ * output is what spim prints after its banner.
+ *
+ * Usage: java cool.simulator.Simulator [-stats] [-limit=<instructions>] [-runtime=trap.handler.nogc] file.s
+ */
+public class Simulator {
+    public static void main(String[] args) throws IOException {
+        boolean stats = false;
+        long limit = Long.MAX_VALUE;
+        String runtime = null;
+        String fileName = null;
+        for (var arg : args) {
+            if (arg.equals("-stats")) {
+                stats = true;
+            } else if (arg.startsWith("-limit=")) {
+                limit = Long.parseLong(arg.substring("-limit=".length()));
+            } else if (arg.startsWith("-runtime=")) {
+                runtime = Files.readString(Path.of(arg.substring("-runtime=".length())), StandardCharsets.ISO_8859_1);
+            } else {
+                fileName = arg;
+            }
+        }
+
+        if (fileName == null) {
+            System.err.println("No file given");
+            return;
+        }
+
+        var out = new PrintStream(new FileOutputStream(FileDescriptor.out), false);
+        try {
+            var result = run(runtime, Files.readString(Path.of(fileName), StandardCharsets.ISO_8859_1), System.in, out,
+                    limit);
+            if (stats) {
+                System.err.println(result);
+            }
+        } catch (SimulatorException e) {
+            out.flush();
+            System.err.println("Simulation error: " + e.getMessage());
+        }
+    }
+
+    public record Result(long instructions, long cycles, long branchesTaken, long loads, long stores,
+                         long allocations, long allocatedBytes) {
+        @Override
+        public String toString() {
+            return "instructions: " + instructions + "\ncycles: " + cycles
+                    + "\nbranches taken: " + branchesTaken + "\nloads: " + loads + "\nstores: " + stores
+                    + "\nallocations: " + allocations + "\nallocated bytes: " + allocatedBytes;
+        }
+    }
+
+    public static Result run(String source, InputStream in, PrintStream out) {
+        return run(source, in, out, Long.MAX_VALUE);
+    }
+
+    // Fails once the program has run the given number of instructions
+    public static Result run(String source, InputStream in, PrintStream out, long limit) {
+        return run(null, source, in, out, limit);
+    }
+
+    // The runtime's source, when given, is assembled before the program, so
+    // that heap_start stays the last label of the data
+    public static Result run(String runtimeSource, String source, InputStream in, PrintStream out, long limit) {
+        var image = Assembler.assemble(runtimeSource == null ? source : runtimeSource + "\n" + source);
+        var runtime = new CoolRuntime(in, out, runtimeSource != null);
+        var machine = new Machine(image, runtime);
+        machine.setInstructionLimit(limit);
+        runtime.start();
+
+        return new Result(machine.getInstructions(), machine.getCycles(), machine.getBranchesTaken(),
+                machine.getLoads(), machine.getStores(), runtime.getAllocations(), runtime.getAllocatedBytes());
+    }
+}
@@ -0,0 +1,9 @@
+package cool.simulator;
+
+public class SimulatorException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public SimulatorException(String message) {
+        super(message);
+    }
+}
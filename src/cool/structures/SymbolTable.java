@@ -1,16 +1,28 @@
 package cool.structures;
 
 import java.io.File;
+import java.io.PrintStream;
+import java.util.List;
 
 import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.tree.ParseTreeProperty;
 
-import cool.compiler.Compiler;
 import cool.parser.CoolParser;
 
+/**
+ * The global scope and the basic classes of one compilation, owned by its
+ * CompilationContext. The basic classes are defined anew for each
+ * compilation, since code generation sets their tags.
+ */
 public class SymbolTable {
-    public static Scope globals;
+    public final Scope globals = new DefaultScope(null);
     
-    private static boolean semanticErrors;
+    private boolean semanticErrors;
+
+    // The files the classes come from and the stream errors are printed to,
+    // both belonging to the owning context
+    private final ParseTreeProperty<String> fileNames;
+    private final PrintStream err;
 
     public static final String OBJECT_STR = "Object";
     public static final String IO_STR = "IO";
@@ -19,17 +31,20 @@ public class SymbolTable {
     public static final String BOOL_STR = "Bool";
     public static final String SELF_TYPE_STR = "SELF_TYPE";
 
-    public static final TypeSymbol OBJECT = new TypeSymbol(OBJECT_STR);
-    public static final TypeSymbol IO = new TypeSymbol(IO_STR, OBJECT);
-    public static final TypeSymbol INT = new TypeSymbol(INT_STR, OBJECT);
-    public static final TypeSymbol STRING = new TypeSymbol(STRING_STR, OBJECT);
-    public static final TypeSymbol BOOL = new TypeSymbol(BOOL_STR, OBJECT);
-    public static final TypeSymbol SELF_TYPE = new TypeSymbol(SELF_TYPE_STR, OBJECT);
+    public final TypeSymbol OBJECT = new TypeSymbol(OBJECT_STR);
+    public final TypeSymbol IO = new TypeSymbol(IO_STR, OBJECT);
+    public final TypeSymbol INT = new TypeSymbol(INT_STR, OBJECT);
+    public final TypeSymbol STRING = new TypeSymbol(STRING_STR, OBJECT);
+    public final TypeSymbol BOOL = new TypeSymbol(BOOL_STR, OBJECT);
+    public final TypeSymbol SELF_TYPE = new TypeSymbol(SELF_TYPE_STR, OBJECT);
+
+    public SymbolTable(ParseTreeProperty<String> fileNames, PrintStream err) {
+        this.fileNames = fileNames;
+        this.err = err;
+        defineBasicClasses();
+    }
 
-    public static void defineBasicClasses() {
-        globals = new DefaultScope(null);
-        semanticErrors = false;
-        
+    private void defineBasicClasses() {
         // Populate global scope.
         // Create the classes' methods
         // Object
@@ -131,7 +146,7 @@ public class SymbolTable {
         globals.add(SELF_TYPE);
     }
 
-    public static void resetMaxTags() {
+    public void resetMaxTags() {
         OBJECT.setMaxTagForce(4);
         IO.setMaxTagForce(1);
         INT.setMaxTagForce(2);
@@ -147,29 +162,40 @@ public class SymbolTable {
      * @param info Used for line and column information.
      * @param str The error message.
      */
-    public static void error(ParserRuleContext ctx, Token info, String str) {
+    public void error(ParserRuleContext ctx, Token info, String str) {
+        report(errorMessage(ctx, info, str));
+    }
+    
+    public void error(String str) {
+        report(errorMessage(str));
+    }
+
+    // The messages error would print, for checks that report them later
+    public String errorMessage(ParserRuleContext ctx, Token info, String str) {
         while (! (ctx.getParent() instanceof CoolParser.ProgramContext))
             ctx = ctx.getParent();
         
-        String message = "\"" + new File(Compiler.fileNames.get(ctx)).getName()
+        return "\"" + new File(fileNames.get(ctx)).getName()
                 + "\", line " + info.getLine()
                 + ":" + (info.getCharPositionInLine() + 1)
                 + ", Semantic error: " + str;
-        
-        System.err.println(message);
-        
-        semanticErrors = true;
     }
-    
-    public static void error(String str) {
-        String message = "Semantic error: " + str;
-        
-        System.err.println(message);
-        
+
+    public String errorMessage(String str) {
+        return "Semantic error: " + str;
+    }
+
+    public void report(String message) {
+        err.println(message);
+
         semanticErrors = true;
     }
+
+    public void reportErrors(List<String> messages) {
+        messages.forEach(this::report);
+    }
     
-    public static boolean hasSemanticErrors() {
+    public boolean hasSemanticErrors() {
         return semanticErrors;
     }
 }
@@ -0,0 +1,44 @@
+package cool.tester;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import cool.simulator.Simulator;
+import cool.simulator.SimulatorException;
+
+// The simulator in cool.simulator, run in this JVM, with its Java runtime or
+// with the given runtime source
+public class BuiltinBackend implements SimulatorBackend {
+    // Stops programs that do not end
+    static final long INSTRUCTION_LIMIT = 1_000_000_000L;
+
+    private final String runtime;
+
+    public BuiltinBackend() {
+        this.runtime = null;
+    }
+
+    public BuiltinBackend(Path runtime) throws IOException {
+        this.runtime = Files.readString(runtime, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String run(Path program, String input) throws IOException {
+        var buffer = new ByteArrayOutputStream();
+        var out = new PrintStream(buffer, false, StandardCharsets.ISO_8859_1);
+        try {
+            Simulator.run(runtime, Files.readString(program, StandardCharsets.ISO_8859_1),
+                    new ByteArrayInputStream(input.getBytes(StandardCharsets.ISO_8859_1)), out, INSTRUCTION_LIMIT);
+        } catch (SimulatorException e) {
+            out.flush();
+            return buffer.toString(StandardCharsets.ISO_8859_1) + "Simulation error: " + e.getMessage() + "\n";
+        }
+
+        return buffer.toString(StandardCharsets.ISO_8859_1);
+    }
+}
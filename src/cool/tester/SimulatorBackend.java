@@ -0,0 +1,22 @@
+package cool.tester;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Runs a compiled program and returns what it printed. Backends must allow
+ * several programs to run at the same time.
+ */
+public interface SimulatorBackend {
+    String run(Path program, String input) throws IOException, InterruptedException;
+
+    static SimulatorBackend named(String name) throws IOException {
+        return switch (name) {
+            case "builtin" -> new BuiltinBackend();
+            // The built-in simulator running trap.handler.nogc, as spim does
+            case "handler" -> new BuiltinBackend(Path.of("trap.handler.nogc"));
+            case "spim" -> new SpimBackend();
+            default -> throw new IllegalArgumentException("Unknown simulator " + name);
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package cool.tester;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// The spim binary on the PATH, with the runtime in trap.handler.nogc
+public class SpimBackend implements SimulatorBackend {
+    static final long TIMEOUT_SECONDS = 60;
+
+    @Override
+    public String run(Path program, String input) throws IOException, InterruptedException {
+        // Written to a file, so that a program that does not stop cannot
+        // block the runner on a full pipe
+        var outFile = Files.createTempFile("spim", ".out");
+        try {
+            var process = new ProcessBuilder("spim", "-exception_file", "trap.handler.nogc", "-file", program.toString())
+                    .redirectErrorStream(true)
+                    .redirectOutput(outFile.toFile())
+                    .start();
+
+            try (var stdin = process.getOutputStream()) {
+                stdin.write(input.getBytes());
+            }
+
+            if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("spim timed out on " + program);
+            }
+
+            return Files.readString(outFile);
+        } finally {
+            Files.delete(outFile);
+        }
+    }
+}
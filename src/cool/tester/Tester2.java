@@ -4,13 +4,18 @@ import java.io.*;
 import java.util.Arrays;
 import java.util.HashSet;
 
+import cool.compiler.CompilationContext;
 import cool.compiler.Compiler;
+import cool.compiler.CompilerOptions;
 
 public class Tester2 {
     // java -cp "bin;lib/antlr-4.8-complete.jar;%CLASSPATH%" cool.tester.Tester2
+    // With -j<n>, every program is also checked on n threads, and must get
+    // the same errors, in the same order, as when checked on one
     public static void main(String[] args) throws IOException {
         final String TEST_DIR_NAME = "tests/tema2";
         var testDir = new File(TEST_DIR_NAME);
+        var threadsArg = args.length > 0 && args[0].startsWith("-j") ? args[0] : null;
         
         var filenameFilter = new FilenameFilter() {
             public boolean accept(File dir, String name) {
@@ -35,6 +40,9 @@ public class Tester2 {
             
             oldOut.printf("%-30s -> ", file.getName());
             var result = compare(outPath, inPath.replace(".cl", ".ref"), oldOut);
+            if (threadsArg != null) {
+                result &= compareThreads(inPath, TEST_DIR_NAME + "/main.cl", threadsArg, oldOut);
+            }
             if (result)
                 total += 5;
             
@@ -47,6 +55,29 @@ public class Tester2 {
         System.setErr(oldErr);
     }
     
+    private static String errors(String... args) throws IOException {
+        var buffer = new ByteArrayOutputStream();
+        var out = new PrintStream(buffer, false, "UTF-8");
+        var context = new CompilationContext(CompilerOptions.parse(args), out, out);
+        Compiler.compile(context);
+        out.flush();
+
+        return buffer.toString("UTF-8");
+    }
+
+    public static boolean compareThreads(String inPath, String mainPath, String threadsArg, PrintStream oldOut)
+            throws IOException {
+        var sequential = errors(inPath, mainPath);
+        var parallel = errors(threadsArg, inPath, mainPath);
+        if (sequential.equals(parallel)) {
+            return true;
+        }
+
+        oldOut.println("* Errors with " + threadsArg + ":");
+        oldOut.print(parallel);
+        return false;
+    }
+
     public static boolean compare(String outName, String refName, PrintStream oldOut)
             throws IOException {
         try (var outReader = new BufferedReader(new FileReader(outName));
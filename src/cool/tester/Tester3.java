@@ -1,46 +1,201 @@
 package cool.tester;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import cool.compiler.CompilationContext;
 import cool.compiler.Compiler;
+import cool.compiler.CompilerOptions;
 
+/**
+ * Compiles the programs in tests/tema3, runs them and compares what they
+ * print with the .ref files. All the programs are compiled in this JVM,
+ * each into its own buffer, and then run at the same time through the
+ * chosen simulator, the one in cool.simulator unless -sim=spim is given;
+ * -sim=handler runs it with trap.handler.nogc instead of its Java runtime.
+ * A program reads its .in file, if there is one, and is compiled with the
+ * options in its .opts file as well; when the given options cannot be used
+ * with those, it is compiled with its own options alone.
+ *
+ * The profiles in tests/profile match none of the programs, one being empty
+ * and the other taken from 29-case before its lines moved; every test must
+ * still pass when compiled with -profile-use= and either of them.
+ *
+ * With -j<n> among the compiler options, every program is also compiled on
+ * one thread, and the two programs must be the same.
+ *
+ * Arguments: [-sim=builtin|handler|spim] [-threads=<n>] [compiler options] [names]
+ * Only the tests whose names contain one of the given names are run.
+ */
 public class Tester3 {
-    // java -cp "bin;lib/antlr-4.8-complete.jar;%CLASSPATH%" cool.tester.Tester2
-    public static void main(String[] args) throws IOException {
-        final String TEST_DIR_NAME = "tests/tema3";
-        var testDir = new File(TEST_DIR_NAME);
-
-        var filenameFilter = new FilenameFilter() {
-            public boolean accept(File dir, String name) {
-                return name.endsWith(".cl");
-            }
-        };
+    // java -cp "bin;lib/antlr-4.8-complete.jar;%CLASSPATH%" cool.tester.Tester3
+    static final String TEST_DIR_NAME = "tests/tema3";
+
+    // Printed by spim before the program's output
+    static final String SPIM_BANNER_END = "The following symbols are undefined:\nmain\n\n";
+
+    private static class Test {
+        final String name;
+        final Path source;
+        boolean compiled;
+        boolean passed;
+        String error;
+        long compileMillis;
+        long runMillis;
 
-        var oldOut = System.out;
-        var oldErr = System.err;
+        Test(Path source) {
+            this.source = source;
+            this.name = source.getFileName().toString().replace(".cl", "");
+        }
+
+        Path sibling(String extension) {
+            return source.resolveSibling(name + extension);
+        }
+    }
 
-        var total = 0;
+    public static void main(String[] args) throws Exception {
+        SimulatorBackend backend = new BuiltinBackend();
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> compilerArgs = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (var arg : args) {
+            if (arg.startsWith("-sim=")) {
+                backend = SimulatorBackend.named(arg.substring("-sim=".length()));
+            } else if (arg.startsWith("-threads=")) {
+                threads = Integer.parseInt(arg.substring("-threads=".length()));
+            } else if (arg.startsWith("-")) {
+                compilerArgs.add(arg);
+            } else {
+                names.add(arg);
+            }
+        }
 
-        var files = testDir.listFiles(filenameFilter);
+        var files = new File(TEST_DIR_NAME).listFiles((dir, name) -> name.endsWith(".cl"));
         Arrays.sort(files);
-//        int i = 0;
+
+        List<Test> tests = new ArrayList<>();
         for (var file : files) {
-//            i++;
-//
-//            if (i != 29) {
-//                continue;
-//            }
-
-            var inPath = file.getPath();
-            var outPath = inPath.replace(".cl", ".s");
-            var newOut = new PrintStream(outPath, "UTF-8");
-            System.setOut(newOut);
-            System.setErr(newOut);
-            Compiler.main(new String[] { inPath });
-        }
-
-        System.setOut(oldOut);
-        System.setErr(oldErr);
+            var test = new Test(file.toPath());
+            if (names.isEmpty() || names.stream().anyMatch(test.name::contains)) {
+                tests.add(test);
+            }
+        }
+
+        var start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            runAll(pool, tests, test -> compile(test, compilerArgs));
+            var simulator = backend;
+            runAll(pool, tests, test -> run(test, simulator));
+        } finally {
+            pool.shutdown();
+        }
+        var totalMillis = (System.nanoTime() - start) / 1_000_000;
+
+        int passed = 0;
+        for (var test : tests) {
+            System.out.printf("%-30s %-6s compile %5d ms  run %5d ms%s%n", test.name,
+                    test.passed ? "passed" : "FAILED", test.compileMillis, test.runMillis,
+                    test.error != null ? "  " + test.error : "");
+            if (test.passed) {
+                ++passed;
+            }
+        }
+
+        System.out.println("Passed: " + passed + "/" + tests.size() + " in " + totalMillis + " ms");
+    }
+
+    private interface TestStep {
+        void run(Test test) throws Exception;
+    }
+
+    private static void runAll(ExecutorService pool, List<Test> tests, TestStep step) throws InterruptedException {
+        List<Future<?>> results = new ArrayList<>();
+        for (var test : tests) {
+            results.add(pool.submit(() -> {
+                try {
+                    step.run(test);
+                } catch (Exception e) {
+                    test.error = e.toString();
+                }
+            }));
+        }
+
+        for (var result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
+    // Writes the program, or the compiler's errors, to the test's .s file
+    private static void compile(Test test, List<String> compilerArgs) throws IOException {
+        var start = System.nanoTime();
+
+        var args = new ArrayList<>(compilerArgs);
+        var optsFile = test.sibling(".opts");
+        if (Files.exists(optsFile)) {
+            var opts = List.of(Files.readString(optsFile).trim().split("\\s+"));
+            args.addAll(opts);
+            try {
+                CompilerOptions.parse(args.toArray(new String[0]));
+            } catch (IllegalArgumentException e) {
+                args = new ArrayList<>(opts);
+            }
+        }
+        args.add(test.source.toString());
+
+        var program = compile(args);
+        Files.write(test.sibling(".s"), program);
+        test.compiled = true;
+        test.compileMillis = (System.nanoTime() - start) / 1_000_000;
+
+        if (args.removeIf(arg -> arg.startsWith("-j")) && !Arrays.equals(program, compile(args))) {
+            test.compiled = false;
+            test.error = "the program differs from the one compiled on one thread";
+        }
+    }
+
+    private static byte[] compile(List<String> args) throws IOException {
+        var buffer = new ByteArrayOutputStream();
+        var out = new PrintStream(buffer, false, "UTF-8");
+        var context = new CompilationContext(CompilerOptions.parse(args.toArray(new String[0])), out, out);
+        Compiler.compile(context);
+        out.flush();
+
+        return buffer.toByteArray();
+    }
+
+    // Writes what the program printed to the test's .out file
+    private static void run(Test test, SimulatorBackend simulator) throws Exception {
+        if (!test.compiled) {
+            return;
+        }
+
+        var start = System.nanoTime();
+
+        var inFile = test.sibling(".in");
+        var input = Files.exists(inFile) ? Files.readString(inFile) : "";
+        var output = simulator.run(test.sibling(".s"), input);
+        Files.writeString(test.sibling(".out"), output);
+
+        test.runMillis = (System.nanoTime() - start) / 1_000_000;
+        test.passed = withoutBanner(output).equals(withoutBanner(Files.readString(test.sibling(".ref"))));
+    }
+
+    // Backends other than spim do not print its banner
+    private static String withoutBanner(String output) {
+        int idx = output.indexOf(SPIM_BANNER_END);
+        return idx < 0 ? output : output.substring(idx + SPIM_BANNER_END.length());
     }
 }
@@ -0,0 +1,41 @@
+#profile
+1 method A.f
+1 method B.g
+0 method C.f
+0 method C.h
+1 method Main.out_string
+1 dispatch out_string 29-case.cl:31:9
+1 dispatch concat 29-case.cl:31:28
+3 method Main.out_int
+3 dispatch out_string 29-case.cl:35:9
+3 dispatch out_int 29-case.cl:35:9
+4 method Main.i
+1 branch Main 29-case.cl:39:9
+1 dispatch out_int 29-case.cl:43:25
+1 dispatch g 29-case.cl:43:33
+1 branch A 29-case.cl:39:9
+1 dispatch out_int 29-case.cl:42:22
+1 dispatch f 29-case.cl:42:30
+1 branch String 29-case.cl:39:9
+1 dispatch out_string 29-case.cl:41:27
+1 dispatch concat 29-case.cl:41:38
+1 branch Int 29-case.cl:39:9
+1 dispatch out_int 29-case.cl:40:24
+1 method Main.main
+1 dispatch i 29-case.cl:49:13
+1 dispatch i 29-case.cl:50:13
+1 dispatch i 29-case.cl:51:13
+1 dispatch i 29-case.cl:52:13
+1 new A 29-case.cl:52:15
+1 receiver concat 29-case.cl:31:28 String
+1 receiver g 29-case.cl:43:33 Main
+1 receiver out_int 29-case.cl:43:25 Main
+1 receiver f 29-case.cl:42:30 A
+1 receiver out_int 29-case.cl:42:22 Main
+1 receiver concat 29-case.cl:41:38 String
+1 receiver out_string 29-case.cl:41:27 Main
+1 receiver out_int 29-case.cl:40:24 Main
+1 receiver i 29-case.cl:49:13 Main
+1 receiver i 29-case.cl:50:13 Main
+1 receiver i 29-case.cl:51:13 Main
+1 receiver i 29-case.cl:52:13 Main
@@ -0,0 +1,11 @@
+class B inherits A {
+    f(x : String) : Int { 0 };
+    g() : String { "" };
+    h() : Int { k() };
+};
+
+class A {
+    f(x : Int) : Int { 0 };
+    g() : Int { 0 };
+    k() : String { "" };
+};
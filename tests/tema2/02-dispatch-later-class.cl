@@ -0,0 +1,13 @@
+class C {
+    x : Int <- (new D).m(1, "a");
+    y : Bool <- (new D).n();
+    z : String <- d.n();
+    d : D;
+    w : Int <- d.m(d.n(), 2);
+};
+
+class D {
+    p : String;
+    m(a : Int, b : Int) : Int { a + b };
+    n() : String { p };
+};
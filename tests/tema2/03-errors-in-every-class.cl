@@ -0,0 +1,26 @@
+class E inherits F {
+    a : Int;
+    b : Undefined;
+    m(x : Int, y : Bool) : Int { if y then x else "no" fi };
+};
+
+class F {
+    a : String;
+    m(x : Int, y : Int) : Int { x };
+    n() : Object { let v : Int <- "s" in v };
+};
+
+class G inherits H {
+};
+
+class H inherits G {
+};
+
+class I inherits Missing {
+    o() : Bool { case self of s : SELF_TYPE => true; esac };
+};
+
+class J inherits E {
+    m(x : Int, y : Bool) : String { "" };
+    q() : Int { (new E)@F.n() };
+};
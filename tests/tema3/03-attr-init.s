@@ -9,110 +9,138 @@
     .globl  _int_tag
     .globl  _string_tag
     .globl  _bool_tag
+    .globl  _compact_headers
+    .globl  _int_slot
+    .globl  _str_size
+    .globl  _str_hash
+    .globl  _str_field
+    .globl  _str_consts_begin
+    .globl  _str_consts_end
+    .globl  _int_cache_low
+    .globl  _int_cache_size
+    .globl  int_cache
+    .globl  _ropes
+    .globl  _io_buffered
 _int_tag:
     .word   2
 _string_tag:
     .word   3
 _bool_tag:
     .word   4
+_str_consts_begin:
 str_const0:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const0
+    .word   1
     .asciiz ""
     .align  2
 str_const1:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const6
+    .word   -1939501217
     .asciiz "Object"
     .align  2
 str_const2:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const2
+    .word   2343
     .asciiz "IO"
     .align  2
 str_const3:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const3
+    .word   73679
     .asciiz "Int"
     .align  2
 str_const4:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const6
+    .word   -1808118735
     .asciiz "String"
     .align  2
 str_const5:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const4
+    .word   2076427
     .asciiz "Bool"
     .align  2
 str_const6:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   65
     .asciiz "A"
     .align  2
 str_const7:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   67
     .asciiz "B"
     .align  2
 str_const8:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const3
+    .word   96355
     .asciiz "abc"
     .align  2
 str_const9:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   67
     .asciiz "C"
     .align  2
 str_const10:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   69
     .asciiz "D"
     .align  2
 str_const11:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   69
     .asciiz "E"
     .align  2
 str_const12:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   71
     .asciiz "F"
     .align  2
 str_const13:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const4
+    .word   2390489
     .asciiz "Main"
     .align  2
+_str_consts_end:
 int_const0:
     .word   2
     .word   4
@@ -153,6 +181,22 @@ int_const100:
     .word   4
     .word   Int_dispTab
     .word   100
+_int_cache_low:
+    .word   0
+_int_cache_size:
+    .word   0
+int_cache:
+
+_compact_headers:
+    .word   0
+_int_slot:
+    .word   12
+_str_size:
+    .word   12
+_str_hash:
+    .word   16
+_str_field:
+    .word   20
 bool_const0:
     .word   4
     .word   4
@@ -163,6 +207,10 @@ bool_const1:
     .word   4
     .word   Bool_dispTab
     .word   1
+_ropes:
+    .word   0
+_io_buffered:
+    .word   0
 
 class_nameTab:
     .word   str_const1
@@ -219,9 +267,10 @@ Int_protObj:
     .word   0
 String_protObj:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const0
+    .word   0
     .asciiz ""
     .align  2
 Bool_protObj:
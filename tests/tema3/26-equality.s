@@ -9,279 +9,331 @@
     .globl  _int_tag
     .globl  _string_tag
     .globl  _bool_tag
+    .globl  _compact_headers
+    .globl  _int_slot
+    .globl  _str_size
+    .globl  _str_hash
+    .globl  _str_field
+    .globl  _str_consts_begin
+    .globl  _str_consts_end
+    .globl  _int_cache_low
+    .globl  _int_cache_size
+    .globl  int_cache
+    .globl  _ropes
+    .globl  _io_buffered
 _int_tag:
     .word   2
 _string_tag:
     .word   3
 _bool_tag:
     .word   4
+_str_consts_begin:
 str_const0:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const0
+    .word   1
     .asciiz ""
     .align  2
 str_const1:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const6
+    .word   -1939501217
     .asciiz "Object"
     .align  2
 str_const2:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const2
+    .word   2343
     .asciiz "IO"
     .align  2
 str_const3:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const3
+    .word   73679
     .asciiz "Int"
     .align  2
 str_const4:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const6
+    .word   -1808118735
     .asciiz "String"
     .align  2
 str_const5:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const4
+    .word   2076427
     .asciiz "Bool"
     .align  2
 str_const6:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   65
     .asciiz "A"
     .align  2
 str_const7:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   67
     .asciiz "B"
     .align  2
 str_const8:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const3
+    .word   96355
     .asciiz "abc"
     .align  2
 str_const9:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   67
     .asciiz "C"
     .align  2
 str_const10:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   69
     .asciiz "D"
     .align  2
 str_const11:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   69
     .asciiz "E"
     .align  2
 str_const12:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   71
     .asciiz "F"
     .align  2
 str_const13:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const4
+    .word   2390489
     .asciiz "Main"
     .align  2
 str_const14:
     .word   3
-    .word   8
+    .word   9
     .word   String_dispTab
     .word   int_const14
+    .word   -2074788907
     .asciiz "26-equality.cl"
     .align  2
 str_const15:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   11
     .asciiz "
 "
     .align  2
 str_const16:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const4
+    .word   1552617
     .asciiz "3 OK"
     .align  2
 str_const17:
     .word   3
-    .word   7
+    .word   8
     .word   String_dispTab
     .word   int_const8
+    .word   37350603
     .asciiz "3 failed"
     .align  2
 str_const18:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const4
+    .word   2923003
     .asciiz "a OK"
     .align  2
 str_const19:
     .word   3
-    .word   7
+    .word   8
     .word   String_dispTab
     .word   int_const8
+    .word   -1397752611
     .asciiz "a failed"
     .align  2
 str_const20:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const5
+    .word   91074573
     .asciiz "a1 OK"
     .align  2
 str_const21:
     .word   3
-    .word   7
+    .word   8
     .word   String_dispTab
     .word   int_const9
+    .word   1617273453
     .asciiz "a1 failed"
     .align  2
 str_const22:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const5
+    .word   91104363
     .asciiz "a2 OK"
     .align  2
 str_const23:
     .word   3
-    .word   7
+    .word   8
     .word   String_dispTab
     .word   int_const9
+    .word   -934883507
     .asciiz "a2 failed"
     .align  2
 str_const24:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const4
+    .word   2952795
     .asciiz "b OK"
     .align  2
 str_const25:
     .word   3
-    .word   7
+    .word   8
     .word   String_dispTab
     .word   int_const8
+    .word   345057723
     .asciiz "b failed"
     .align  2
 str_const26:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const5
+    .word   91998093
     .asciiz "b1 OK"
     .align  2
 str_const27:
     .word   3
-    .word   7
+    .word   8
     .word   String_dispTab
     .word   int_const9
+    .word   -190181009
     .asciiz "b1 failed"
     .align  2
 str_const28:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const5
+    .word   92027885
     .asciiz "b2 OK"
     .align  2
 str_const29:
     .word   3
-    .word   7
+    .word   8
     .word   String_dispTab
     .word   int_const9
+    .word   1552629325
     .asciiz "b2 failed"
     .align  2
 str_const30:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const4
+    .word   3608197
     .asciiz "x OK"
     .align  2
 str_const31:
     .word   3
-    .word   7
+    .word   8
     .word   String_dispTab
     .word   int_const8
+    .word   32179429
     .asciiz "x failed"
     .align  2
 str_const32:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const7
+    .word   1978064689
     .asciiz "self OK"
     .align  2
 str_const33:
     .word   3
-    .word   7
+    .word   8
     .word   String_dispTab
     .word   int_const11
+    .word   -2069192815
     .asciiz "self failed"
     .align  2
 str_const34:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const7
+    .word   950420621
     .asciiz "comp OK"
     .align  2
 str_const35:
     .word   3
-    .word   7
+    .word   8
     .word   String_dispTab
     .word   int_const11
+    .word   1682837103
     .asciiz "comp failed"
     .align  2
 str_const36:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const7
+    .word   953459303
     .asciiz "copy OK"
     .align  2
 str_const37:
     .word   3
-    .word   7
+    .word   8
     .word   String_dispTab
     .word   int_const11
+    .word   -939135159
     .asciiz "copy failed"
     .align  2
+_str_consts_end:
 int_const0:
     .word   2
     .word   4
@@ -347,6 +399,22 @@ int_const11:
     .word   4
     .word   Int_dispTab
     .word   11
+_int_cache_low:
+    .word   0
+_int_cache_size:
+    .word   0
+int_cache:
+
+_compact_headers:
+    .word   0
+_int_slot:
+    .word   12
+_str_size:
+    .word   12
+_str_hash:
+    .word   16
+_str_field:
+    .word   20
 bool_const0:
     .word   4
     .word   4
@@ -357,6 +425,10 @@ bool_const1:
     .word   4
     .word   Bool_dispTab
     .word   1
+_ropes:
+    .word   0
+_io_buffered:
+    .word   0
 
 class_nameTab:
     .word   str_const1
@@ -413,9 +485,10 @@ Int_protObj:
     .word   0
 String_protObj:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const0
+    .word   0
     .asciiz ""
     .align  2
 Bool_protObj:
@@ -1211,11 +1284,11 @@ dispatch_13:
     sw      $a0 0($sp)
     addiu   $sp $sp -4
     move    $a0 $s0
-    bnez    $a0 dispatch_15                 # Check for 'void'
+    bnez    $a0 dispatch_14                 # Check for 'void'
     la      $a0 str_const14  # Store the file name in $a0
     li      $t1 53            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_15:
+dispatch_14:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 8($t1)     # Method offset
     jalr    $t1
@@ -1237,11 +1310,11 @@ endIf_10:
     sw      $a0 0($sp)
     addiu   $sp $sp -4
     move    $a0 $s0
-    bnez    $a0 dispatch_16                 # Check for 'void'
+    bnez    $a0 dispatch_15                 # Check for 'void'
     la      $a0 str_const14  # Store the file name in $a0
     li      $t1 53            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_16:
+dispatch_15:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 12($t1)     # Method offset
     jalr    $t1
@@ -9,209 +9,251 @@
     .globl  _int_tag
     .globl  _string_tag
     .globl  _bool_tag
+    .globl  _compact_headers
+    .globl  _int_slot
+    .globl  _str_size
+    .globl  _str_hash
+    .globl  _str_field
+    .globl  _str_consts_begin
+    .globl  _str_consts_end
+    .globl  _int_cache_low
+    .globl  _int_cache_size
+    .globl  int_cache
+    .globl  _ropes
+    .globl  _io_buffered
 _int_tag:
     .word   2
 _string_tag:
     .word   3
 _bool_tag:
     .word   4
+_str_consts_begin:
 str_const0:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const0
+    .word   1
     .asciiz ""
     .align  2
 str_const1:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const6
+    .word   -1939501217
     .asciiz "Object"
     .align  2
 str_const2:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const2
+    .word   2343
     .asciiz "IO"
     .align  2
 str_const3:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const3
+    .word   73679
     .asciiz "Int"
     .align  2
 str_const4:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const6
+    .word   -1808118735
     .asciiz "String"
     .align  2
 str_const5:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const4
+    .word   2076427
     .asciiz "Bool"
     .align  2
 str_const6:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const4
+    .word   2368703
     .asciiz "List"
     .align  2
 str_const7:
     .word   3
-    .word   7
+    .word   8
     .word   String_dispTab
     .word   int_const9
+    .word   -850958523
     .asciiz "32-big.cl"
     .align  2
 str_const8:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   33
     .asciiz " "
     .align  2
 str_const9:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   11
     .asciiz "
 "
     .align  2
 str_const10:
     .word   3
-    .word   6
+    .word   7
     .word   String_dispTab
     .word   int_const4
+    .word   2390489
     .asciiz "Main"
     .align  2
 str_const11:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   33
     .asciiz "!"
     .align  2
 str_const12:
     .word   3
-    .word   11
+    .word   12
     .word   String_dispTab
     .word   int_const27
+    .word   -380380953
     .asciiz "Calculam factorial pentru: "
     .align  2
 str_const13:
     .word   3
-    .word   10
+    .word   11
     .word   String_dispTab
     .word   int_const20
+    .word   -262366859
     .asciiz "Factorial recursiv: "
     .align  2
 str_const14:
     .word   3
-    .word   10
+    .word   11
     .word   String_dispTab
     .word   int_const20
+    .word   501579097
     .asciiz "Factorial iterativ: "
     .align  2
 str_const15:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const3
+    .word   64089
     .asciiz "A2I"
     .align  2
 str_const16:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   49
     .asciiz "0"
     .align  2
 str_const17:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   49
     .asciiz "1"
     .align  2
 str_const18:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   51
     .asciiz "2"
     .align  2
 str_const19:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   51
     .asciiz "3"
     .align  2
 str_const20:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   53
     .asciiz "4"
     .align  2
 str_const21:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   53
     .asciiz "5"
     .align  2
 str_const22:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   55
     .asciiz "6"
     .align  2
 str_const23:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   55
     .asciiz "7"
     .align  2
 str_const24:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   57
     .asciiz "8"
     .align  2
 str_const25:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   57
     .asciiz "9"
     .align  2
 str_const26:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   45
     .asciiz "-"
     .align  2
 str_const27:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const1
+    .word   43
     .asciiz "+"
     .align  2
+_str_consts_end:
 int_const0:
     .word   2
     .word   4
@@ -277,6 +319,22 @@ int_const10:
     .word   4
     .word   Int_dispTab
     .word   10
+_int_cache_low:
+    .word   0
+_int_cache_size:
+    .word   0
+int_cache:
+
+_compact_headers:
+    .word   0
+_int_slot:
+    .word   12
+_str_size:
+    .word   12
+_str_hash:
+    .word   16
+_str_field:
+    .word   20
 bool_const0:
     .word   4
     .word   4
@@ -287,6 +345,10 @@ bool_const1:
     .word   4
     .word   Bool_dispTab
     .word   1
+_ropes:
+    .word   0
+_io_buffered:
+    .word   0
 
 class_nameTab:
     .word   str_const1
@@ -331,9 +393,10 @@ Int_protObj:
     .word   0
 String_protObj:
     .word   3
-    .word   5
+    .word   6
     .word   String_dispTab
     .word   int_const0
+    .word   0
     .asciiz ""
     .align  2
 Bool_protObj:
@@ -1432,11 +1495,11 @@ A2I.a2i:
     addiu   $sp $sp -0
     move    $s0 $a0
     lw      $a0 12($fp)
-    bnez    $a0 dispatch_24                 # Check for 'void'
+    bnez    $a0 dispatch_23                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 142            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_24:
+dispatch_23:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 12($t1)     # Method offset
     jalr    $t1
@@ -1463,11 +1526,11 @@ else_24:
     sw      $a0 0($sp)
     addiu   $sp $sp -4
     lw      $a0 12($fp)
-    bnez    $a0 dispatch_26                 # Check for 'void'
+    bnez    $a0 dispatch_24                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 143            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_26:
+dispatch_24:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 20($t1)     # Method offset
     jalr    $t1
@@ -1485,11 +1548,11 @@ equal_23:
     lw      $t1 12($a0)
     beqz    $t1 else_23
     lw      $a0 12($fp)
-    bnez    $a0 dispatch_27                 # Check for 'void'
+    bnez    $a0 dispatch_25                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 143            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_27:
+dispatch_25:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 12($t1)     # Method offset
     jalr    $t1
@@ -1509,22 +1572,22 @@ dispatch_27:
     sw      $a0 0($sp)
     addiu   $sp $sp -4
     lw      $a0 12($fp)
-    bnez    $a0 dispatch_28                 # Check for 'void'
+    bnez    $a0 dispatch_26                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 143            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_28:
+dispatch_26:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 20($t1)     # Method offset
     jalr    $t1
     sw      $a0 0($sp)
     addiu   $sp $sp -4
     move    $a0 $s0
-    bnez    $a0 dispatch_29                 # Check for 'void'
+    bnez    $a0 dispatch_27                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 143            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_29:
+dispatch_27:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 24($t1)     # Method offset
     jalr    $t1
@@ -1541,11 +1604,11 @@ else_23:
     sw      $a0 0($sp)
     addiu   $sp $sp -4
     lw      $a0 12($fp)
-    bnez    $a0 dispatch_31                 # Check for 'void'
+    bnez    $a0 dispatch_28                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 144            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_31:
+dispatch_28:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 20($t1)     # Method offset
     jalr    $t1
@@ -1563,11 +1626,11 @@ equal_24:
     lw      $t1 12($a0)
     beqz    $t1 else_22
     lw      $a0 12($fp)
-    bnez    $a0 dispatch_32                 # Check for 'void'
+    bnez    $a0 dispatch_29                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 144            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_32:
+dispatch_29:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 12($t1)     # Method offset
     jalr    $t1
@@ -1587,22 +1650,22 @@ dispatch_32:
     sw      $a0 0($sp)
     addiu   $sp $sp -4
     lw      $a0 12($fp)
-    bnez    $a0 dispatch_33                 # Check for 'void'
+    bnez    $a0 dispatch_30                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 144            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_33:
+dispatch_30:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 20($t1)     # Method offset
     jalr    $t1
     sw      $a0 0($sp)
     addiu   $sp $sp -4
     move    $a0 $s0
-    bnez    $a0 dispatch_34                 # Check for 'void'
+    bnez    $a0 dispatch_31                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 144            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_34:
+dispatch_31:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 24($t1)     # Method offset
     jalr    $t1
@@ -1612,11 +1675,11 @@ else_22:
     sw      $a0 0($sp)
     addiu   $sp $sp -4
     move    $a0 $s0
-    bnez    $a0 dispatch_35                 # Check for 'void'
+    bnez    $a0 dispatch_32                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 145            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_35:
+dispatch_32:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 24($t1)     # Method offset
     jalr    $t1
@@ -1641,11 +1704,11 @@ A2I.a2i_aux:
     la      $a0 int_const0
     sw      $a0 -4($fp)       # push the result onto the stack
     lw      $a0 12($fp)
-    bnez    $a0 dispatch_36                 # Check for 'void'
+    bnez    $a0 dispatch_33                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 156            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_36:
+dispatch_33:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 12($t1)     # Method offset
     jalr    $t1
@@ -1687,22 +1750,22 @@ compare_0:
     sw      $a0 0($sp)
     addiu   $sp $sp -4
     lw      $a0 12($fp)
-    bnez    $a0 dispatch_37                 # Check for 'void'
+    bnez    $a0 dispatch_34                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 160            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_37:
+dispatch_34:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 20($t1)     # Method offset
     jalr    $t1
     sw      $a0 0($sp)
     addiu   $sp $sp -4
     move    $a0 $s0
-    bnez    $a0 dispatch_38                 # Check for 'void'
+    bnez    $a0 dispatch_35                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 160            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_38:
+dispatch_35:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 12($t1)     # Method offset
     jalr    $t1
@@ -1780,11 +1843,11 @@ compare_1:
     sw      $a0 0($sp)
     addiu   $sp $sp -4
     move    $a0 $s0
-    bnez    $a0 dispatch_39                 # Check for 'void'
+    bnez    $a0 dispatch_36                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 177            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_39:
+dispatch_36:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 32($t1)     # Method offset
     jalr    $t1
@@ -1808,22 +1871,22 @@ else_25:
     sw      $a0 0($sp)
     addiu   $sp $sp -4
     move    $a0 $s0
-    bnez    $a0 dispatch_40                 # Check for 'void'
+    bnez    $a0 dispatch_37                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 178            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_40:
+dispatch_37:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 32($t1)     # Method offset
     jalr    $t1
     sw      $a0 0($sp)
     addiu   $sp $sp -4
     la      $a0 str_const26
-    bnez    $a0 dispatch_41                 # Check for 'void'
+    bnez    $a0 dispatch_38                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 178            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_41:
+dispatch_38:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 16($t1)     # Method offset
     jalr    $t1
@@ -1897,11 +1960,11 @@ else_27:
     sw      $a0 0($sp)
     addiu   $sp $sp -4
     move    $a0 $s0
-    bnez    $a0 dispatch_42                 # Check for 'void'
+    bnez    $a0 dispatch_39                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 188            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_42:
+dispatch_39:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 16($t1)     # Method offset
     jalr    $t1
@@ -1911,19 +1974,19 @@ dispatch_42:
     sw      $a0 0($sp)
     addiu   $sp $sp -4
     move    $a0 $s0
-    bnez    $a0 dispatch_43                 # Check for 'void'
+    bnez    $a0 dispatch_40                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 188            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_43:
+dispatch_40:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 32($t1)     # Method offset
     jalr    $t1
-    bnez    $a0 dispatch_44                 # Check for 'void'
+    bnez    $a0 dispatch_41                 # Check for 'void'
     la      $a0 str_const7  # Store the file name in $a0
     li      $t1 188            # Store the line number
     jal     _dispatch_abort             # Abort
-dispatch_44:
+dispatch_41:
     lw      $t1 8($a0)          # Dispatch table
     lw      $t1 16($t1)     # Method offset
     jalr    $t1
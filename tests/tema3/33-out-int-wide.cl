@@ -0,0 +1,17 @@
+-- Ints whose text takes up to 11 characters
+class Main inherits IO {
+    main() : Object {
+        let big : Int <- 2147483647 in {
+            out_int(0).out_string("\n");
+            out_int(~7).out_string("\n");
+            out_int(12345678).out_string("\n");
+            out_int(123456789).out_string("\n");
+            out_int(~12345678).out_string("\n");
+            out_int(1000000000).out_string("\n");
+            out_int(big).out_string("\n");
+            out_int(~big).out_string("\n");
+            out_int(~big - 1).out_string("\n");
+            out_int(big).out_int(~big - 1).out_string("\n");
+        }
+    };
+};
@@ -0,0 +1,683 @@
+    .data
+    .align  2
+    .globl  class_nameTab
+    .globl  Int_protObj
+    .globl  String_protObj
+    .globl  bool_const0
+    .globl  bool_const1
+    .globl  Main_protObj
+    .globl  _int_tag
+    .globl  _string_tag
+    .globl  _bool_tag
+    .globl  _compact_headers
+    .globl  _int_slot
+    .globl  _str_size
+    .globl  _str_hash
+    .globl  _str_field
+    .globl  _str_consts_begin
+    .globl  _str_consts_end
+    .globl  _int_cache_low
+    .globl  _int_cache_size
+    .globl  int_cache
+    .globl  _ropes
+    .globl  _io_buffered
+_int_tag:
+    .word   2
+_string_tag:
+    .word   3
+_bool_tag:
+    .word   4
+_str_consts_begin:
+str_const0:
+    .word   3
+    .word   6
+    .word   String_dispTab
+    .word   int_const0
+    .word   1
+    .asciiz ""
+    .align  2
+str_const1:
+    .word   3
+    .word   7
+    .word   String_dispTab
+    .word   int_const6
+    .word   -1939501217
+    .asciiz "Object"
+    .align  2
+str_const2:
+    .word   3
+    .word   6
+    .word   String_dispTab
+    .word   int_const2
+    .word   2343
+    .asciiz "IO"
+    .align  2
+str_const3:
+    .word   3
+    .word   6
+    .word   String_dispTab
+    .word   int_const3
+    .word   73679
+    .asciiz "Int"
+    .align  2
+str_const4:
+    .word   3
+    .word   7
+    .word   String_dispTab
+    .word   int_const6
+    .word   -1808118735
+    .asciiz "String"
+    .align  2
+str_const5:
+    .word   3
+    .word   7
+    .word   String_dispTab
+    .word   int_const4
+    .word   2076427
+    .asciiz "Bool"
+    .align  2
+str_const6:
+    .word   3
+    .word   7
+    .word   String_dispTab
+    .word   int_const4
+    .word   2390489
+    .asciiz "Main"
+    .align  2
+str_const7:
+    .word   3
+    .word   10
+    .word   String_dispTab
+    .word   int_const18
+    .word   1249498139
+    .asciiz "33-out-int-wide.cl"
+    .align  2
+str_const8:
+    .word   3
+    .word   6
+    .word   String_dispTab
+    .word   int_const1
+    .word   11
+    .asciiz "
+"
+    .align  2
+_str_consts_end:
+int_const0:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   0
+int_const1:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   1
+int_const2:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   2
+int_const3:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   3
+int_const4:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   4
+int_const5:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   5
+int_const6:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   6
+int_const2147483647:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   2147483647
+int_const18:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   18
+int_const7:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   7
+int_const12345678:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   12345678
+int_const123456789:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   123456789
+int_const1000000000:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   1000000000
+_int_cache_low:
+    .word   0
+_int_cache_size:
+    .word   0
+int_cache:
+
+_compact_headers:
+    .word   0
+_int_slot:
+    .word   12
+_str_size:
+    .word   12
+_str_hash:
+    .word   16
+_str_field:
+    .word   20
+bool_const0:
+    .word   4
+    .word   4
+    .word   Bool_dispTab
+    .word   0
+bool_const1:
+    .word   4
+    .word   4
+    .word   Bool_dispTab
+    .word   1
+_ropes:
+    .word   0
+_io_buffered:
+    .word   0
+
+class_nameTab:
+    .word   str_const1
+    .word   str_const2
+    .word   str_const3
+    .word   str_const4
+    .word   str_const5
+    .word   str_const6
+
+class_objTab:
+    .word   Object_protObj
+    .word   Object_init
+    .word   IO_protObj
+    .word   IO_init
+    .word   Int_protObj
+    .word   Int_init
+    .word   String_protObj
+    .word   String_init
+    .word   Bool_protObj
+    .word   Bool_init
+    .word   Main_protObj
+    .word   Main_init
+
+Object_protObj:
+    .word   0
+    .word   3
+    .word   Object_dispTab
+IO_protObj:
+    .word   1
+    .word   3
+    .word   IO_dispTab
+Int_protObj:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   0
+String_protObj:
+    .word   3
+    .word   6
+    .word   String_dispTab
+    .word   int_const0
+    .word   0
+    .asciiz ""
+    .align  2
+Bool_protObj:
+    .word   4
+    .word   4
+    .word   Bool_dispTab
+    .word   0
+Main_protObj:
+    .word   5
+    .word   3
+    .word   Main_dispTab
+
+
+Object_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+IO_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+    .word   IO.out_string
+    .word   IO.out_int
+    .word   IO.in_string
+    .word   IO.in_int
+Int_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+String_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+    .word   String.length
+    .word   String.concat
+    .word   String.substr
+Bool_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+Main_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+    .word   IO.out_string
+    .word   IO.out_int
+    .word   IO.in_string
+    .word   IO.in_int
+    .word   Main.main
+
+    .globl  heap_start
+heap_start:
+    .word 0
+    .text
+    .globl  Int_init
+    .globl  String_init
+    .globl  Bool_init
+    .globl  Main_init
+    .globl  Main.main
+
+Object_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+IO_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    jal     Object_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+Int_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    jal     Object_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+String_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    jal     Object_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+Bool_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    jal     Object_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+Main_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    jal     IO_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+
+Main.main:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    addiu   $sp $sp -4
+    move    $s0 $a0
+    la      $a0 int_const2147483647
+    sw      $a0 -4($fp)       # push the result onto the stack
+    la      $a0 str_const8
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    la      $a0 int_const0
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_0                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 5            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_0:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 16($t1)     # Method offset
+    jalr    $t1
+    bnez    $a0 dispatch_1                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 5            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_1:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 12($t1)     # Method offset
+    jalr    $t1
+    la      $a0 str_const8
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    la      $a0 int_const7
+    jal     Object.copy
+    lw      $t1 12($a0)
+    neg     $t1 $t1
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_2                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 6            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_2:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 16($t1)     # Method offset
+    jalr    $t1
+    bnez    $a0 dispatch_3                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 6            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_3:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 12($t1)     # Method offset
+    jalr    $t1
+    la      $a0 str_const8
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    la      $a0 int_const12345678
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_4                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 7            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_4:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 16($t1)     # Method offset
+    jalr    $t1
+    bnez    $a0 dispatch_5                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 7            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_5:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 12($t1)     # Method offset
+    jalr    $t1
+    la      $a0 str_const8
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    la      $a0 int_const123456789
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_6                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 8            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_6:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 16($t1)     # Method offset
+    jalr    $t1
+    bnez    $a0 dispatch_7                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 8            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_7:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 12($t1)     # Method offset
+    jalr    $t1
+    la      $a0 str_const8
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    la      $a0 int_const12345678
+    jal     Object.copy
+    lw      $t1 12($a0)
+    neg     $t1 $t1
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_8                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 9            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_8:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 16($t1)     # Method offset
+    jalr    $t1
+    bnez    $a0 dispatch_9                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 9            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_9:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 12($t1)     # Method offset
+    jalr    $t1
+    la      $a0 str_const8
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    la      $a0 int_const1000000000
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_10                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 10            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_10:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 16($t1)     # Method offset
+    jalr    $t1
+    bnez    $a0 dispatch_11                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 10            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_11:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 12($t1)     # Method offset
+    jalr    $t1
+    la      $a0 str_const8
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -4($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_12                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 11            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_12:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 16($t1)     # Method offset
+    jalr    $t1
+    bnez    $a0 dispatch_13                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 11            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_13:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 12($t1)     # Method offset
+    jalr    $t1
+    la      $a0 str_const8
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -4($fp)
+    jal     Object.copy
+    lw      $t1 12($a0)
+    neg     $t1 $t1
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_14                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 12            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_14:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 16($t1)     # Method offset
+    jalr    $t1
+    bnez    $a0 dispatch_15                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 12            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_15:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 12($t1)     # Method offset
+    jalr    $t1
+    la      $a0 str_const8
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -4($fp)
+    jal     Object.copy
+    lw      $t1 12($a0)
+    neg     $t1 $t1
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    la      $a0 int_const1
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    sub     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_16                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 13            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_16:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 16($t1)     # Method offset
+    jalr    $t1
+    bnez    $a0 dispatch_17                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 13            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_17:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 12($t1)     # Method offset
+    jalr    $t1
+    la      $a0 str_const8
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -4($fp)
+    jal     Object.copy
+    lw      $t1 12($a0)
+    neg     $t1 $t1
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    la      $a0 int_const1
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    sub     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -4($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_18                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 14            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_18:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 16($t1)     # Method offset
+    jalr    $t1
+    bnez    $a0 dispatch_19                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 14            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_19:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 16($t1)     # Method offset
+    jalr    $t1
+    bnez    $a0 dispatch_20                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 14            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_20:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 12($t1)     # Method offset
+    jalr    $t1
+    addiu   $sp $sp 4
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    addiu   $sp $sp 0
+    jr      $ra
@@ -0,0 +1,48 @@
+-- Expressions folded into constants by -O, in several classes
+class Sums inherits IO {
+    line(n : Int) : SELF_TYPE {
+        out_int(n).out_string("\n")
+    };
+
+    run() : Object {
+        let a : Int <- 3, b : Int <- 4, c : Int <- a * b, d : Int in {
+            d <- c + a - b;
+            line(a + b);
+            line(c);
+            line(d);
+            line(c * d - a);
+            line(~(a + b + c + d));
+        }
+    };
+};
+
+class Branches inherits Sums {
+    run() : Object {
+        let a : Int <- 5, b : Int <- 8 in {
+            if a < b then line(a * a + b * b) else line(0) fi;
+            if a * 2 = b + 2 then line(b / a) else line(a / b) fi;
+            line((a + b) * (b - a));
+        }
+    };
+};
+
+class Nested inherits Sums {
+    run() : Object {
+        let e : Int <- 100, f : Int <- e - 22 * 2 in {
+            line(e + f);
+            line(f * f);
+            let g : Int <- f - e, h : Int <- g * g in {
+                line(g);
+                line(h - 1000);
+            };
+        }
+    };
+};
+
+class Main {
+    main() : Object {{
+        (new Sums).run();
+        (new Branches).run();
+        (new Nested).run();
+    }};
+};
@@ -0,0 +1,1112 @@
+    .data
+    .align  2
+    .globl  class_nameTab
+    .globl  Int_protObj
+    .globl  String_protObj
+    .globl  bool_const0
+    .globl  bool_const1
+    .globl  Main_protObj
+    .globl  _int_tag
+    .globl  _string_tag
+    .globl  _bool_tag
+    .globl  _compact_headers
+    .globl  _int_slot
+    .globl  _str_size
+    .globl  _str_hash
+    .globl  _str_field
+    .globl  _str_consts_begin
+    .globl  _str_consts_end
+    .globl  _int_cache_low
+    .globl  _int_cache_size
+    .globl  int_cache
+    .globl  _ropes
+    .globl  _io_buffered
+_int_tag:
+    .word   2
+_string_tag:
+    .word   3
+_bool_tag:
+    .word   4
+_str_consts_begin:
+str_const0:
+    .word   3
+    .word   6
+    .word   String_dispTab
+    .word   int_const0
+    .word   1
+    .asciiz ""
+    .align  2
+str_const1:
+    .word   3
+    .word   7
+    .word   String_dispTab
+    .word   int_const6
+    .word   -1939501217
+    .asciiz "Object"
+    .align  2
+str_const2:
+    .word   3
+    .word   6
+    .word   String_dispTab
+    .word   int_const2
+    .word   2343
+    .asciiz "IO"
+    .align  2
+str_const3:
+    .word   3
+    .word   6
+    .word   String_dispTab
+    .word   int_const3
+    .word   73679
+    .asciiz "Int"
+    .align  2
+str_const4:
+    .word   3
+    .word   7
+    .word   String_dispTab
+    .word   int_const6
+    .word   -1808118735
+    .asciiz "String"
+    .align  2
+str_const5:
+    .word   3
+    .word   7
+    .word   String_dispTab
+    .word   int_const4
+    .word   2076427
+    .asciiz "Bool"
+    .align  2
+str_const6:
+    .word   3
+    .word   7
+    .word   String_dispTab
+    .word   int_const4
+    .word   2588585
+    .asciiz "Sums"
+    .align  2
+str_const7:
+    .word   3
+    .word   11
+    .word   String_dispTab
+    .word   int_const22
+    .word   -85503927
+    .asciiz "34-folded-constants.cl"
+    .align  2
+str_const8:
+    .word   3
+    .word   6
+    .word   String_dispTab
+    .word   int_const1
+    .word   11
+    .asciiz "
+"
+    .align  2
+str_const9:
+    .word   3
+    .word   8
+    .word   String_dispTab
+    .word   int_const8
+    .word   39237105
+    .asciiz "Branches"
+    .align  2
+str_const10:
+    .word   3
+    .word   7
+    .word   String_dispTab
+    .word   int_const6
+    .word   -1965077225
+    .asciiz "Nested"
+    .align  2
+str_const11:
+    .word   3
+    .word   7
+    .word   String_dispTab
+    .word   int_const4
+    .word   2390489
+    .asciiz "Main"
+    .align  2
+_str_consts_end:
+int_const0:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   0
+int_const1:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   1
+int_const2:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   2
+int_const3:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   3
+int_const4:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   4
+int_const5:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   5
+int_const6:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   6
+int_const22:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   22
+int_const8:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   8
+int_const100:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   100
+int_const1000:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   1000
+_int_cache_low:
+    .word   0
+_int_cache_size:
+    .word   0
+int_cache:
+
+_compact_headers:
+    .word   0
+_int_slot:
+    .word   12
+_str_size:
+    .word   12
+_str_hash:
+    .word   16
+_str_field:
+    .word   20
+bool_const0:
+    .word   4
+    .word   4
+    .word   Bool_dispTab
+    .word   0
+bool_const1:
+    .word   4
+    .word   4
+    .word   Bool_dispTab
+    .word   1
+_ropes:
+    .word   0
+_io_buffered:
+    .word   0
+
+class_nameTab:
+    .word   str_const1
+    .word   str_const2
+    .word   str_const3
+    .word   str_const4
+    .word   str_const5
+    .word   str_const6
+    .word   str_const9
+    .word   str_const10
+    .word   str_const11
+
+class_objTab:
+    .word   Object_protObj
+    .word   Object_init
+    .word   IO_protObj
+    .word   IO_init
+    .word   Int_protObj
+    .word   Int_init
+    .word   String_protObj
+    .word   String_init
+    .word   Bool_protObj
+    .word   Bool_init
+    .word   Sums_protObj
+    .word   Sums_init
+    .word   Branches_protObj
+    .word   Branches_init
+    .word   Nested_protObj
+    .word   Nested_init
+    .word   Main_protObj
+    .word   Main_init
+
+Object_protObj:
+    .word   0
+    .word   3
+    .word   Object_dispTab
+IO_protObj:
+    .word   1
+    .word   3
+    .word   IO_dispTab
+Int_protObj:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   0
+String_protObj:
+    .word   3
+    .word   6
+    .word   String_dispTab
+    .word   int_const0
+    .word   0
+    .asciiz ""
+    .align  2
+Bool_protObj:
+    .word   4
+    .word   4
+    .word   Bool_dispTab
+    .word   0
+Sums_protObj:
+    .word   5
+    .word   3
+    .word   Sums_dispTab
+
+Branches_protObj:
+    .word   6
+    .word   3
+    .word   Branches_dispTab
+
+Nested_protObj:
+    .word   7
+    .word   3
+    .word   Nested_dispTab
+
+Main_protObj:
+    .word   8
+    .word   3
+    .word   Main_dispTab
+
+
+Object_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+IO_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+    .word   IO.out_string
+    .word   IO.out_int
+    .word   IO.in_string
+    .word   IO.in_int
+Int_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+String_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+    .word   String.length
+    .word   String.concat
+    .word   String.substr
+Bool_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+Sums_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+    .word   IO.out_string
+    .word   IO.out_int
+    .word   IO.in_string
+    .word   IO.in_int
+    .word   Sums.line
+    .word   Sums.run
+Branches_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+    .word   IO.out_string
+    .word   IO.out_int
+    .word   IO.in_string
+    .word   IO.in_int
+    .word   Sums.line
+    .word   Branches.run
+Nested_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+    .word   IO.out_string
+    .word   IO.out_int
+    .word   IO.in_string
+    .word   IO.in_int
+    .word   Sums.line
+    .word   Nested.run
+Main_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+    .word   Main.main
+
+    .globl  heap_start
+heap_start:
+    .word 0
+    .text
+    .globl  Int_init
+    .globl  String_init
+    .globl  Bool_init
+    .globl  Main_init
+    .globl  Main.main
+
+Object_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+IO_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    jal     Object_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+Int_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    jal     Object_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+String_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    jal     Object_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+Bool_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    jal     Object_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+Sums_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    jal     IO_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+Branches_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    jal     Sums_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+Nested_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    jal     Sums_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+Main_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    jal     Object_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+
+Sums.line:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    addiu   $sp $sp -0
+    move    $s0 $a0
+    la      $a0 str_const8
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 12($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_0                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 4            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_0:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 16($t1)     # Method offset
+    jalr    $t1
+    bnez    $a0 dispatch_1                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 4            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_1:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 12($t1)     # Method offset
+    jalr    $t1
+    addiu   $sp $sp 0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    addiu   $sp $sp 4
+    jr      $ra
+Sums.run:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    addiu   $sp $sp -16
+    move    $s0 $a0
+    la      $a0 int_const3
+    sw      $a0 -4($fp)       # push the result onto the stack
+    la      $a0 int_const4
+    sw      $a0 -8($fp)       # push the result onto the stack
+    lw      $a0 -4($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -8($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    mul     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 -12($fp)       # push the result onto the stack
+    la      $a0 int_const0
+    sw      $a0 -16($fp)       # push the result onto the stack
+    lw      $a0 -12($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -4($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    add     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -8($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    sub     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 -16($fp)
+    lw      $a0 -4($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -8($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    add     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_2                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 10            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_2:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 28($t1)     # Method offset
+    jalr    $t1
+    lw      $a0 -12($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_3                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 11            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_3:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 28($t1)     # Method offset
+    jalr    $t1
+    lw      $a0 -16($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_4                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 12            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_4:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 28($t1)     # Method offset
+    jalr    $t1
+    lw      $a0 -12($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -16($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    mul     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -4($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    sub     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_5                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 13            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_5:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 28($t1)     # Method offset
+    jalr    $t1
+    lw      $a0 -4($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -8($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    add     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -12($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    add     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -16($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    add     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    jal     Object.copy
+    lw      $t1 12($a0)
+    neg     $t1 $t1
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_6                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 14            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_6:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 28($t1)     # Method offset
+    jalr    $t1
+    addiu   $sp $sp 16
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    addiu   $sp $sp 0
+    jr      $ra
+Branches.run:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    addiu   $sp $sp -8
+    move    $s0 $a0
+    la      $a0 int_const5
+    sw      $a0 -4($fp)       # push the result onto the stack
+    la      $a0 int_const8
+    sw      $a0 -8($fp)       # push the result onto the stack
+    lw      $a0 -4($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -8($fp)
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    la      $a0 bool_const1
+    blt    $t1 $t2 compare_0
+    la      $a0 bool_const0
+compare_0:
+    lw      $t1 12($a0)
+    beqz    $t1 else_0
+    lw      $a0 -4($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -4($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    mul     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -8($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -8($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    mul     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    add     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_7                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 22            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_7:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 28($t1)     # Method offset
+    jalr    $t1
+    b       endIf_0
+else_0:
+    la      $a0 int_const0
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_8                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 22            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_8:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 28($t1)     # Method offset
+    jalr    $t1
+endIf_0:
+    lw      $a0 -4($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    la      $a0 int_const2
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    mul     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -8($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    la      $a0 int_const2
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    add     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    move    $t2 $a0
+    la      $a0 bool_const1
+    beq     $t1 $t2 equal_0
+    la      $a1 bool_const0
+    jal     equality_test
+equal_0:
+    lw      $t1 12($a0)
+    beqz    $t1 else_1
+    lw      $a0 -8($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -4($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    div     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_9                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 23            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_9:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 28($t1)     # Method offset
+    jalr    $t1
+    b       endIf_1
+else_1:
+    lw      $a0 -4($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -8($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    div     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_10                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 23            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_10:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 28($t1)     # Method offset
+    jalr    $t1
+endIf_1:
+    lw      $a0 -4($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -8($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    add     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -8($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -4($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    sub     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    mul     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_11                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 24            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_11:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 28($t1)     # Method offset
+    jalr    $t1
+    addiu   $sp $sp 8
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    addiu   $sp $sp 0
+    jr      $ra
+Nested.run:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    addiu   $sp $sp -16
+    move    $s0 $a0
+    la      $a0 int_const100
+    sw      $a0 -4($fp)       # push the result onto the stack
+    lw      $a0 -4($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    la      $a0 int_const22
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    la      $a0 int_const2
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    mul     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    sub     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 -8($fp)       # push the result onto the stack
+    lw      $a0 -4($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -8($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    add     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_12                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 32            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_12:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 28($t1)     # Method offset
+    jalr    $t1
+    lw      $a0 -8($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -8($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    mul     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_13                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 33            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_13:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 28($t1)     # Method offset
+    jalr    $t1
+    lw      $a0 -8($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -4($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    sub     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 -12($fp)       # push the result onto the stack
+    lw      $a0 -12($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    lw      $a0 -12($fp)
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    mul     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 -16($fp)       # push the result onto the stack
+    lw      $a0 -12($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_14                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 35            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_14:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 28($t1)     # Method offset
+    jalr    $t1
+    lw      $a0 -16($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    la      $a0 int_const1000
+    jal     Object.copy
+    lw      $t1 4($sp)
+    addiu   $sp $sp 4
+    lw      $t1 12($t1)
+    lw      $t2 12($a0)
+    sub     $t1 $t1 $t2
+    sw      $t1 12($a0)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    bnez    $a0 dispatch_15                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 36            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_15:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 28($t1)     # Method offset
+    jalr    $t1
+    addiu   $sp $sp 16
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    addiu   $sp $sp 0
+    jr      $ra
+Main.main:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    addiu   $sp $sp -0
+    move    $s0 $a0
+    la      $a0 Sums_protObj
+    jal     Object.copy
+    jal     Sums_init
+    bnez    $a0 dispatch_16                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 44            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_16:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 32($t1)     # Method offset
+    jalr    $t1
+
+    la      $a0 Branches_protObj
+    jal     Object.copy
+    jal     Branches_init
+    bnez    $a0 dispatch_17                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 45            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_17:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 32($t1)     # Method offset
+    jalr    $t1
+
+    la      $a0 Nested_protObj
+    jal     Object.copy
+    jal     Nested_init
+    bnez    $a0 dispatch_18                 # Check for 'void'
+    la      $a0 str_const7  # Store the file name in $a0
+    li      $t1 46            # Store the line number
+    jal     _dispatch_abort             # Abort
+dispatch_18:
+    lw      $t1 8($a0)          # Dispatch table
+    lw      $t1 32($t1)     # Method offset
+    jalr    $t1
+    addiu   $sp $sp 0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    addiu   $sp $sp 0
+    jr      $ra
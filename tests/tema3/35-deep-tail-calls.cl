@@ -0,0 +1,20 @@
+-- Self tail calls a million deep, which only fit the stack as loops
+class Main inherits IO {
+    -- Counts the odd numbers below n, one call per number
+    countOdd(n : Int, count : Int, odd : Bool) : Int {
+        if n = 0 then count else countOdd(n - 1, if odd then count + 1 else count fi, not odd) fi
+    };
+
+    -- Whether the digits of n add up to a multiple of 3, one call per unit
+    divisibleBy3(n : Int, rest : Int) : Bool {
+        if n = 0 then rest = 0
+        else if rest = 2 then divisibleBy3(n - 1, 0) else divisibleBy3(n - 1, rest + 1) fi fi
+    };
+
+    main() : Object {{
+        out_int(countOdd(1000000, 0, false));
+        out_string("\n");
+        out_string(if divisibleBy3(999999, 0) then "yes\n" else "no\n" fi);
+        out_string(if divisibleBy3(1000000, 0) then "yes\n" else "no\n" fi);
+    }};
+};
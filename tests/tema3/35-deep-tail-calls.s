@@ -0,0 +1,704 @@
+    .data
+    .align  2
+    .globl  class_nameTab
+    .globl  Int_protObj
+    .globl  String_protObj
+    .globl  bool_const0
+    .globl  bool_const1
+    .globl  Main_protObj
+    .globl  _int_tag
+    .globl  _string_tag
+    .globl  _bool_tag
+    .globl  _compact_headers
+    .globl  _int_slot
+    .globl  _str_size
+    .globl  _str_hash
+    .globl  _str_field
+    .globl  _str_consts_begin
+    .globl  _str_consts_end
+    .globl  _int_cache_low
+    .globl  _int_cache_size
+    .globl  int_cache
+    .globl  _ropes
+    .globl  _io_buffered
+_int_tag:
+    .word   2
+_string_tag:
+    .word   3
+_bool_tag:
+    .word   4
+_str_consts_begin:
+str_const0:
+    .word   3
+    .word   6
+    .word   String_dispTab
+    .word   int_const0
+    .word   1
+    .asciiz ""
+    .align  2
+str_const1:
+    .word   3
+    .word   7
+    .word   String_dispTab
+    .word   int_const6
+    .word   -1939501217
+    .asciiz "Object"
+    .align  2
+str_const2:
+    .word   3
+    .word   6
+    .word   String_dispTab
+    .word   int_const2
+    .word   2343
+    .asciiz "IO"
+    .align  2
+str_const3:
+    .word   3
+    .word   6
+    .word   String_dispTab
+    .word   int_const3
+    .word   73679
+    .asciiz "Int"
+    .align  2
+str_const4:
+    .word   3
+    .word   7
+    .word   String_dispTab
+    .word   int_const6
+    .word   -1808118735
+    .asciiz "String"
+    .align  2
+str_const5:
+    .word   3
+    .word   7
+    .word   String_dispTab
+    .word   int_const4
+    .word   2076427
+    .asciiz "Bool"
+    .align  2
+str_const6:
+    .word   3
+    .word   7
+    .word   String_dispTab
+    .word   int_const4
+    .word   2390489
+    .asciiz "Main"
+    .align  2
+str_const7:
+    .word   3
+    .word   11
+    .word   String_dispTab
+    .word   int_const21
+    .word   1622679081
+    .asciiz "35-deep-tail-calls.cl"
+    .align  2
+str_const8:
+    .word   3
+    .word   6
+    .word   String_dispTab
+    .word   int_const1
+    .word   11
+    .asciiz "
+"
+    .align  2
+str_const9:
+    .word   3
+    .word   7
+    .word   String_dispTab
+    .word   int_const4
+    .word   3705347
+    .asciiz "yes
+"
+    .align  2
+str_const10:
+    .word   3
+    .word   6
+    .word   String_dispTab
+    .word   int_const3
+    .word   109161
+    .asciiz "no
+"
+    .align  2
+_str_consts_end:
+int_const0:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   0
+int_const1:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   1
+int_const2:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   2
+int_const3:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   3
+int_const4:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   4
+int_const5:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   5
+int_const6:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   6
+int_const21:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   21
+int_const1000000:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   1000000
+int_const999999:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   999999
+_int_cache_low:
+    .word   0
+_int_cache_size:
+    .word   0
+int_cache:
+
+_compact_headers:
+    .word   0
+_int_slot:
+    .word   12
+_str_size:
+    .word   12
+_str_hash:
+    .word   16
+_str_field:
+    .word   20
+bool_const0:
+    .word   4
+    .word   4
+    .word   Bool_dispTab
+    .word   0
+bool_const1:
+    .word   4
+    .word   4
+    .word   Bool_dispTab
+    .word   1
+_ropes:
+    .word   0
+_io_buffered:
+    .word   0
+
+class_nameTab:
+    .word   str_const1
+    .word   str_const2
+    .word   str_const3
+    .word   str_const4
+    .word   str_const5
+    .word   str_const6
+
+class_objTab:
+    .word   Object_protObj
+    .word   Object_init
+    .word   IO_protObj
+    .word   IO_init
+    .word   Int_protObj
+    .word   Int_init
+    .word   String_protObj
+    .word   String_init
+    .word   Bool_protObj
+    .word   Bool_init
+    .word   Main_protObj
+    .word   Main_init
+
+Object_protObj:
+    .word   0
+    .word   3
+    .word   Object_dispTab
+IO_protObj:
+    .word   1
+    .word   3
+    .word   IO_dispTab
+Int_protObj:
+    .word   2
+    .word   4
+    .word   Int_dispTab
+    .word   0
+String_protObj:
+    .word   3
+    .word   6
+    .word   String_dispTab
+    .word   int_const0
+    .word   0
+    .asciiz ""
+    .align  2
+Bool_protObj:
+    .word   4
+    .word   4
+    .word   Bool_dispTab
+    .word   0
+Main_protObj:
+    .word   5
+    .word   3
+    .word   Main_dispTab
+
+
+Object_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+IO_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+    .word   IO.out_string
+    .word   IO.out_int
+    .word   IO.in_string
+    .word   IO.in_int
+Int_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+String_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+    .word   String.length
+    .word   String.concat
+    .word   String.substr
+Bool_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+Main_dispTab:
+    .word   Object.abort
+    .word   Object.type_name
+    .word   Object.copy
+    .word   IO.out_string
+    .word   IO.out_int
+    .word   IO.in_string
+    .word   IO.in_int
+    .word   Main.countOdd
+    .word   Main.divisibleBy3
+    .word   Main.main
+
+    .globl  heap_start
+heap_start:
+    .word 0
+    .text
+    .globl  Int_init
+    .globl  String_init
+    .globl  Bool_init
+    .globl  Main_init
+    .globl  Main.main
+
+Object_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+IO_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    jal     Object_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+Int_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    jal     Object_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+String_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    jal     Object_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+Bool_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    jal     Object_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+Main_init:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    move    $s0 $a0
+    move    $a0 $s0
+    jal     IO_init
+    move    $a0 $s0
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
+
+Main.countOdd:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    addiu   $sp $sp -60
+    move    $s0 $a0
+    lw      $t1 12($fp)
+    sw      $t1 -16($fp)
+    lw      $t1 -16($fp)
+    lw      $t1 12($t1)
+    sw      $t1 -52($fp)
+    lw      $t1 16($fp)
+    sw      $t1 -20($fp)
+    lw      $t1 -20($fp)
+    lw      $t1 12($t1)
+    sw      $t1 -48($fp)
+    lw      $t1 20($fp)
+    sw      $t1 -24($fp)
+    lw      $t1 -24($fp)
+    lw      $t1 12($t1)
+    sw      $t1 -44($fp)
+    lw      $t1 -52($fp)
+    sw      $t1 -36($fp)
+    lw      $t1 -48($fp)
+    sw      $t1 -32($fp)
+    lw      $t1 -44($fp)
+    sw      $t1 -28($fp)
+Main.countOdd.B7:
+    lw      $t1 -36($fp)
+    li      $t2 0
+    seq     $t1 $t1 $t2
+    sw      $t1 -56($fp)
+    lw      $t1 -56($fp)
+    bnez    $t1 Main.countOdd.B3
+Main.countOdd.B2:
+    lw      $t1 -28($fp)
+    li      $t2 0
+    seq     $t1 $t1 $t2
+    sw      $t1 -4($fp)
+    lw      $t1 -28($fp)
+    bnez    $t1 Main.countOdd.B4
+    b       Main.countOdd.B5
+Main.countOdd.B3:
+    la      $a0 Int_protObj
+    jal     Object.copy
+    lw      $t1 -32($fp)
+    sw      $t1 12($a0)
+    sw      $a0 -60($fp)
+    lw      $a0 -60($fp)
+    addiu   $sp $sp 60
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 24
+    jr      $ra
+Main.countOdd.B4:
+    lw      $t1 -32($fp)
+    li      $t2 1
+    add     $t1 $t1 $t2
+    sw      $t1 -8($fp)
+    lw      $t1 -8($fp)
+    sw      $t1 -40($fp)
+    b       Main.countOdd.B6
+Main.countOdd.B5:
+    lw      $t1 -32($fp)
+    sw      $t1 -40($fp)
+Main.countOdd.B6:
+    lw      $t1 -36($fp)
+    li      $t2 1
+    sub     $t1 $t1 $t2
+    sw      $t1 -12($fp)
+    move    $a0 $s0
+    bnez    $a0 Main.countOdd.L0
+    la      $a0 str_const7
+    li      $t1 5
+    jal     _dispatch_abort
+Main.countOdd.L0:
+    lw      $t1 -12($fp)
+    sw      $t1 -36($fp)
+    lw      $t1 -40($fp)
+    sw      $t1 -32($fp)
+    lw      $t1 -4($fp)
+    sw      $t1 -28($fp)
+    b       Main.countOdd.B7
+Main.divisibleBy3:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    addiu   $sp $sp -52
+    move    $s0 $a0
+    lw      $t1 12($fp)
+    sw      $t1 -20($fp)
+    lw      $t1 -20($fp)
+    lw      $t1 12($t1)
+    sw      $t1 -40($fp)
+    lw      $t1 16($fp)
+    sw      $t1 -24($fp)
+    lw      $t1 -24($fp)
+    lw      $t1 12($t1)
+    sw      $t1 -36($fp)
+    lw      $t1 -40($fp)
+    sw      $t1 -32($fp)
+    lw      $t1 -36($fp)
+    sw      $t1 -28($fp)
+Main.divisibleBy3.B7:
+    lw      $t1 -32($fp)
+    li      $t2 0
+    seq     $t1 $t1 $t2
+    sw      $t1 -44($fp)
+    lw      $t1 -44($fp)
+    beqz    $t1 Main.divisibleBy3.B2
+Main.divisibleBy3.B1:
+    lw      $t1 -28($fp)
+    li      $t2 0
+    seq     $t1 $t1 $t2
+    sw      $t1 -48($fp)
+    lw      $t1 -48($fp)
+    la      $a0 bool_const0
+    beqz    $t1 Main.divisibleBy3.L0
+    la      $a0 bool_const1
+Main.divisibleBy3.L0:
+    sw      $a0 -4($fp)
+    lw      $a0 -4($fp)
+    addiu   $sp $sp 52
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 20
+    jr      $ra
+Main.divisibleBy3.B2:
+    lw      $t1 -28($fp)
+    li      $t2 2
+    seq     $t1 $t1 $t2
+    sw      $t1 -52($fp)
+    lw      $t1 -52($fp)
+    beqz    $t1 Main.divisibleBy3.B5
+Main.divisibleBy3.B4:
+    lw      $t1 -32($fp)
+    li      $t2 1
+    sub     $t1 $t1 $t2
+    sw      $t1 -8($fp)
+    move    $a0 $s0
+    bnez    $a0 Main.divisibleBy3.L1
+    la      $a0 str_const7
+    li      $t1 11
+    jal     _dispatch_abort
+Main.divisibleBy3.L1:
+    lw      $t1 -8($fp)
+    sw      $t1 -32($fp)
+    li      $t1 0
+    sw      $t1 -28($fp)
+    b       Main.divisibleBy3.B7
+Main.divisibleBy3.B5:
+    lw      $t1 -28($fp)
+    li      $t2 1
+    add     $t1 $t1 $t2
+    sw      $t1 -12($fp)
+    lw      $t1 -32($fp)
+    li      $t2 1
+    sub     $t1 $t1 $t2
+    sw      $t1 -16($fp)
+    move    $a0 $s0
+    bnez    $a0 Main.divisibleBy3.L2
+    la      $a0 str_const7
+    li      $t1 11
+    jal     _dispatch_abort
+Main.divisibleBy3.L2:
+    lw      $t1 -16($fp)
+    sw      $t1 -32($fp)
+    lw      $t1 -12($fp)
+    sw      $t1 -28($fp)
+    b       Main.divisibleBy3.B7
+Main.main:
+    addiu   $sp $sp -12
+    sw      $fp 12($sp)
+    sw      $s0 8($sp)
+    sw      $ra 4($sp)
+    addiu   $fp $sp 4
+    addiu   $sp $sp -44
+    move    $s0 $a0
+    move    $a0 $s0
+    bnez    $a0 Main.main.L0
+    la      $a0 str_const7
+    li      $t1 15
+    jal     _dispatch_abort
+Main.main.L0:
+    la      $a0 bool_const0
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    la      $a0 int_const0
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    la      $a0 int_const1000000
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    jal     Main.countOdd
+    sw      $a0 -4($fp)
+    move    $a0 $s0
+    bnez    $a0 Main.main.L1
+    la      $a0 str_const7
+    li      $t1 15
+    jal     _dispatch_abort
+Main.main.L1:
+    lw      $a0 -4($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    jal     IO.out_int
+    sw      $a0 -8($fp)
+    move    $a0 $s0
+    bnez    $a0 Main.main.L2
+    la      $a0 str_const7
+    li      $t1 16
+    jal     _dispatch_abort
+Main.main.L2:
+    la      $a0 str_const8
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    jal     IO.out_string
+    sw      $a0 -12($fp)
+    move    $a0 $s0
+    bnez    $a0 Main.main.L3
+    la      $a0 str_const7
+    li      $t1 17
+    jal     _dispatch_abort
+Main.main.L3:
+    la      $a0 int_const0
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    la      $a0 int_const999999
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    jal     Main.divisibleBy3
+    sw      $a0 -16($fp)
+    lw      $t1 -16($fp)
+    lw      $t1 12($t1)
+    sw      $t1 -20($fp)
+    lw      $t1 -20($fp)
+    beqz    $t1 Main.main.B2
+Main.main.B1:
+    la      $t1 str_const9
+    sw      $t1 -40($fp)
+    b       Main.main.B3
+Main.main.B2:
+    la      $t1 str_const10
+    sw      $t1 -40($fp)
+Main.main.B3:
+    move    $a0 $s0
+    bnez    $a0 Main.main.L4
+    la      $a0 str_const7
+    li      $t1 17
+    jal     _dispatch_abort
+Main.main.L4:
+    lw      $a0 -40($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    jal     IO.out_string
+    sw      $a0 -24($fp)
+    move    $a0 $s0
+    bnez    $a0 Main.main.L5
+    la      $a0 str_const7
+    li      $t1 18
+    jal     _dispatch_abort
+Main.main.L5:
+    la      $a0 int_const0
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    la      $a0 int_const1000000
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    jal     Main.divisibleBy3
+    sw      $a0 -28($fp)
+    lw      $t1 -28($fp)
+    lw      $t1 12($t1)
+    sw      $t1 -32($fp)
+    lw      $t1 -32($fp)
+    beqz    $t1 Main.main.B5
+Main.main.B4:
+    la      $t1 str_const9
+    sw      $t1 -44($fp)
+    b       Main.main.B6
+Main.main.B5:
+    la      $t1 str_const10
+    sw      $t1 -44($fp)
+Main.main.B6:
+    move    $a0 $s0
+    bnez    $a0 Main.main.L6
+    la      $a0 str_const7
+    li      $t1 18
+    jal     _dispatch_abort
+Main.main.L6:
+    lw      $a0 -44($fp)
+    sw      $a0 0($sp)
+    addiu   $sp $sp -4
+    move    $a0 $s0
+    jal     IO.out_string
+    sw      $a0 -36($fp)
+    lw      $a0 -36($fp)
+    addiu   $sp $sp 44
+    lw      $fp 12($sp)
+    lw      $s0 8($sp)
+    lw      $ra 4($sp)
+    addiu   $sp $sp 12
+    jr      $ra
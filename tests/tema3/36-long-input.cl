@@ -0,0 +1,20 @@
+-- Lines longer than in_string and in_int read at once, the rest being read
+-- next, and integers that do not fit in a word
+class Main inherits IO {
+    main() : Object {
+        let line : String <- in_string() in {
+            out_int(line.length()).out_string(" ").out_string(line.substr(1020, 5)).out_string("\n");
+            out_string(in_string()).out_string("\n");
+            out_int(in_string().length()).out_string("\n");
+            out_int(in_string().length()).out_string("\n");
+            out_int(in_int()).out_string("\n");
+            out_string(in_string()).out_string("\n");
+            out_int(in_int()).out_string("\n");
+            out_int(in_int()).out_string("\n");
+            out_int(in_int()).out_string("\n");
+            out_int(in_int()).out_string("\n");
+            out_int(in_int()).out_string("\n");
+            out_int(in_string().length()).out_string("\n");
+        }
+    };
+};